@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.util.Log;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sizes, hashes, textures and available variants of every packaged model, read from the
+ * {@code asset_manifest.bin} that {@code manifest.gradle} writes with {@link AssetManifestWriter}.
+ *
+ * <p>The manifest is stored uncompressed and mapped in a single read, so the loader, cache and
+ * texture tier selection can make decisions without probing asset files one by one.
+ */
+public class AssetIndex {
+
+    private static final String TAG = AssetIndex.class.getSimpleName();
+
+    public static final String MANIFEST_ASSET = "asset_manifest.bin";
+
+    /** One packaged .sfb. */
+    public static class Entry {
+        public final String path;
+        public final String modelId;
+        public final long byteSize;
+        public final long contentHash;
+        public final long geometryBytes;
+        public final long textureBytes;
+        public final List<String> textures;
+        private final int tierMask;
+        private final int lodLevels;
+
+        Entry(
+                String path,
+                String modelId,
+                long byteSize,
+                long contentHash,
+                long geometryBytes,
+                long textureBytes,
+                int tierMask,
+                int lodLevels,
+                List<String> textures) {
+            this.path = path;
+            this.modelId = modelId;
+            this.byteSize = byteSize;
+            this.contentHash = contentHash;
+            this.geometryBytes = geometryBytes;
+            this.textureBytes = textureBytes;
+            this.tierMask = tierMask;
+            this.lodLevels = lodLevels;
+            this.textures = Collections.unmodifiableList(textures);
+        }
+
+        /** Whether the model is packaged in the texture tier with this ordinal. */
+        public boolean hasTier(int tierOrdinal) {
+            return (tierMask & (1 << tierOrdinal)) != 0;
+        }
+
+        /** Number of simplified mesh levels packaged for the model. */
+        public int getLodLevels() {
+            return lodLevels;
+        }
+
+        /** The memory this variant costs once loaded. */
+        public ModelBudget toBudget() {
+            return new ModelBudget(
+                    modelId,
+                    Collections.emptyList(),
+                    Collections.emptyList(),
+                    geometryBytes,
+                    textureBytes,
+                    Collections.emptyList());
+        }
+    }
+
+    private static AssetIndex instance;
+
+    private final Map<String, Entry> entries;
+
+    private AssetIndex(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /** Loads the packaged manifest once, or an empty index if it is missing or unreadable. */
+    public static synchronized AssetIndex getInstance(Context context) {
+        if (instance == null) {
+            try {
+                instance = load(context);
+            } catch (IOException | RuntimeException e) {
+                Log.w(TAG, "No usable " + MANIFEST_ASSET + ", falling back to defaults", e);
+                instance = new AssetIndex(Collections.emptyMap());
+            }
+        }
+        return instance;
+    }
+
+    /** Maps the manifest asset, which must be stored uncompressed in the APK. */
+    public static AssetIndex load(Context context) throws IOException {
+        try (AssetFileDescriptor fd = context.getAssets().openFd(MANIFEST_ASSET);
+                FileInputStream input = fd.createInputStream();
+                FileChannel channel = input.getChannel()) {
+            ByteBuffer buffer =
+                    channel.map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getLength());
+            return parse(buffer);
+        }
+    }
+
+    /** Parses a manifest. Plain Java, usable on the JVM. */
+    public static AssetIndex parse(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != AssetManifestWriter.MAGIC) {
+            throw new IOException("Not an asset manifest");
+        }
+        int version = buffer.getInt();
+        if (version != AssetManifestWriter.VERSION) {
+            throw new IOException("Unsupported asset manifest version " + version);
+        }
+
+        int count = buffer.getInt();
+        Map<String, Entry> entries = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            String path = readString(buffer);
+            String modelId = readString(buffer);
+            long byteSize = buffer.getLong();
+            long contentHash = buffer.getLong();
+            long geometryBytes = buffer.getLong();
+            long textureBytes = buffer.getLong();
+            int tierMask = buffer.get() & 0xff;
+            int lodLevels = buffer.get() & 0xff;
+            int textureCount = buffer.getShort() & 0xffff;
+            List<String> textures = new ArrayList<>(textureCount);
+            for (int t = 0; t < textureCount; t++) {
+                textures.add(readString(buffer));
+            }
+            entries.put(
+                    path,
+                    new Entry(
+                            path,
+                            modelId,
+                            byteSize,
+                            contentHash,
+                            geometryBytes,
+                            textureBytes,
+                            tierMask,
+                            lodLevels,
+                            textures));
+        }
+        return new AssetIndex(entries);
+    }
+
+    /** Returns the entry for an asset path such as {@code "half/Earth.sfb"}, or null. */
+    public Entry get(String path) {
+        return entries.get(path);
+    }
+
+    public boolean contains(String path) {
+        return entries.containsKey(path);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xffff;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
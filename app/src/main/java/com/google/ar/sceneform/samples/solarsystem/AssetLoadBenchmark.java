@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Debug;
+import android.os.SystemClock;
+import android.util.Log;
+import com.google.ar.sceneform.rendering.ModelRenderable;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Compares loading a model through the default asset stream ({@code Uri} source) with loading it
+ * from a memory-mapped asset ({@link MappedAssetSource}).
+ *
+ * <p>Each path loads the asset {@code iterations} times in a row, bypassing {@link RenderableCache},
+ * while the Java and native heaps are sampled every few milliseconds. Results go to the log. Debug
+ * only; enable with {@link Data#RUN_ASSET_LOAD_BENCHMARK}.
+ */
+public class AssetLoadBenchmark {
+
+    private static final String TAG = AssetLoadBenchmark.class.getSimpleName();
+    private static final long SAMPLE_INTERVAL_MS = 2;
+
+    private final Context context;
+    private final String asset;
+    private final int iterations;
+
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+    private volatile long peakJavaHeap;
+    private volatile long peakNativeHeap;
+
+    public AssetLoadBenchmark(Context context, String asset, int iterations) {
+        this.context = context.getApplicationContext();
+        this.asset = asset;
+        this.iterations = iterations;
+    }
+
+    /** Runs both paths one after the other. Must be called from the UI thread. */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public CompletableFuture<Void> run() {
+        return measure("stream", this::loadFromStream)
+                .thenCompose(notUsed -> measure("mapped", this::loadFromMappedAsset))
+                .whenComplete((notUsed, throwable) -> sampler.shutdown());
+    }
+
+    private CompletableFuture<ModelRenderable> loadFromStream() {
+        return ModelRenderable.builder()
+                .setSource(context, Uri.parse(asset))
+                // A Uri source is registered for reuse; load it every time.
+                .setRegistryId(null)
+                .build();
+    }
+
+    private CompletableFuture<ModelRenderable> loadFromMappedAsset() {
+        return ModelRenderable.builder()
+                .setSource(context, MappedAssetSource.streamSource(context, asset))
+                .build();
+    }
+
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    private CompletableFuture<Void> measure(
+            String label, Supplier<CompletableFuture<ModelRenderable>> loader) {
+        Runtime.getRuntime().gc();
+        long baseJavaHeap = javaHeap();
+        long baseNativeHeap = Debug.getNativeHeapAllocatedSize();
+        peakJavaHeap = baseJavaHeap;
+        peakNativeHeap = baseNativeHeap;
+
+        ScheduledFuture<?> sampling =
+                sampler.scheduleAtFixedRate(
+                        () -> {
+                            peakJavaHeap = Math.max(peakJavaHeap, javaHeap());
+                            peakNativeHeap =
+                                    Math.max(peakNativeHeap, Debug.getNativeHeapAllocatedSize());
+                        },
+                        0,
+                        SAMPLE_INTERVAL_MS,
+                        TimeUnit.MILLISECONDS);
+
+        long start = SystemClock.elapsedRealtimeNanos();
+        CompletableFuture<ModelRenderable> chain = loader.get();
+        for (int i = 1; i < iterations; i++) {
+            chain = chain.thenCompose(notUsed -> loader.get());
+        }
+
+        return chain.thenAccept(
+                notUsed -> {
+                    sampling.cancel(false);
+                    long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+                    Log.i(
+                            TAG,
+                            String.format(
+                                    Locale.US,
+                                    "%s %s: %.1f ms/load, peak java heap +%d KB, peak native heap +%d KB",
+                                    asset,
+                                    label,
+                                    elapsed / 1e6 / iterations,
+                                    (peakJavaHeap - baseJavaHeap) / 1024,
+                                    (peakNativeHeap - baseNativeHeap) / 1024));
+                });
+    }
+
+    private static long javaHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
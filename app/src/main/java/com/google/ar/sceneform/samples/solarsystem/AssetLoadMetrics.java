@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Per-asset load timings: when a load was submitted, when decoding started and when it finished,
+ * plus source size and the finishing thread.
+ *
+ * <p>A load is identified by the name it was requested under. When a queue resolves that name to
+ * the file it actually decodes (a texture tier or level of detail), {@link #resolved} moves the
+ * open record to the resolved path, so the queue wait and the decode end up in the same record.
+ *
+ * <p>Only the most recent {@value #MAX_RECORDS} records are kept. Plain Java with an injectable
+ * clock, so it runs on the JVM against a fake loader. Safe to call from any thread.
+ */
+public class AssetLoadMetrics {
+
+    /** Time source in nanoseconds. */
+    public interface Clock {
+        long nanoTime();
+    }
+
+    static final int MAX_RECORDS = 512;
+
+    /** One load of one asset. Times are in {@link Clock} nanoseconds, -1 if not reached. */
+    public static class Record {
+        public final String id;
+        // The file that was decoded, the same as id unless resolved.
+        public String path;
+        public final long submitNanos;
+        public long startNanos = -1;
+        public long finishNanos = -1;
+        public long sourceBytes;
+        public boolean cacheHit;
+        public boolean failed;
+        public String threadName;
+
+        Record(String id, long submitNanos) {
+            this.id = id;
+            this.path = id;
+            this.submitNanos = submitNanos;
+        }
+
+        /** Time spent waiting in a queue before decoding started. */
+        public long getQueueWaitNanos() {
+            return startNanos < 0 ? -1 : startNanos - submitNanos;
+        }
+
+        /** Time spent decoding. */
+        public long getDecodeNanos() {
+            return finishNanos < 0 || startNanos < 0 ? -1 : finishNanos - startNanos;
+        }
+
+        public boolean isFinished() {
+            return finishNanos >= 0;
+        }
+
+        Record copy() {
+            Record copy = new Record(id, submitNanos);
+            copy.path = path;
+            copy.startNanos = startNanos;
+            copy.finishNanos = finishNanos;
+            copy.sourceBytes = sourceBytes;
+            copy.cacheHit = cacheHit;
+            copy.failed = failed;
+            copy.threadName = threadName;
+            return copy;
+        }
+    }
+
+    private static AssetLoadMetrics instance;
+
+    private final Clock clock;
+    private final ArrayDeque<Record> records = new ArrayDeque<>();
+    // The latest unfinished record per asset, keyed by resolved path.
+    private final Map<String, Record> open = new HashMap<>();
+
+    public static synchronized AssetLoadMetrics getInstance() {
+        if (instance == null) {
+            instance = new AssetLoadMetrics(System::nanoTime);
+        }
+        return instance;
+    }
+
+    public AssetLoadMetrics(Clock clock) {
+        this.clock = clock;
+    }
+
+    /** A load was requested. Does nothing if one is already open for {@code id}. */
+    public synchronized void submitted(String id) {
+        if (!open.containsKey(id)) {
+            Record record = new Record(id, clock.nanoTime());
+            open.put(id, record);
+            records.add(record);
+            if (records.size() > MAX_RECORDS) {
+                records.poll();
+            }
+        }
+    }
+
+    /**
+     * The load submitted as {@code id} is started and finished as {@code path} from now on. Does
+     * nothing if no load is open for {@code id}.
+     */
+    public synchronized void resolved(String id, String path) {
+        if (id.equals(path) || !open.containsKey(id)) {
+            return;
+        }
+        if (open.containsKey(path)) {
+            // Joins a load already open under that path, whose record measures it.
+            dropped(id);
+            return;
+        }
+        Record record = open.remove(id);
+        record.path = path;
+        open.put(path, record);
+    }
+
+    /** The load was cancelled before it started; forgets its record. */
+    public synchronized void dropped(String id) {
+        Record record = open.remove(id);
+        if (record != null) {
+            records.remove(record);
+        }
+    }
+
+    /** Decoding started. Counts as submitted now if {@link #submitted} wasn't called. */
+    public synchronized void started(String id, long sourceBytes) {
+        submitted(id);
+        Record record = open.get(id);
+        record.startNanos = clock.nanoTime();
+        record.sourceBytes = sourceBytes;
+    }
+
+    /** The load finished, on the calling thread. */
+    public synchronized void finished(String id, boolean failed) {
+        Record record = open.remove(id);
+        if (record == null) {
+            return;
+        }
+        record.finishNanos = clock.nanoTime();
+        if (record.startNanos < 0) {
+            record.startNanos = record.finishNanos;
+        }
+        record.failed = failed;
+        record.threadName = Thread.currentThread().getName();
+    }
+
+    /** The asset was served from memory without decoding. */
+    public synchronized void cacheHit(String id) {
+        started(id, 0);
+        open.get(id).cacheHit = true;
+        finished(id, false);
+    }
+
+    /** Records a load that has no separate queue, e.g. a {@code ViewRenderable}. */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public <T> CompletableFuture<T> track(
+            String id, long sourceBytes, Supplier<CompletableFuture<T>> loader) {
+        started(id, sourceBytes);
+        CompletableFuture<T> future = loader.get();
+        future.whenComplete((result, throwable) -> finished(id, throwable != null));
+        return future;
+    }
+
+    /** Copies of all records, oldest first. */
+    public synchronized List<Record> snapshot() {
+        List<Record> copies = new ArrayList<>(records.size());
+        for (Record record : records) {
+            copies.add(record.copy());
+        }
+        return copies;
+    }
+
+    public synchronized void clear() {
+        records.clear();
+        open.clear();
+    }
+
+    /** Writes all records as CSV, times in milliseconds. */
+    public void dump(Writer writer) throws IOException {
+        writer.write("id,path,queue_wait_ms,decode_ms,source_bytes,cache_hit,failed,thread\n");
+        for (Record record : snapshot()) {
+            writer.write(
+                    String.format(
+                            Locale.US,
+                            "%s,%s,%.2f,%.2f,%d,%b,%b,%s\n",
+                            record.id,
+                            record.path,
+                            toMillis(record.getQueueWaitNanos()),
+                            toMillis(record.getDecodeNanos()),
+                            record.sourceBytes,
+                            record.cacheHit,
+                            record.failed,
+                            record.threadName));
+        }
+        writer.flush();
+    }
+
+    public void dumpTo(File file) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            dump(writer);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos < 0 ? -1 : nanos / 1e6;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.support.annotation.Nullable;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.Scene;
+import com.google.ar.sceneform.math.Quaternion;
+import java.util.ArrayList;
+
+/**
+ * Turns info and price cards to face the camera, from a single scene update listener.
+ *
+ * <p>Only enabled cards in the scene are updated, and only once the camera or the card has moved
+ * more than {@link #MOVEMENT_THRESHOLD}, or the card's parent has turned, since the card was last
+ * turned. The rotation is computed directly in the parent's space from the world matrices, into
+ * one reused quaternion, so a frame allocates nothing once the cards are registered.
+ *
+ * <p>All calls are on the UI thread, like the scene's own updates.
+ */
+public class BillboardManager implements Scene.OnUpdateListener {
+  // Metres the camera or a card has to move before the card is turned again.
+  private static final float MOVEMENT_THRESHOLD = 0.005f;
+  private static final float MOVEMENT_THRESHOLD_SQUARED = MOVEMENT_THRESHOLD * MOVEMENT_THRESHOLD;
+  // Change in any element of the parent's rotation and scale before the card is turned again;
+  // about a twentieth of a degree for an unscaled parent.
+  private static final float PARENT_AXIS_THRESHOLD = 0.001f;
+  private static final float EPSILON = 1e-6f;
+  private static final float[] IDENTITY = {
+    1f, 0f, 0f, 0f, 0f, 1f, 0f, 0f, 0f, 0f, 1f, 0f, 0f, 0f, 0f, 1f
+  };
+
+  /**
+   * What a card was last turned for: the camera and card positions and the parent's axes. Plain
+   * Java, so the per-frame step can be checked without a scene.
+   */
+  static class Facing {
+    private boolean facing;
+    private final float[] camera = new float[3];
+    private final float[] card = new float[3];
+    // Upper 3x3 of the parent's world matrix, column-major.
+    private final float[] parentAxes = new float[9];
+
+    /** Turns the card on the next update, e.g. after it was hidden. */
+    void reset() {
+      facing = false;
+    }
+
+    /**
+     * Writes the card's new local rotation to {@code out} and returns true, or returns false if it
+     * already faces the camera or the direction is degenerate.
+     *
+     * @param cameraMatrix column-major world matrix of the camera
+     * @param cardMatrix column-major world matrix of the card
+     * @param parentMatrix column-major world matrix of the card's parent, or null for the world
+     */
+    boolean update(
+        float[] cameraMatrix, float[] cardMatrix, @Nullable float[] parentMatrix, Quaternion out) {
+      float[] parent = parentMatrix != null ? parentMatrix : IDENTITY;
+      float cameraX = cameraMatrix[12];
+      float cameraY = cameraMatrix[13];
+      float cameraZ = cameraMatrix[14];
+      float cardX = cardMatrix[12];
+      float cardY = cardMatrix[13];
+      float cardZ = cardMatrix[14];
+      if (facing
+          && distanceSquared(cameraX, cameraY, cameraZ, camera) < MOVEMENT_THRESHOLD_SQUARED
+          && distanceSquared(cardX, cardY, cardZ, card) < MOVEMENT_THRESHOLD_SQUARED
+          && sameAxes(parent, parentAxes)) {
+        return false;
+      }
+
+      if (!lookRotation(parentMatrix, cameraX - cardX, cameraY - cardY, cameraZ - cardZ, out)) {
+        return false;
+      }
+      facing = true;
+      camera[0] = cameraX;
+      camera[1] = cameraY;
+      camera[2] = cameraZ;
+      card[0] = cardX;
+      card[1] = cardY;
+      card[2] = cardZ;
+      for (int column = 0; column < 3; column++) {
+        System.arraycopy(parent, column * 4, parentAxes, column * 3, 3);
+      }
+      return true;
+    }
+  }
+
+  private static class Card {
+    final Node node;
+    final Facing facing = new Facing();
+
+    Card(Node node) {
+      this.node = node;
+    }
+  }
+
+  private final ArrayList<Card> cards = new ArrayList<>();
+  private final Quaternion scratchRotation = new Quaternion();
+  @Nullable private Scene scene;
+
+  /** Keeps {@code card}, which must be in a scene, facing that scene's camera until it leaves. */
+  public void register(Node card) {
+    Scene scene = card.getScene();
+    if (scene == null) {
+      throw new IllegalStateException("Card must be in a scene to face its camera");
+    }
+    if (scene != this.scene) {
+      detach();
+      this.scene = scene;
+      scene.addOnUpdateListener(this);
+    }
+    for (int i = 0; i < cards.size(); i++) {
+      if (cards.get(i).node == card) {
+        return;
+      }
+    }
+    cards.add(new Card(card));
+  }
+
+  public void unregister(Node card) {
+    for (int i = cards.size() - 1; i >= 0; i--) {
+      if (cards.get(i).node == card) {
+        cards.remove(i);
+      }
+    }
+  }
+
+  public int getCardCount() {
+    return cards.size();
+  }
+
+  @Override
+  public void onUpdate(FrameTime frameTime) {
+    if (scene == null || cards.isEmpty()) {
+      return;
+    }
+    float[] camera = scene.getCamera().getWorldModelMatrix().data;
+
+    for (int i = cards.size() - 1; i >= 0; i--) {
+      Card card = cards.get(i);
+      Node node = card.node;
+      if (node.getScene() == null) {
+        // Removed along with its anchor or product.
+        cards.remove(i);
+        continue;
+      }
+      if (!node.isEnabled()) {
+        // Turn it as soon as it is shown again.
+        card.facing.reset();
+        continue;
+      }
+
+      Node parent = node.getParent();
+      float[] parentMatrix = parent != null ? parent.getWorldModelMatrix().data : null;
+      if (card.facing.update(
+          camera, node.getWorldModelMatrix().data, parentMatrix, scratchRotation)) {
+        node.setLocalRotation(scratchRotation);
+      }
+    }
+  }
+
+  /**
+   * Writes to {@code out} the rotation, relative to a parent with world matrix {@code m}, that
+   * points +Z along the world direction {@code d} with +Y as close to world up as possible, like
+   * {@link Quaternion#lookRotation}. Returns false if the direction is degenerate.
+   *
+   * @param m column-major world matrix of the parent, or null for the world itself
+   */
+  static boolean lookRotation(@Nullable float[] m, float dx, float dy, float dz, Quaternion out) {
+    // Forward and up in the parent's space: dot products with its normalised axes.
+    float fx = dx;
+    float fy = dy;
+    float fz = dz;
+    float ux = 0f;
+    float uy = 1f;
+    float uz = 0f;
+    if (m != null) {
+      float inverseX = inverseLength(m[0], m[1], m[2]);
+      float inverseY = inverseLength(m[4], m[5], m[6]);
+      float inverseZ = inverseLength(m[8], m[9], m[10]);
+      fx = (m[0] * dx + m[1] * dy + m[2] * dz) * inverseX;
+      fy = (m[4] * dx + m[5] * dy + m[6] * dz) * inverseY;
+      fz = (m[8] * dx + m[9] * dy + m[10] * dz) * inverseZ;
+      ux = m[1] * inverseX;
+      uy = m[5] * inverseY;
+      uz = m[9] * inverseZ;
+    }
+
+    float inverseForward = inverseLength(fx, fy, fz);
+    if (inverseForward == 0f) {
+      return false;
+    }
+    fx *= inverseForward;
+    fy *= inverseForward;
+    fz *= inverseForward;
+
+    // right = up x forward
+    float rx = uy * fz - uz * fy;
+    float ry = uz * fx - ux * fz;
+    float rz = ux * fy - uy * fx;
+    float inverseRight = inverseLength(rx, ry, rz);
+    if (inverseRight == 0f) {
+      // Looking straight up or down; keep the last rotation.
+      return false;
+    }
+    rx *= inverseRight;
+    ry *= inverseRight;
+    rz *= inverseRight;
+
+    // up = forward x right
+    ux = fy * rz - fz * ry;
+    uy = fz * rx - fx * rz;
+    uz = fx * ry - fy * rx;
+
+    // Rotation matrix with columns right, up, forward, to a quaternion.
+    float trace = rx + uy + fz;
+    float qx;
+    float qy;
+    float qz;
+    float qw;
+    if (trace > 0f) {
+      float s = (float) Math.sqrt(trace + 1f) * 2f;
+      qw = 0.25f * s;
+      qx = (uz - fy) / s;
+      qy = (fx - rz) / s;
+      qz = (ry - ux) / s;
+    } else if (rx > uy && rx > fz) {
+      float s = (float) Math.sqrt(1f + rx - uy - fz) * 2f;
+      qw = (uz - fy) / s;
+      qx = 0.25f * s;
+      qy = (ux + ry) / s;
+      qz = (fx + rz) / s;
+    } else if (uy > fz) {
+      float s = (float) Math.sqrt(1f + uy - rx - fz) * 2f;
+      qw = (fx - rz) / s;
+      qx = (ux + ry) / s;
+      qy = 0.25f * s;
+      qz = (fy + uz) / s;
+    } else {
+      float s = (float) Math.sqrt(1f + fz - rx - uy) * 2f;
+      qw = (ry - ux) / s;
+      qx = (fx + rz) / s;
+      qy = (fy + uz) / s;
+      qz = 0.25f * s;
+    }
+    out.set(qx, qy, qz, qw);
+    return true;
+  }
+
+  private void detach() {
+    if (scene != null) {
+      scene.removeOnUpdateListener(this);
+      scene = null;
+    }
+  }
+
+  private static float distanceSquared(float x, float y, float z, float[] last) {
+    float dx = x - last[0];
+    float dy = y - last[1];
+    float dz = z - last[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  /** Whether the upper 3x3 of world matrix {@code m} is within the threshold of {@code axes}. */
+  private static boolean sameAxes(float[] m, float[] axes) {
+    for (int column = 0; column < 3; column++) {
+      for (int row = 0; row < 3; row++) {
+        if (Math.abs(m[column * 4 + row] - axes[column * 3 + row]) > PARENT_AXIS_THRESHOLD) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /** 1 / |v|, or 0 for a (near) zero vector. */
+  private static float inverseLength(float x, float y, float z) {
+    float lengthSquared = x * x + y * y + z * z;
+    return lengthSquared < EPSILON ? 0f : 1f / (float) Math.sqrt(lengthSquared);
+  }
+}
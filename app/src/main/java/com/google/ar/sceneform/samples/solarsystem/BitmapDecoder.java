@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes product images no larger than the view they are shown in.
+ *
+ * <p>The image bounds are read first, and a power-of-two {@code inSampleSize} is picked so the
+ * decoded bitmap is still at least as large as the target. The pixels are then decoded into a
+ * bitmap from the {@link BitmapPool} when one fits; {@link ImageCache} fills the pool with bitmaps
+ * it evicts. The bytes a full-resolution ARGB_8888 decode would have used minus the bytes actually
+ * decoded are counted in {@link #getSavedBytes()}.
+ */
+public class BitmapDecoder {
+
+    private static final String TAG = BitmapDecoder.class.getSimpleName();
+
+    private static BitmapDecoder instance;
+
+    private final BitmapPool pool;
+    private final AtomicLong decodedBytes = new AtomicLong();
+    private final AtomicLong savedBytes = new AtomicLong();
+
+    /** Reads the image into options set up by {@link #decode}. */
+    private interface Source {
+        Bitmap decode(BitmapFactory.Options options);
+    }
+
+    public static synchronized BitmapDecoder getInstance() {
+        if (instance == null) {
+            instance = new BitmapDecoder(BitmapPool.getInstance());
+        }
+        return instance;
+    }
+
+    public BitmapDecoder(BitmapPool pool) {
+        this.pool = pool;
+    }
+
+    /** Decodes a drawable resource for a {@code reqWidth} x {@code reqHeight} pixel target. */
+    @Nullable
+    public Bitmap decodeResource(
+            Resources resources, @DrawableRes int resId, int reqWidth, int reqHeight) {
+        return decode(
+                options -> BitmapFactory.decodeResource(resources, resId, options),
+                reqWidth,
+                reqHeight);
+    }
+
+    /** Decodes an image file for a {@code reqWidth} x {@code reqHeight} pixel target. */
+    @Nullable
+    public Bitmap decodeFile(String path, int reqWidth, int reqHeight) {
+        return decode(options -> BitmapFactory.decodeFile(path, options), reqWidth, reqHeight);
+    }
+
+    /** Bytes decoded so far. */
+    public long getDecodedBytes() {
+        return decodedBytes.get();
+    }
+
+    /** Bytes not decoded so far thanks to subsampling. */
+    public long getSavedBytes() {
+        return savedBytes.get();
+    }
+
+    @Nullable
+    private Bitmap decode(Source source, int reqWidth, int reqHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        // The target size is in device pixels already; don't scale drawables up by density first.
+        options.inScaled = false;
+        options.inJustDecodeBounds = true;
+        source.decode(options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        int fullWidth = options.outWidth;
+        int fullHeight = options.outHeight;
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(fullWidth, fullHeight, reqWidth, reqHeight);
+        options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+        options.inMutable = true;
+        options.inBitmap = pool.get(sampledByteCount(options), options.inPreferredConfig);
+
+        Bitmap bitmap;
+        try {
+            bitmap = source.decode(options);
+        } catch (IllegalArgumentException e) {
+            // The pooled bitmap can't be reused for this image; decode without it.
+            pool.put(options.inBitmap);
+            options.inBitmap = null;
+            bitmap = source.decode(options);
+        }
+        if (bitmap == null) {
+            return null;
+        }
+
+        long fullBytes = (long) fullWidth * fullHeight * 4;
+        long bytes = bitmap.getByteCount();
+        decodedBytes.addAndGet(bytes);
+        savedBytes.addAndGet(Math.max(0, fullBytes - bytes));
+        Log.d(
+                TAG,
+                "Decoded " + fullWidth + "x" + fullHeight + " at 1/" + options.inSampleSize
+                        + ", saved " + (Math.max(0, fullBytes - bytes) / 1024) + " KB");
+        return bitmap;
+    }
+
+    /** Largest power of two that keeps the decoded image at least the requested size. */
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (reqWidth <= 0 || reqHeight <= 0) {
+            return inSampleSize;
+        }
+        while (width / (inSampleSize * 2) >= reqWidth && height / (inSampleSize * 2) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    private static int sampledByteCount(BitmapFactory.Options options) {
+        int width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+        int height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+        return width * height * 4;
+    }
+}
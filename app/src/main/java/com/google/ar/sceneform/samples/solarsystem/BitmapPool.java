@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.graphics.Bitmap;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Bitmaps that are no longer shown, kept for reuse through
+ * {@link android.graphics.BitmapFactory.Options#inBitmap}.
+ *
+ * <p>Bitmaps are bucketed by allocation size. A decode can reuse any bitmap whose allocation is at
+ * least as large as it needs, so {@link #get} takes the smallest bucket that fits, and refuses
+ * buckets so much larger that reusing them would pin memory the image doesn't need. Once the pool
+ * exceeds its limit, bitmaps from the largest bucket are recycled first.
+ *
+ * <p>Thread-safe.
+ */
+public class BitmapPool {
+
+    // Don't hand out a bitmap more than this many times larger than requested.
+    private static final int MAX_SIZE_MULTIPLE = 4;
+
+    private static BitmapPool instance;
+
+    private final long maxBytes;
+    private long currentBytes;
+    private int hits;
+    private int misses;
+
+    private final TreeMap<Integer, ArrayDeque<Bitmap>> buckets = new TreeMap<>();
+
+    public static synchronized BitmapPool getInstance() {
+        if (instance == null) {
+            instance = new BitmapPool(Runtime.getRuntime().maxMemory() / 16);
+        }
+        return instance;
+    }
+
+    public BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /** Returns a mutable bitmap with room for {@code byteCount} bytes, or null. */
+    @Nullable
+    public synchronized Bitmap get(int byteCount, Bitmap.Config config) {
+        for (Map.Entry<Integer, ArrayDeque<Bitmap>> bucket :
+                buckets.tailMap(byteCount).entrySet()) {
+            if (bucket.getKey() > (long) byteCount * MAX_SIZE_MULTIPLE) {
+                break;
+            }
+            for (Bitmap bitmap : bucket.getValue()) {
+                if (bitmap.getConfig() == config) {
+                    bucket.getValue().remove(bitmap);
+                    if (bucket.getValue().isEmpty()) {
+                        buckets.remove(bucket.getKey());
+                    }
+                    currentBytes -= bitmap.getAllocationByteCount();
+                    hits++;
+                    return bitmap;
+                }
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /** Offers a bitmap that is no longer displayed anywhere for reuse. */
+    public synchronized void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        int size = bitmap.getAllocationByteCount();
+        if (size > maxBytes) {
+            bitmap.recycle();
+            return;
+        }
+        ArrayDeque<Bitmap> bucket = buckets.get(size);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets.put(size, bucket);
+        }
+        bucket.add(bitmap);
+        currentBytes += size;
+        trimToSize(maxBytes);
+    }
+
+    /** Recycles pooled bitmaps until at most {@code bytes} remain. */
+    public synchronized void trimToSize(long bytes) {
+        while (currentBytes > bytes && !buckets.isEmpty()) {
+            Map.Entry<Integer, ArrayDeque<Bitmap>> largest = buckets.lastEntry();
+            Bitmap bitmap = largest.getValue().poll();
+            if (largest.getValue().isEmpty()) {
+                buckets.remove(largest.getKey());
+            }
+            currentBytes -= bitmap.getAllocationByteCount();
+            bitmap.recycle();
+        }
+    }
+
+    public void clear() {
+        trimToSize(0);
+    }
+
+    public synchronized long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public synchronized int getHitCount() {
+        return hits;
+    }
+
+    public synchronized int getMissCount() {
+        return misses;
+    }
+}
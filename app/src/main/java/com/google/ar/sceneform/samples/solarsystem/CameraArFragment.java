@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.support.annotation.Nullable;
+import com.google.ar.core.Config;
+import com.google.ar.core.Session;
+import com.google.ar.sceneform.ux.ArFragment;
+
+/**
+ * {@link ArFragment} that picks its session's camera config with {@link CameraConfigSelector}.
+ *
+ * <p>The camera config can only change before a session is first resumed, and ArFragment creates
+ * and resumes its own session, so the config is applied when the fragment asks for the session
+ * configuration. Without a budget the session keeps ARCore's default config.
+ */
+public class CameraArFragment extends ArFragment {
+
+    private CameraConfigSelector.Budget cameraBudget;
+    private CameraConfigSelector.Selection cameraConfigSelection;
+
+    /** Takes effect for sessions created after this call, e.g. when set before onResume. */
+    public void setCameraBudget(@Nullable CameraConfigSelector.Budget budget) {
+        cameraBudget = budget;
+    }
+
+    /** The config chosen for the current session, or null if none was chosen. */
+    @Nullable
+    public CameraConfigSelector.Selection getCameraConfigSelection() {
+        return cameraConfigSelection;
+    }
+
+    @Override
+    protected Config getSessionConfiguration(Session session) {
+        if (cameraBudget != null) {
+            cameraConfigSelection = CameraConfigs.apply(session, cameraBudget);
+        }
+        return super.getSessionConfiguration(session);
+    }
+}
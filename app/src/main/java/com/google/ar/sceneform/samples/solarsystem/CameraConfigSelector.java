@@ -0,0 +1,265 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Picks the camera config and CPU image reader depth that keep the camera analyses within a
+ * processing budget.
+ *
+ * <p>The CPU image is the largest one the per-frame budget affords, since more pixels give the
+ * analyses more detail, and never one smaller than they can use. If no usable image fits the
+ * budget, the smallest usable one is taken, as it is the cheapest. Among configs with that image
+ * size, the largest GPU texture up to the display size is kept, since the texture is what the user
+ * sees. The reader is made deep enough to hold the images that arrive while one is being processed.
+ *
+ * <p>Plain Java; {@link CameraConfigs} adapts ARCore's configs.
+ */
+public final class CameraConfigSelector {
+
+    /** The reader needs one image being processed and one being written by the camera. */
+    static final int MIN_READER_DEPTH = 2;
+    static final int MAX_READER_DEPTH = 4;
+
+    /** One supported camera config, as sizes only. */
+    public static final class Option {
+        final int index;
+        final int textureWidth;
+        final int textureHeight;
+        final int imageWidth;
+        final int imageHeight;
+
+        /** @param index position in the list the config came from */
+        public Option(
+                int index, int textureWidth, int textureHeight, int imageWidth, int imageHeight) {
+            this.index = index;
+            this.textureWidth = textureWidth;
+            this.textureHeight = textureHeight;
+            this.imageWidth = imageWidth;
+            this.imageHeight = imageHeight;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        long getImagePixels() {
+            return (long) imageWidth * imageHeight;
+        }
+
+        long getTexturePixels() {
+            return (long) textureWidth * textureHeight;
+        }
+    }
+
+    /** What the analyses need and can afford. */
+    public static final class Budget {
+        final int minImageWidth;
+        final int minImageHeight;
+        final long maxTexturePixels;
+        final long frameBudgetNanos;
+        final double nanosPerPixel;
+        final long frameIntervalNanos;
+
+        /**
+         * @param minImageWidth smallest CPU image width the analyses work with, in either
+         *     orientation
+         * @param minImageHeight smallest CPU image height, likewise
+         * @param maxTexturePixels largest useful GPU texture, usually the display's pixel count
+         * @param frameBudgetNanos processing time allowed per CPU image
+         * @param nanosPerPixel estimated processing cost per CPU image pixel
+         * @param frameIntervalNanos time between camera frames
+         */
+        public Budget(
+                int minImageWidth,
+                int minImageHeight,
+                long maxTexturePixels,
+                long frameBudgetNanos,
+                double nanosPerPixel,
+                long frameIntervalNanos) {
+            this.minImageWidth = minImageWidth;
+            this.minImageHeight = minImageHeight;
+            this.maxTexturePixels = maxTexturePixels;
+            this.frameBudgetNanos = frameBudgetNanos;
+            this.nanosPerPixel = nanosPerPixel;
+            this.frameIntervalNanos = frameIntervalNanos;
+        }
+
+        long getMaxImagePixels() {
+            return (long) (frameBudgetNanos / nanosPerPixel);
+        }
+
+        boolean isLargeEnough(Option option) {
+            int longSide = Math.max(option.imageWidth, option.imageHeight);
+            int shortSide = Math.min(option.imageWidth, option.imageHeight);
+            return longSide >= Math.max(minImageWidth, minImageHeight)
+                    && shortSide >= Math.min(minImageWidth, minImageHeight);
+        }
+    }
+
+    /** The chosen config and reader depth. */
+    public static final class Selection {
+        private final Option option;
+        private final int readerDepth;
+        private final long estimatedNanosPerFrame;
+        private final boolean withinBudget;
+        private final int optionCount;
+
+        Selection(Option option, int readerDepth, long estimatedNanosPerFrame,
+                boolean withinBudget, int optionCount) {
+            this.option = option;
+            this.readerDepth = readerDepth;
+            this.estimatedNanosPerFrame = estimatedNanosPerFrame;
+            this.withinBudget = withinBudget;
+            this.optionCount = optionCount;
+        }
+
+        public Option getOption() {
+            return option;
+        }
+
+        public int getTextureWidth() {
+            return option.textureWidth;
+        }
+
+        public int getTextureHeight() {
+            return option.textureHeight;
+        }
+
+        public int getImageWidth() {
+            return option.imageWidth;
+        }
+
+        public int getImageHeight() {
+            return option.imageHeight;
+        }
+
+        /** {@code maxImages} for the CPU image reader. */
+        public int getReaderDepth() {
+            return readerDepth;
+        }
+
+        public long getEstimatedNanosPerFrame() {
+            return estimatedNanosPerFrame;
+        }
+
+        /** False if even the smallest usable image is estimated to take longer than the budget. */
+        public boolean isWithinBudget() {
+            return withinBudget;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    Locale.US,
+                    "config %d of %d: texture %dx%d, CPU image %dx%d, reader depth %d,"
+                            + " est. %.1f ms/frame%s",
+                    option.index,
+                    optionCount,
+                    option.textureWidth,
+                    option.textureHeight,
+                    option.imageWidth,
+                    option.imageHeight,
+                    readerDepth,
+                    estimatedNanosPerFrame / 1e6,
+                    withinBudget ? "" : " (over budget)");
+        }
+    }
+
+    private CameraConfigSelector() {}
+
+    /** Picks from {@code options}, which must not be empty. */
+    public static Selection select(List<Option> options, Budget budget) {
+        if (options.isEmpty()) {
+            throw new IllegalArgumentException("No camera configs to choose from");
+        }
+        long maxImagePixels = budget.getMaxImagePixels();
+
+        // Largest usable CPU image within budget; if none fits, the smallest usable one. If none is
+        // large enough, the largest there is.
+        Option image = null;
+        for (Option option : options) {
+            if (image == null || isBetterImage(option, image, budget, maxImagePixels)) {
+                image = option;
+            }
+        }
+        boolean withinBudget = image.getImagePixels() <= maxImagePixels;
+
+        // Largest texture up to the limit among configs with that image size, else the smallest.
+        Option best = null;
+        for (Option option : options) {
+            if (option.imageWidth != image.imageWidth || option.imageHeight != image.imageHeight) {
+                continue;
+            }
+            if (best == null || isBetterTexture(option, best, budget.maxTexturePixels)) {
+                best = option;
+            }
+        }
+
+        long costNanos = (long) (best.getImagePixels() * budget.nanosPerPixel);
+        return new Selection(
+                best, readerDepth(costNanos, budget.frameIntervalNanos), costNanos, withinBudget,
+                options.size());
+    }
+
+    /**
+     * Enough images for the ones the camera delivers while one is processed, plus the one being
+     * written.
+     */
+    static int readerDepth(long costNanos, long frameIntervalNanos) {
+        if (frameIntervalNanos <= 0) {
+            return MIN_READER_DEPTH;
+        }
+        long framesPerProcess = (costNanos + frameIntervalNanos - 1) / frameIntervalNanos;
+        long depth = 1 + Math.max(1, framesPerProcess);
+        return (int) Math.min(MAX_READER_DEPTH, Math.max(MIN_READER_DEPTH, depth));
+    }
+
+    private static boolean isBetterImage(
+            Option candidate, Option current, Budget budget, long maxPixels) {
+        boolean candidateUsable = budget.isLargeEnough(candidate);
+        boolean currentUsable = budget.isLargeEnough(current);
+        if (candidateUsable != currentUsable) {
+            return candidateUsable;
+        }
+        if (!candidateUsable) {
+            return candidate.getImagePixels() > current.getImagePixels();
+        }
+        boolean candidateFits = candidate.getImagePixels() <= maxPixels;
+        boolean currentFits = current.getImagePixels() <= maxPixels;
+        if (candidateFits != currentFits) {
+            return candidateFits;
+        }
+        if (!candidateFits) {
+            return candidate.getImagePixels() < current.getImagePixels();
+        }
+        return candidate.getImagePixels() > current.getImagePixels();
+    }
+
+    private static boolean isBetterTexture(Option candidate, Option current, long maxPixels) {
+        boolean candidateFits = candidate.getTexturePixels() <= maxPixels;
+        boolean currentFits = current.getTexturePixels() <= maxPixels;
+        if (candidateFits != currentFits) {
+            return candidateFits;
+        }
+        if (!candidateFits) {
+            return candidate.getTexturePixels() < current.getTexturePixels();
+        }
+        return candidate.getTexturePixels() > current.getTexturePixels();
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.util.Size;
+import com.google.ar.core.CameraConfig;
+import com.google.ar.core.Session;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/** Applies {@link CameraConfigSelector} to ARCore {@link Session}s. */
+public final class CameraConfigs {
+
+    private CameraConfigs() {}
+
+    /**
+     * Switches {@code session} to the supported config that best fits {@code budget}. The session
+     * must not be resumed yet.
+     */
+    public static CameraConfigSelector.Selection apply(
+            Session session, CameraConfigSelector.Budget budget) {
+        List<CameraConfig> configs = session.getSupportedCameraConfigs();
+        List<CameraConfigSelector.Option> options = new ArrayList<>(configs.size());
+        for (int i = 0; i < configs.size(); i++) {
+            options.add(toOption(i, configs.get(i)));
+        }
+        CameraConfigSelector.Selection selection = CameraConfigSelector.select(options, budget);
+        session.setCameraConfig(configs.get(selection.getOption().getIndex()));
+        return selection;
+    }
+
+    /** Reader depth and cost for the config {@code session} already uses. */
+    public static CameraConfigSelector.Selection forCurrentConfig(
+            Session session, CameraConfigSelector.Budget budget) {
+        return CameraConfigSelector.select(
+                Collections.singletonList(toOption(0, session.getCameraConfig())), budget);
+    }
+
+    private static CameraConfigSelector.Option toOption(int index, CameraConfig config) {
+        Size texture = config.getTextureSize();
+        Size image = config.getImageSize();
+        return new CameraConfigSelector.Option(
+                index,
+                texture.getWidth(),
+                texture.getHeight(),
+                image.getWidth(),
+                image.getHeight());
+    }
+}
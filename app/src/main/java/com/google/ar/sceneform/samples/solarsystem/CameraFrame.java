@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A YUV_420_888 frame handed to {@link FrameProcessor}s.
+ *
+ * <p>The planes are read-only views of the camera's own buffers, not copies, so they are only valid
+ * during {@link FrameProcessor#process}; the image is closed right after. Processors that need data
+ * later must copy what they need.
+ *
+ * <p>Plain Java, so recorded or synthetic frames can be processed on the JVM.
+ */
+public class CameraFrame {
+
+    public static final int PLANE_Y = 0;
+    public static final int PLANE_U = 1;
+    public static final int PLANE_V = 2;
+
+    /** One image plane, laid out like {@code android.media.Image.Plane}. */
+    public static class Plane {
+        private final ByteBuffer buffer;
+        private final int rowStride;
+        private final int pixelStride;
+
+        public Plane(ByteBuffer buffer, int rowStride, int pixelStride) {
+            this.buffer = buffer;
+            this.rowStride = rowStride;
+            this.pixelStride = pixelStride;
+        }
+
+        /** Read-only; use absolute {@code get(index)} so other processors see the same position. */
+        public ByteBuffer getBuffer() {
+            return buffer;
+        }
+
+        public int getRowStride() {
+            return rowStride;
+        }
+
+        public int getPixelStride() {
+            return pixelStride;
+        }
+
+        /** The sample at column {@code x}, row {@code y} of this plane. */
+        public int get(int x, int y) {
+            return buffer.get(y * rowStride + x * pixelStride) & 0xff;
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final long timestampNanos;
+    private final Plane[] planes;
+    private final float[] pose;
+
+    /**
+     * @param pose camera pose as {@code tx, ty, tz, qx, qy, qz, qw} in world space, or null if the
+     *     camera wasn't tracking
+     */
+    public CameraFrame(int width, int height, long timestampNanos, Plane[] planes, float[] pose) {
+        this.width = width;
+        this.height = height;
+        this.timestampNanos = timestampNanos;
+        this.planes = planes;
+        this.pose = pose;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /** {@link #PLANE_Y}, {@link #PLANE_U} or {@link #PLANE_V}. U and V are half size each way. */
+    public Plane getPlane(int index) {
+        return planes[index];
+    }
+
+    public boolean hasPose() {
+        return pose != null;
+    }
+
+    /** {@code tx, ty, tz, qx, qy, qz, qw}, or null. Don't modify. */
+    public float[] getPose() {
+        return pose;
+    }
+}
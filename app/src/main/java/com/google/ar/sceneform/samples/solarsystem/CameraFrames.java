@@ -0,0 +1,56 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.media.Image;
+import android.support.annotation.Nullable;
+import com.google.ar.core.Pose;
+
+/** Wraps camera {@link Image}s as {@link CameraFrame}s without copying their planes. */
+public final class CameraFrames {
+
+    private CameraFrames() {}
+
+    /** The frame is only valid until {@code image} is closed. */
+    public static CameraFrame fromImage(Image image, @Nullable Pose cameraPose) {
+        Image.Plane[] imagePlanes = image.getPlanes();
+        CameraFrame.Plane[] planes = new CameraFrame.Plane[imagePlanes.length];
+        for (int i = 0; i < imagePlanes.length; i++) {
+            Image.Plane plane = imagePlanes[i];
+            planes[i] =
+                    new CameraFrame.Plane(
+                            plane.getBuffer().asReadOnlyBuffer(),
+                            plane.getRowStride(),
+                            plane.getPixelStride());
+        }
+        return new CameraFrame(
+                image.getWidth(),
+                image.getHeight(),
+                image.getTimestamp(),
+                planes,
+                toArray(cameraPose));
+    }
+
+    @Nullable
+    private static float[] toArray(@Nullable Pose pose) {
+        if (pose == null) {
+            return null;
+        }
+        return new float[] {
+            pose.tx(), pose.ty(), pose.tz(), pose.qx(), pose.qy(), pose.qz(), pose.qw()
+        };
+    }
+}
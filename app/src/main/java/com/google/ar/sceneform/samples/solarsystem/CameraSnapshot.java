@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.graphics.Bitmap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Takes a still of the room from the CPU camera images, for saving or sharing.
+ *
+ * <p>Idle until {@link #request} is called; the next frame is then converted with a
+ * {@link YuvToRgbConverter} and handed over as a {@link Bitmap}. The bitmap is in sensor
+ * orientation and holds the camera image only, not the rendered models; the activity saves a
+ * {@code PixelCopy} of the scene view instead and falls back to this when the copy fails.
+ */
+public class CameraSnapshot implements FrameProcessor {
+
+    // Bands of 32 output rows on the common fork-join pool.
+    private static final int BAND_ROWS = 32;
+
+    private final YuvToRgbConverter converter =
+            new YuvToRgbConverter(ForkJoinPool.commonPool(), BAND_ROWS);
+    private final int scaleShift;
+    private final AtomicReference<Consumer<Bitmap>> pending = new AtomicReference<>();
+
+    /** @param scaleShift snapshots are {@code 2^scaleShift} times smaller than the camera image */
+    public CameraSnapshot(int scaleShift) {
+        this.scaleShift = scaleShift;
+    }
+
+    /**
+     * Delivers the next frame to {@code callback} on the camera background thread. Replaces a
+     * request that hasn't been served yet. Any thread.
+     */
+    public void request(Consumer<Bitmap> callback) {
+        pending.set(callback);
+    }
+
+    @Override
+    public void process(CameraFrame frame) {
+        Consumer<Bitmap> callback = pending.getAndSet(null);
+        if (callback == null) {
+            return;
+        }
+        int[] pixels = converter.convert(frame, scaleShift);
+        int width = converter.getOutputWidth();
+        int height = converter.getOutputHeight();
+        callback.accept(
+                Bitmap.createBitmap(pixels, 0, width, width, height, Bitmap.Config.ARGB_8888));
+    }
+}
@@ -19,4 +19,56 @@ public class Data {
     * 핸들러 이름
     * */
     public static final String NAME_BACKGROUND_HANDLER = "sharedCameraBackground";
+
+    /**
+     * 에셋 로딩 측정값 파일
+     * */
+    public static final String FILE_ASSET_LOAD_METRICS = "asset_load_metrics.csv";
+
+    /**
+     * 에셋 로딩 벤치마크 (디버그 빌드에서만)
+     * */
+    public static final boolean RUN_ASSET_LOAD_BENCHMARK = false;
+    public static final String BENCHMARK_ASSET = "Jupiter.sfb";
+    public static final int BENCHMARK_ITERATIONS = 5;
+
+    /**
+     * 카탈로그에서 고른 상품 모델
+     * */
+    public static final String EXTRA_PRODUCT_ASSET = "product_asset";
+
+    /**
+     * 카탈로그 프리페치 용량 (앱 세션당)
+     * */
+    public static final long PREFETCH_SESSION_BYTE_BUDGET = 32 * 1024 * 1024;
+
+    /**
+     * 상품 이름/가격 일괄 조회 API (ProductMetadataClient 참고)
+     * 비어 있으면 조회하지 않음. -PproductMetadataEndpoint=... 로 설정
+     * */
+    public static final String PRODUCT_METADATA_ENDPOINT = BuildConfig.PRODUCT_METADATA_ENDPOINT;
+
+    /**
+     * 방 사진 저장 (카메라 이미지 크기의 1/2^n)
+     * */
+    public static final int SNAPSHOT_SCALE_SHIFT = 0;
+    public static final int SNAPSHOT_JPEG_QUALITY = 90;
+    public static final String FILE_SNAPSHOT_PREFIX = "room_";
+
+    /**
+     * CPU 카메라 프레임 녹화 (디버그 빌드에서만, FrameReplayer로 재생)
+     * */
+    public static final boolean RECORD_CAMERA_FRAMES = false;
+    public static final String FILE_CAMERA_RECORDING = "camera_frames.bin";
+    public static final int RECORDING_SLOTS = 150;
+    public static final float RECORDING_RATE = 5f;
+
+    /**
+     * 카메라 설정 선택 (CameraConfigSelector 참고)
+     * 분석에 필요한 최소 CPU 이미지 크기와 픽셀당 예상 처리 시간
+     * */
+    public static final int CPU_IMAGE_MIN_WIDTH = 640;
+    public static final int CPU_IMAGE_MIN_HEIGHT = 480;
+    public static final double CPU_NANOS_PER_PIXEL = 10;
+    public static final int CAMERA_FPS = 30;
 }
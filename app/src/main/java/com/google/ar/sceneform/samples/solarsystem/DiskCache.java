@@ -0,0 +1,276 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+
+/**
+ * Content-addressed file cache for downloaded images and models.
+ *
+ * <p>Bodies are stored once under the SHA-256 of their content, so the same file reached through
+ * different URLs takes space only once. A small metadata file per key maps it to a body and the
+ * ETag it was served with. Every write goes to a temp file first and is renamed into place, so a
+ * crash never leaves a partial body or metadata behind. Bodies are evicted least recently used
+ * first once their total size exceeds the limit; the body a {@link #put} just stored is never
+ * evicted by that put, so the entry it returns is still there.
+ *
+ * <p>Plain Java and thread-safe.
+ */
+public class DiskCache {
+
+    private static final String BLOBS = "blobs";
+    private static final String KEYS = "keys";
+    private static final String TMP = "tmp";
+
+    private static final String PROPERTY_HASH = "hash";
+    private static final String PROPERTY_ETAG = "etag";
+
+    /** A cached body and what it was served with. */
+    public static class Entry {
+        public final File file;
+        public final String contentHash;
+        public final String etag;
+
+        Entry(File file, String contentHash, String etag) {
+            this.file = file;
+            this.contentHash = contentHash;
+            this.etag = etag;
+        }
+    }
+
+    private final File blobDir;
+    private final File keyDir;
+    private final File tmpDir;
+    private final long maxBytes;
+    private long tmpCounter;
+
+    public DiskCache(File directory, long maxBytes) {
+        this.blobDir = new File(directory, BLOBS);
+        this.keyDir = new File(directory, KEYS);
+        this.tmpDir = new File(directory, TMP);
+        this.maxBytes = maxBytes;
+        blobDir.mkdirs();
+        keyDir.mkdirs();
+        tmpDir.mkdirs();
+        // Leftovers of interrupted writes.
+        deleteFiles(tmpDir.listFiles());
+    }
+
+    /** Returns the entry for {@code key}, or null if it isn't cached or was evicted. */
+    public synchronized Entry get(String key) {
+        Properties properties = readKey(key);
+        if (properties == null) {
+            return null;
+        }
+        String hash = properties.getProperty(PROPERTY_HASH);
+        File blob = new File(blobDir, hash);
+        if (!blob.exists()) {
+            return null;
+        }
+        return new Entry(blob, hash, properties.getProperty(PROPERTY_ETAG));
+    }
+
+    /** Marks the entry for {@code key} as recently used. */
+    public synchronized void touch(String key) {
+        Entry entry = get(key);
+        if (entry != null) {
+            entry.file.setLastModified(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Streams {@code body} into the cache under {@code key}, then evicts other bodies down to the
+     * limit.
+     */
+    public Entry put(String key, InputStream body, String etag) throws IOException {
+        return put(key, body, etag, -1);
+    }
+
+    /**
+     * Like {@link #put(String, InputStream, String)}, but stores nothing unless the body is exactly
+     * {@code expectedBytes} long, e.g. a download that ended early. -1 accepts any length.
+     */
+    public Entry put(String key, InputStream body, String etag, long expectedBytes)
+            throws IOException {
+        File tmp = newTempFile();
+        MessageDigest digest = sha256();
+        long written = 0;
+        try (InputStream in = new DigestInputStream(body, digest);
+                OutputStream out = new FileOutputStream(tmp)) {
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // The download was cancelled.
+                    throw new InterruptedIOException("Interrupted while caching " + key);
+                }
+                out.write(buffer, 0, read);
+                written += read;
+            }
+            if (expectedBytes >= 0 && written != expectedBytes) {
+                throw new IOException(
+                        "Expected " + expectedBytes + " bytes for " + key + ", got " + written);
+            }
+        } catch (IOException e) {
+            tmp.delete();
+            throw e;
+        }
+        String hash = toHex(digest.digest());
+
+        synchronized (this) {
+            File blob = new File(blobDir, hash);
+            if (blob.exists()) {
+                // Same content is already stored.
+                tmp.delete();
+                blob.setLastModified(System.currentTimeMillis());
+            } else if (!tmp.renameTo(blob)) {
+                tmp.delete();
+                throw new IOException("Unable to move " + tmp + " to " + blob);
+            }
+
+            Properties properties = new Properties();
+            properties.setProperty(PROPERTY_HASH, hash);
+            if (etag != null) {
+                properties.setProperty(PROPERTY_ETAG, etag);
+            }
+            writeKey(key, properties);
+            trimToSize(maxBytes, hash);
+            return new Entry(blob, hash, etag);
+        }
+    }
+
+    public synchronized void remove(String key) {
+        new File(keyDir, keyFileName(key)).delete();
+    }
+
+    /** Total size of the stored bodies. */
+    public synchronized long size() {
+        long size = 0;
+        File[] blobs = blobDir.listFiles();
+        if (blobs != null) {
+            for (File blob : blobs) {
+                size += blob.length();
+            }
+        }
+        return size;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /** Evicts least recently used bodies until at most {@code bytes} remain. */
+    public synchronized void trimToSize(long bytes) {
+        trimToSize(bytes, null);
+    }
+
+    /** Like {@link #trimToSize(long)}, but never evicts the body stored under {@code keepHash}. */
+    private void trimToSize(long bytes, String keepHash) {
+        File[] blobs = blobDir.listFiles();
+        if (blobs == null) {
+            return;
+        }
+        long size = 0;
+        for (File blob : blobs) {
+            size += blob.length();
+        }
+        if (size <= bytes) {
+            return;
+        }
+
+        // Keys pointing at a deleted body read as misses, so only bodies need removing.
+        Arrays.sort(blobs, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < blobs.length && size > bytes; i++) {
+            if (blobs[i].getName().equals(keepHash)) {
+                continue;
+            }
+            size -= blobs[i].length();
+            blobs[i].delete();
+        }
+    }
+
+    private Properties readKey(String key) {
+        File file = new File(keyDir, keyFileName(key));
+        if (!file.exists()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            return null;
+        }
+        return properties.getProperty(PROPERTY_HASH) == null ? null : properties;
+    }
+
+    private void writeKey(String key, Properties properties) throws IOException {
+        File tmp = newTempFile();
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            properties.store(out, key);
+        }
+        File file = new File(keyDir, keyFileName(key));
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Unable to move " + tmp + " to " + file);
+        }
+    }
+
+    private synchronized File newTempFile() {
+        return new File(tmpDir, System.nanoTime() + "-" + (tmpCounter++) + ".tmp");
+    }
+
+    private static String keyFileName(String key) {
+        return toHex(sha256().digest(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xf, 16));
+            builder.append(Character.forDigit(b & 0xf, 16));
+        }
+        return builder.toString();
+    }
+
+    private static void deleteFiles(File[] files) {
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+/**
+ * Estimates the floor colour from the bottom centre of the camera image, where the floor usually
+ * is when placing furniture, for colour-matched recommendations.
+ *
+ * <p>Samples a sparse grid rather than every pixel and keeps a running average across frames.
+ */
+public class FloorColorSampler implements FrameProcessor {
+
+    private static final float TARGET_RATE = 2f;
+    // Region sampled, as fractions of the image.
+    private static final float REGION_LEFT = 0.3f;
+    private static final float REGION_RIGHT = 0.7f;
+    private static final float REGION_TOP = 0.7f;
+    private static final float REGION_BOTTOM = 0.95f;
+    private static final int SAMPLE_STEP = 8;
+    // Weight of the newest frame in the running average.
+    private static final float SMOOTHING = 0.3f;
+
+    private float y = -1;
+    private float u;
+    private float v;
+
+    private volatile int averageColor;
+
+    @Override
+    public float getTargetRate() {
+        return TARGET_RATE;
+    }
+
+    @Override
+    public boolean pausesWhenStill() {
+        return true;
+    }
+
+    @Override
+    public void process(CameraFrame frame) {
+        CameraFrame.Plane yPlane = frame.getPlane(CameraFrame.PLANE_Y);
+        CameraFrame.Plane uPlane = frame.getPlane(CameraFrame.PLANE_U);
+        CameraFrame.Plane vPlane = frame.getPlane(CameraFrame.PLANE_V);
+
+        int left = (int) (frame.getWidth() * REGION_LEFT) & ~1;
+        int right = (int) (frame.getWidth() * REGION_RIGHT) & ~1;
+        int top = (int) (frame.getHeight() * REGION_TOP) & ~1;
+        int bottom = (int) (frame.getHeight() * REGION_BOTTOM) & ~1;
+
+        long sumY = 0;
+        long sumU = 0;
+        long sumV = 0;
+        int count = 0;
+        for (int row = top; row < bottom; row += SAMPLE_STEP) {
+            for (int col = left; col < right; col += SAMPLE_STEP) {
+                sumY += yPlane.get(col, row);
+                sumU += uPlane.get(col / 2, row / 2);
+                sumV += vPlane.get(col / 2, row / 2);
+                count++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        float frameY = (float) sumY / count;
+        float frameU = (float) sumU / count;
+        float frameV = (float) sumV / count;
+        if (y < 0) {
+            y = frameY;
+            u = frameU;
+            v = frameV;
+        } else {
+            y += (frameY - y) * SMOOTHING;
+            u += (frameU - u) * SMOOTHING;
+            v += (frameV - v) * SMOOTHING;
+        }
+        averageColor = yuvToArgb(y, u, v);
+    }
+
+    /** The smoothed floor colour as ARGB, or 0 before the first frame. Any thread. */
+    public int getAverageColor() {
+        return averageColor;
+    }
+
+    /** BT.601 full-range conversion, as used by the camera's YUV_420_888 output. */
+    static int yuvToArgb(float y, float u, float v) {
+        float cb = u - 128;
+        float cr = v - 128;
+        int r = clamp(Math.round(y + 1.402f * cr));
+        int g = clamp(Math.round(y - 0.344136f * cb - 0.714136f * cr));
+        int b = clamp(Math.round(y + 1.772f * cb));
+        return 0xff000000 | (r << 16) | (g << 8) | b;
+    }
+
+    private static int clamp(int value) {
+        return value < 0 ? 0 : Math.min(value, 255);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+/**
+ * Decides which acquired CPU images are processed and which are closed right away.
+ *
+ * <p>Called only from the camera background thread.
+ */
+public abstract class FrameDropPolicy {
+
+    /** Whether to process the frame acquired at {@code timestampNanos}. */
+    public abstract boolean shouldProcess(long timestampNanos);
+
+    /** Called after a processed frame was closed, with its acquire-to-close time. */
+    public void onProcessed(long latencyNanos) {}
+
+    /**
+     * Processes every image {@code acquireLatestImage} returns. Anything older than the newest image
+     * has already been dropped by the reader.
+     */
+    public static FrameDropPolicy latestWins() {
+        return new FrameDropPolicy() {
+            @Override
+            public boolean shouldProcess(long timestampNanos) {
+                return true;
+            }
+        };
+    }
+
+    /** Processes one acquired image in {@code n}. */
+    public static FrameDropPolicy everyNth(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("n must be at least 1");
+        }
+        return new FrameDropPolicy() {
+            private int count;
+
+            @Override
+            public boolean shouldProcess(long timestampNanos) {
+                return count++ % n == 0;
+            }
+        };
+    }
+
+    /**
+     * Keeps processing within {@code budgetNanos} per frame on average. Time spent over budget is
+     * paid back by dropping frames, one budget's worth per dropped frame.
+     */
+    public static FrameDropPolicy timeBudget(long budgetNanos) {
+        return new FrameDropPolicy() {
+            private long debtNanos;
+
+            @Override
+            public boolean shouldProcess(long timestampNanos) {
+                if (debtNanos > 0) {
+                    // Unused budget isn't saved up for later.
+                    debtNanos = Math.max(0, debtNanos - budgetNanos);
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public void onProcessed(long latencyNanos) {
+                debtNanos += Math.max(0, latencyNanos - budgetNanos);
+            }
+        };
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+/** Analyses CPU camera frames as part of a {@link FrameProcessorChain}. */
+public interface FrameProcessor {
+
+    /**
+     * Called on the camera background thread. The frame's buffers are only valid until this
+     * returns.
+     */
+    void process(CameraFrame frame);
+
+    /** Frames per second this processor wants, or 0 for every frame. */
+    default float getTargetRate() {
+        return 0f;
+    }
+
+    /**
+     * Whether this processor can skip frames while the chain's still signal is set, because its
+     * result can't change until the view does.
+     */
+    default boolean pausesWhenStill() {
+        return false;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs each registered {@link FrameProcessor} on the frames it asked for.
+ *
+ * <p>A processor with a target rate only sees a frame once {@code 1 / rate} seconds of camera time
+ * have passed since the last frame it processed, so slow analyses don't run at the camera rate.
+ * Processors run one after the other on the calling thread; the caller closes the image once
+ * {@link #process} returns.
+ *
+ * <p>While the {@linkplain #setStillSignal still signal} reports a still view, processors that
+ * {@linkplain FrameProcessor#pausesWhenStill pause when still} are skipped; they run again on the
+ * first frame after the view moves.
+ *
+ * <p>Plain Java. Processors may be added or removed only while no frame is being processed.
+ */
+public class FrameProcessorChain {
+
+    private static class Entry {
+        final FrameProcessor processor;
+        final long intervalNanos;
+        long lastTimestampNanos = Long.MIN_VALUE;
+
+        Entry(FrameProcessor processor) {
+            this.processor = processor;
+            float rate = processor.getTargetRate();
+            this.intervalNanos = rate > 0 ? (long) (1e9 / rate) : 0;
+        }
+
+        boolean isDue(long timestampNanos) {
+            return lastTimestampNanos == Long.MIN_VALUE
+                    || timestampNanos - lastTimestampNanos >= intervalNanos;
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private BooleanSupplier stillSignal;
+
+    public void add(FrameProcessor processor) {
+        entries.add(new Entry(processor));
+    }
+
+    public void remove(FrameProcessor processor) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            if (entries.get(i).processor == processor) {
+                entries.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Sets what tells the chain the view is still, e.g. {@link MotionDetector#isStill}. Read for
+     * each processor, so a detector earlier in the chain already counts for the current frame.
+     */
+    public void setStillSignal(BooleanSupplier stillSignal) {
+        this.stillSignal = stillSignal;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /** Runs the processors that are due. Returns how many ran. */
+    public int process(CameraFrame frame) {
+        int ran = 0;
+        long timestamp = frame.getTimestampNanos();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.processor.pausesWhenStill()
+                    && stillSignal != null
+                    && stillSignal.getAsBoolean()) {
+                continue;
+            }
+            if (entry.isDue(timestamp)) {
+                entry.lastTimestampNanos = timestamp;
+                entry.processor.process(frame);
+                ran++;
+            }
+        }
+        return ran;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Records CPU camera frames and poses to a memory-mapped ring file, for replay off the device with
+ * {@link FrameReplayer}.
+ *
+ * <p>The file holds a fixed number of slots; once they are all used the oldest frame is
+ * overwritten, so a long session keeps its last {@code slotCount} frames. Planes are stored as the
+ * camera laid them out, strides and padding included, so replayed frames read exactly like live
+ * ones. Slots are sized from the first frame; later frames with larger planes are rejected.
+ *
+ * <p>The file is created and mapped on the first frame. If that or a write fails, recording stops
+ * and the error is kept in {@link #getError}. Plain Java.
+ */
+public class FrameRecorder implements FrameProcessor, Closeable {
+
+    static final int MAGIC = 0x43465231; // "CFR1"
+    static final int VERSION = 1;
+
+    // File header.
+    static final int HEADER_BYTES = 64;
+    static final int HEADER_SLOT_COUNT = 8;
+    static final int HEADER_SLOT_BYTES = 12;
+    static final int HEADER_WIDTH = 16;
+    static final int HEADER_HEIGHT = 20;
+    static final int HEADER_FRAME_COUNT = 24;
+    static final int HEADER_PLANE_CAPACITY = 32; // 3 ints
+
+    // Slot header. The sequence number is written last, so a torn slot reads as empty.
+    static final int SLOT_SEQUENCE = 0; // frame number + 1, 0 when empty
+    static final int SLOT_TIMESTAMP = 8;
+    static final int SLOT_HAS_POSE = 16;
+    static final int SLOT_POSE = 20; // 7 floats
+    static final int SLOT_PLANES = 48; // rowStride, pixelStride, length per plane
+    static final int SLOT_HEADER_BYTES = 88;
+
+    static final int PLANE_COUNT = 3;
+    static final int POSE_FLOATS = 7;
+
+    private final File file;
+    private final int slotCount;
+    private final float targetRate;
+
+    private RandomAccessFile randomAccessFile;
+    private MappedByteBuffer mapped;
+    private int slotBytes;
+    private int width;
+    private int height;
+    private final int[] planeCapacity = new int[PLANE_COUNT];
+    private long frameCount;
+    private long rejectedCount;
+    private IOException error;
+    private boolean closed;
+
+    /**
+     * @param slotCount frames kept in the ring
+     * @param targetRate frames per second to record, or 0 for every frame
+     */
+    public FrameRecorder(File file, int slotCount, float targetRate) {
+        if (slotCount < 1) {
+            throw new IllegalArgumentException("slotCount must be at least 1");
+        }
+        this.file = file;
+        this.slotCount = slotCount;
+        this.targetRate = targetRate;
+    }
+
+    @Override
+    public float getTargetRate() {
+        return targetRate;
+    }
+
+    @Override
+    public synchronized void process(CameraFrame frame) {
+        if (closed || error != null) {
+            return;
+        }
+        try {
+            if (mapped == null) {
+                open(frame);
+            }
+            if (!fits(frame)) {
+                rejectedCount++;
+                return;
+            }
+            write(frame);
+        } catch (IOException e) {
+            error = e;
+            closeQuietly();
+        }
+    }
+
+    /** Frames written so far, including ones since overwritten. */
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    /** Frames not recorded because their size didn't match the first frame's. */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /** Why recording stopped, or null. */
+    public synchronized IOException getError() {
+        return error;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /** Flushes the mapping to the file and stops recording. */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (mapped != null) {
+            mapped.force();
+        }
+        if (randomAccessFile != null) {
+            randomAccessFile.close();
+        }
+        mapped = null;
+    }
+
+    private void open(CameraFrame frame) throws IOException {
+        width = frame.getWidth();
+        height = frame.getHeight();
+        int dataBytes = 0;
+        for (int i = 0; i < PLANE_COUNT; i++) {
+            planeCapacity[i] = frame.getPlane(i).getBuffer().capacity();
+            dataBytes += planeCapacity[i];
+        }
+        slotBytes = SLOT_HEADER_BYTES + dataBytes;
+        long fileBytes = HEADER_BYTES + (long) slotBytes * slotCount;
+        if (fileBytes > Integer.MAX_VALUE) {
+            throw new IOException("Recording of " + fileBytes + " bytes is too large to map");
+        }
+
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.setLength(fileBytes);
+        mapped = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileBytes);
+        mapped.putInt(0, MAGIC);
+        mapped.putInt(4, VERSION);
+        mapped.putInt(HEADER_SLOT_COUNT, slotCount);
+        mapped.putInt(HEADER_SLOT_BYTES, slotBytes);
+        mapped.putInt(HEADER_WIDTH, width);
+        mapped.putInt(HEADER_HEIGHT, height);
+        mapped.putLong(HEADER_FRAME_COUNT, 0);
+        for (int i = 0; i < PLANE_COUNT; i++) {
+            mapped.putInt(HEADER_PLANE_CAPACITY + i * 4, planeCapacity[i]);
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            mapped.putLong(HEADER_BYTES + slot * slotBytes + SLOT_SEQUENCE, 0);
+        }
+    }
+
+    private boolean fits(CameraFrame frame) {
+        if (frame.getWidth() != width || frame.getHeight() != height) {
+            return false;
+        }
+        for (int i = 0; i < PLANE_COUNT; i++) {
+            if (frame.getPlane(i).getBuffer().capacity() > planeCapacity[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void write(CameraFrame frame) {
+        int slotOffset = HEADER_BYTES + (int) (frameCount % slotCount) * slotBytes;
+        mapped.putLong(slotOffset + SLOT_SEQUENCE, 0);
+        mapped.putLong(slotOffset + SLOT_TIMESTAMP, frame.getTimestampNanos());
+        float[] pose = frame.getPose();
+        mapped.putInt(slotOffset + SLOT_HAS_POSE, pose != null ? 1 : 0);
+        for (int i = 0; i < POSE_FLOATS; i++) {
+            mapped.putFloat(slotOffset + SLOT_POSE + i * 4, pose != null ? pose[i] : 0f);
+        }
+
+        int dataOffset = slotOffset + SLOT_HEADER_BYTES;
+        for (int i = 0; i < PLANE_COUNT; i++) {
+            CameraFrame.Plane plane = frame.getPlane(i);
+            // A duplicate, so the shared buffer's position is left alone for other processors.
+            ByteBuffer source = plane.getBuffer().duplicate();
+            source.clear();
+            int planeOffset = slotOffset + SLOT_PLANES + i * 12;
+            mapped.putInt(planeOffset, plane.getRowStride());
+            mapped.putInt(planeOffset + 4, plane.getPixelStride());
+            mapped.putInt(planeOffset + 8, source.remaining());
+            mapped.position(dataOffset);
+            mapped.put(source);
+            dataOffset += planeCapacity[i];
+        }
+
+        frameCount++;
+        mapped.putLong(slotOffset + SLOT_SEQUENCE, frameCount);
+        mapped.putLong(HEADER_FRAME_COUNT, frameCount);
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException ignored) {
+            // Already failing; the first error is the one reported.
+        }
+    }
+}
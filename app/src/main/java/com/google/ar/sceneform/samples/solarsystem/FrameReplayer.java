@@ -0,0 +1,251 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds frames recorded by {@link FrameRecorder} through a {@link FrameProcessorChain}, so the
+ * camera analyses can be profiled and checked on a desktop JVM.
+ *
+ * <p>Frames are replayed oldest first, with the timestamps, poses and plane layouts they were
+ * recorded with. Planes are read-only views of the mapped file, like the camera's own buffers.
+ *
+ * <p>A slot only counts as a frame if its sequence number matches the frame the header says it
+ * holds. Slots the recorder was still writing when it stopped, and slots cut off by a truncated
+ * file, are skipped and counted in {@link #getTornCount}.
+ *
+ * <p>Plain Java. Run {@link #main} with a pulled recording to replay it through the app's
+ * analysers:
+ *
+ * <pre>
+ * adb pull /sdcard/Android/data/com.google.ar.sceneform.samples.solarsystem/files/camera_frames.bin
+ * java -cp classes com.google.ar.sceneform.samples.solarsystem.FrameReplayer camera_frames.bin
+ * </pre>
+ */
+public class FrameReplayer implements Closeable {
+
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer mapped;
+    private final int slotCount;
+    private final int slotBytes;
+    private final int width;
+    private final int height;
+    private final int[] planeCapacity = new int[FrameRecorder.PLANE_COUNT];
+    // Sequence numbers of the complete frames still in the ring, oldest first.
+    private final long[] sequences;
+    private final int tornCount;
+
+    public FrameReplayer(File file) throws IOException {
+        randomAccessFile = new RandomAccessFile(file, "r");
+        FileChannel channel = randomAccessFile.getChannel();
+        long frameCount;
+        try {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < FrameRecorder.HEADER_BYTES
+                    || mapped.getInt(0) != FrameRecorder.MAGIC) {
+                throw new IOException(file + " is not a frame recording");
+            }
+            if (mapped.getInt(4) != FrameRecorder.VERSION) {
+                throw new IOException("Unsupported recording version " + mapped.getInt(4));
+            }
+            slotCount = mapped.getInt(FrameRecorder.HEADER_SLOT_COUNT);
+            slotBytes = mapped.getInt(FrameRecorder.HEADER_SLOT_BYTES);
+            int dataBytes = 0;
+            for (int i = 0; i < FrameRecorder.PLANE_COUNT; i++) {
+                planeCapacity[i] = mapped.getInt(FrameRecorder.HEADER_PLANE_CAPACITY + i * 4);
+                dataBytes += planeCapacity[i];
+            }
+            frameCount = mapped.getLong(FrameRecorder.HEADER_FRAME_COUNT);
+            if (slotCount < 1
+                    || slotBytes != FrameRecorder.SLOT_HEADER_BYTES + dataBytes
+                    || frameCount < 0) {
+                throw new IOException(file + " has a corrupt header");
+            }
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        width = mapped.getInt(FrameRecorder.HEADER_WIDTH);
+        height = mapped.getInt(FrameRecorder.HEADER_HEIGHT);
+
+        long first = Math.max(0, frameCount - slotCount);
+        long[] complete = new long[(int) (frameCount - first)];
+        int completeCount = 0;
+        for (long sequence = first; sequence < frameCount; sequence++) {
+            if (isComplete(sequence)) {
+                complete[completeCount++] = sequence;
+            }
+        }
+        sequences = Arrays.copyOf(complete, completeCount);
+        tornCount = complete.length - completeCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /** Complete frames still in the ring, at most the slot count. */
+    public int getFrameCount() {
+        return sequences.length;
+    }
+
+    /** Slots skipped because they were half written or cut off. */
+    public int getTornCount() {
+        return tornCount;
+    }
+
+    /** The {@code index}th oldest frame still in the ring. */
+    public CameraFrame getFrame(int index) {
+        if (index < 0 || index >= getFrameCount()) {
+            throw new IndexOutOfBoundsException("Frame " + index + " of " + getFrameCount());
+        }
+        int slotOffset = (int) slotOffset(sequences[index]);
+
+        float[] pose = null;
+        if (mapped.getInt(slotOffset + FrameRecorder.SLOT_HAS_POSE) != 0) {
+            pose = new float[FrameRecorder.POSE_FLOATS];
+            for (int i = 0; i < pose.length; i++) {
+                pose[i] = mapped.getFloat(slotOffset + FrameRecorder.SLOT_POSE + i * 4);
+            }
+        }
+
+        CameraFrame.Plane[] planes = new CameraFrame.Plane[FrameRecorder.PLANE_COUNT];
+        int dataOffset = slotOffset + FrameRecorder.SLOT_HEADER_BYTES;
+        for (int i = 0; i < planes.length; i++) {
+            int planeOffset = slotOffset + FrameRecorder.SLOT_PLANES + i * 12;
+            ByteBuffer view = mapped.asReadOnlyBuffer();
+            view.position(dataOffset);
+            view.limit(dataOffset + mapped.getInt(planeOffset + 8));
+            planes[i] =
+                    new CameraFrame.Plane(
+                            view.slice(),
+                            mapped.getInt(planeOffset),
+                            mapped.getInt(planeOffset + 4));
+            dataOffset += planeCapacity[i];
+        }
+        return new CameraFrame(
+                width,
+                height,
+                mapped.getLong(slotOffset + FrameRecorder.SLOT_TIMESTAMP),
+                planes,
+                pose);
+    }
+
+    private long slotOffset(long sequence) {
+        return FrameRecorder.HEADER_BYTES + (sequence % slotCount) * slotBytes;
+    }
+
+    /** Whether frame {@code sequence}'s slot is in the file and was finished writing. */
+    private boolean isComplete(long sequence) {
+        long end = slotOffset(sequence) + slotBytes;
+        if (end > mapped.capacity()) {
+            return false;
+        }
+        int slotOffset = (int) slotOffset(sequence);
+        if (mapped.getLong(slotOffset + FrameRecorder.SLOT_SEQUENCE) != sequence + 1) {
+            return false;
+        }
+        for (int i = 0; i < FrameRecorder.PLANE_COUNT; i++) {
+            int length = mapped.getInt(slotOffset + FrameRecorder.SLOT_PLANES + i * 12 + 8);
+            if (length < 0 || length > planeCapacity[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Runs every frame through {@code chain}, oldest first.
+     *
+     * @param realTime wait between frames as long as the camera did, rather than running flat out
+     * @param stats receives each frame's processing time, or null
+     */
+    public void replay(FrameProcessorChain chain, boolean realTime, FrameStats stats)
+            throws InterruptedException {
+        long firstTimestamp = 0;
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < getFrameCount(); i++) {
+            CameraFrame frame = getFrame(i);
+            if (i == 0) {
+                firstTimestamp = frame.getTimestampNanos();
+            } else if (realTime) {
+                long dueNanos = startNanos + frame.getTimestampNanos() - firstTimestamp;
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                }
+            }
+            long processStart = System.nanoTime();
+            if (stats != null) {
+                stats.onAcquired(frame.getTimestampNanos());
+            }
+            chain.process(frame);
+            if (stats != null) {
+                stats.onProcessed(System.nanoTime() - processStart);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        randomAccessFile.close();
+    }
+
+    /** {@code FrameReplayer <recording> [--realtime]} */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: FrameReplayer <recording> [--realtime]");
+            System.exit(2);
+        }
+        boolean realTime = args.length > 1 && "--realtime".equals(args[1]);
+
+        MotionDetector motionDetector = new MotionDetector();
+        FloorColorSampler floorColorSampler = new FloorColorSampler();
+        LightingAnalyzer lightingAnalyzer =
+                new LightingAnalyzer(new TiledPlaneExecutor(ForkJoinPool.commonPool(), 64));
+        FrameProcessorChain chain = new FrameProcessorChain();
+        chain.add(motionDetector);
+        chain.add(floorColorSampler);
+        chain.add(lightingAnalyzer);
+
+        FrameStats stats = new FrameStats();
+        try (FrameReplayer replayer = new FrameReplayer(new File(args[0]))) {
+            System.out.println(
+                    "Replaying " + replayer.getFrameCount() + " frames of "
+                            + replayer.getWidth() + "x" + replayer.getHeight()
+                            + ", skipped " + replayer.getTornCount() + " torn");
+            replayer.replay(chain, realTime, stats);
+        }
+        System.out.println(stats);
+        System.out.println("Still " + motionDetector.isStill()
+                + ", floor colour " + Integer.toHexString(floorColorSampler.getAverageColor())
+                + ", mean luma " + lightingAnalyzer.getMeanLuma());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters and an acquire-to-close latency histogram for the CPU image path.
+ *
+ * <p>Written from the camera background thread, readable from any thread. Recording costs a few
+ * atomic increments and no allocation.
+ *
+ * <ul>
+ *   <li><b>skipped</b>: frames the camera produced that {@code acquireLatestImage} discarded,
+ *       inferred from gaps in the image timestamps.
+ *   <li><b>dropped</b>: frames acquired but closed unprocessed by the {@link FrameDropPolicy}.
+ *   <li><b>overruns</b>: processed frames that took longer than the camera frame interval.
+ * </ul>
+ */
+public class FrameStats {
+
+    // Bucket i counts latencies in [2^i, 2^(i+1)) microseconds; the last bucket is open-ended.
+    private static final int BUCKETS = 24;
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong overruns = new AtomicLong();
+
+    // Only touched on the camera thread.
+    private long lastTimestampNanos = -1;
+    private long frameIntervalNanos = Long.MAX_VALUE;
+
+    /** Records an acquired image by its sensor timestamp. */
+    public void onAcquired(long timestampNanos) {
+        acquired.incrementAndGet();
+        if (lastTimestampNanos >= 0) {
+            long delta = timestampNanos - lastTimestampNanos;
+            if (delta > 0) {
+                // The shortest gap seen is the camera's own frame interval.
+                frameIntervalNanos = Math.min(frameIntervalNanos, delta);
+                long missed = (delta + frameIntervalNanos / 2) / frameIntervalNanos - 1;
+                if (missed > 0) {
+                    skipped.addAndGet(missed);
+                }
+            }
+        }
+        lastTimestampNanos = timestampNanos;
+    }
+
+    /** Records an image closed without processing. */
+    public void onDropped() {
+        dropped.incrementAndGet();
+    }
+
+    /** Records a processed image and its acquire-to-close time. */
+    public void onProcessed(long latencyNanos) {
+        processed.incrementAndGet();
+        histogram.incrementAndGet(bucketOf(latencyNanos / 1000));
+        if (latencyNanos > frameIntervalNanos) {
+            overruns.incrementAndGet();
+        }
+    }
+
+    /** Forgets the previous timestamp, e.g. after the camera was reopened. */
+    public void onCameraRestarted() {
+        lastTimestampNanos = -1;
+    }
+
+    public long getAcquiredCount() {
+        return acquired.get();
+    }
+
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    public long getSkippedCount() {
+        return skipped.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getOverrunCount() {
+        return overruns.get();
+    }
+
+    /**
+     * Upper bound in microseconds of the bucket holding the {@code percentile} (0 to 100) latency,
+     * or 0 if nothing was processed.
+     */
+    public long getLatencyPercentileMicros(double percentile) {
+        long total = 0;
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return 1L << (i + 1);
+            }
+        }
+        return 1L << BUCKETS;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                Locale.US,
+                "acquired %d, processed %d, skipped %d, dropped %d, overruns %d, "
+                        + "latency p50 <%d us, p99 <%d us",
+                getAcquiredCount(),
+                getProcessedCount(),
+                getSkippedCount(),
+                getDroppedCount(),
+                getOverrunCount(),
+                getLatencyPercentileMicros(50),
+                getLatencyPercentileMicros(99));
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros <= 1) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.Nullable;
+import android.support.annotation.UiThread;
+import android.util.Log;
+import android.widget.ImageView;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Process-wide cache of decoded product images.
+ *
+ * <p>The memory tier holds decoded bitmaps and is sized by {@link Bitmap#getAllocationByteCount()}.
+ * Below it, downloaded images keep their encoded bytes in the {@link RemoteFetcher} disk cache, and
+ * drawables are read from the APK. Entries are keyed by source and target size, since the same
+ * image is decoded at different sample sizes for different views.
+ *
+ * <p>The cache listens to {@link ComponentCallbacks2} itself, so it lives as long as the process
+ * and a reopened {@link SolarActivity} reuses the bitmaps decoded last time.
+ *
+ * <p>Bitmaps that leave the memory tier go back to the {@link BitmapPool} for reuse by the next
+ * decode, but only once nobody holds them. Every bitmap a load returns comes with a reference that
+ * the load takes before it completes, so a concurrent load can't evict it into the pool first. The
+ * caller passes that reference on to a view with {@link #show}, which holds it until the view shows
+ * something else, or gives it back with {@link #release} if it never shows the bitmap. A load
+ * whose future was cancelled gives its reference back itself.
+ */
+public class ImageCache implements ComponentCallbacks2 {
+
+    private static final String TAG = ImageCache.class.getSimpleName();
+
+    private static ImageCache instance;
+
+    private final Context context;
+    private final ImageMemoryCache<Bitmap> memoryCache;
+
+    public static synchronized ImageCache getInstance(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            // An eighth of the heap, the same share RenderableCache takes for models.
+            instance = new ImageCache(appContext, (int) (Runtime.getRuntime().maxMemory() / 8));
+            appContext.registerComponentCallbacks(instance);
+        }
+        return instance;
+    }
+
+    private ImageCache(Context context, int maxBytes) {
+        this.context = context;
+        this.memoryCache =
+                new ImageMemoryCache<>(
+                        maxBytes,
+                        Bitmap::getAllocationByteCount,
+                        bitmap -> BitmapPool.getInstance().put(bitmap));
+    }
+
+    /**
+     * Returns the drawable decoded for a {@code width} x {@code height} pixel view, with a
+     * reference the caller must {@link #show} or {@link #release}.
+     */
+    @SuppressWarnings("AndroidApiChecker")
+    public CompletableFuture<Bitmap> loadResource(@DrawableRes int resId, int width, int height) {
+        String key = "res:" + resId + "@" + width + "x" + height;
+        Bitmap cached = memoryCache.acquire(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        return deliver(
+                CompletableFuture.supplyAsync(
+                        () ->
+                                put(
+                                        key,
+                                        BitmapDecoder.getInstance()
+                                                .decodeResource(
+                                                        context.getResources(),
+                                                        resId,
+                                                        width,
+                                                        height))));
+    }
+
+    /**
+     * Returns the image at {@code url} decoded for a {@code width} x {@code height} pixel view,
+     * with a reference the caller must {@link #show} or {@link #release}.
+     */
+    @SuppressWarnings("AndroidApiChecker")
+    public CompletableFuture<Bitmap> loadUrl(String url, int width, int height) {
+        String key = url + "@" + width + "x" + height;
+        Bitmap cached = memoryCache.acquire(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        BitmapDecoder decoder = BitmapDecoder.getInstance();
+        return deliver(
+                RemoteFetcher.getInstance(context)
+                        .fetch(url)
+                        .thenApply(File::getPath)
+                        .thenApply(path -> put(key, decoder.decodeFile(path, width, height))));
+    }
+
+    /** Decodes the drawable into the memory tier without keeping a reference. */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public void prefetchResource(@DrawableRes int resId, int width, int height) {
+        loadResource(resId, width, height).thenAccept(this::release);
+    }
+
+    /**
+     * Shows {@code bitmap}, which must come from a load, in {@code view}, or clears the view if
+     * null. The view takes over the load's reference. The bitmap the view showed before goes back
+     * to the pool once it is neither cached nor held anywhere else.
+     */
+    @UiThread
+    public void show(ImageView view, @Nullable Bitmap bitmap) {
+        Object previous = view.getTag(R.id.pooled_bitmap);
+        if (bitmap != null) {
+            view.setImageBitmap(bitmap);
+        } else {
+            view.setImageDrawable(null);
+        }
+        view.setTag(R.id.pooled_bitmap, bitmap);
+        if (previous instanceof Bitmap) {
+            release((Bitmap) previous);
+        }
+    }
+
+    /** Gives back the reference of a loaded bitmap that won't be shown. */
+    public void release(Bitmap bitmap) {
+        memoryCache.release(bitmap);
+    }
+
+    public int getHitCount() {
+        return memoryCache.hitCount();
+    }
+
+    public int getMissCount() {
+        return memoryCache.missCount();
+    }
+
+    public int getEvictionCount() {
+        return memoryCache.evictionCount();
+    }
+
+    public int getMemoryBytes() {
+        return memoryCache.size();
+    }
+
+    public int getMaxMemoryBytes() {
+        return memoryCache.maxSize();
+    }
+
+    public void evictAll() {
+        memoryCache.evictAll();
+    }
+
+    @Override
+    @SuppressWarnings("FutureReturnValueIgnored")
+    public void onTrimMemory(int level) {
+        ImageMemoryCache.TrimAction action = memoryCache.trimMemory(level);
+        if (action == ImageMemoryCache.TrimAction.NONE) {
+            return;
+        }
+        BitmapPool.getInstance().clear();
+        if (action == ImageMemoryCache.TrimAction.SPARES_AND_DISK) {
+            RemoteFetcher fetcher = RemoteFetcher.getInstance(context);
+            fetcher.trimDiskCache(fetcher.getDiskCache().getMaxBytes() / 2);
+        }
+        Log.d(TAG, "Trimmed to " + memoryCache.size() / 1024 + " KB at level " + level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {}
+
+    /** Completes with the loaded bitmap, or releases it if the caller cancelled meanwhile. */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    private CompletableFuture<Bitmap> deliver(CompletableFuture<Bitmap> load) {
+        CompletableFuture<Bitmap> result = new CompletableFuture<>();
+        load.whenComplete(
+                (bitmap, throwable) -> {
+                    if (throwable != null) {
+                        result.completeExceptionally(throwable);
+                    } else if (!result.complete(bitmap)) {
+                        release(bitmap);
+                    }
+                });
+        return result;
+    }
+
+    private Bitmap put(String key, Bitmap bitmap) {
+        if (bitmap == null) {
+            throw new CompletionException(new IOException("Unable to decode " + key));
+        }
+        return memoryCache.put(key, bitmap);
+    }
+}
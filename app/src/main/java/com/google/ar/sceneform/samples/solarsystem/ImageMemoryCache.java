@@ -0,0 +1,206 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.content.ComponentCallbacks2;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * The memory tier of {@link ImageCache}: a least recently used map sized in bytes that also counts
+ * who is still using each value.
+ *
+ * <p>{@link #acquire(String)} and {@link #put} hand out a value together with a reference on it,
+ * taken under the same lock that evicts. A concurrent load therefore can't evict a value and give
+ * it to the recycler between the lookup and the caller using it. Every reference must be given
+ * back with {@link #release}. An evicted value goes to the recycler once its last reference is
+ * released.
+ *
+ * <p>Plain Java and thread-safe, so it runs on the JVM with any value type.
+ */
+class ImageMemoryCache<V> {
+
+    /** What {@link ImageCache#onTrimMemory} frees besides this tier, by trim level. */
+    enum TrimAction {
+        /** Nothing. */
+        NONE,
+        /** Pooled spare bitmaps. */
+        SPARES,
+        /** Spare bitmaps and part of the disk cache. */
+        SPARES_AND_DISK
+    }
+
+    private final int maxBytes;
+    private final ToIntFunction<V> sizeOf;
+    private final Consumer<V> recycler;
+
+    // Access-ordered so iteration starts at the least recently used entry.
+    private final LinkedHashMap<String, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private int currentBytes;
+    private int hitCount;
+    private int missCount;
+    private int evictionCount;
+
+    // References per value, and which of those values have left the map.
+    private final Map<V, Integer> references = new IdentityHashMap<>();
+    private final Set<V> evictedWhileReferenced =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    ImageMemoryCache(int maxBytes, ToIntFunction<V> sizeOf, Consumer<V> recycler) {
+        this.maxBytes = maxBytes;
+        this.sizeOf = sizeOf;
+        this.recycler = recycler;
+    }
+
+    /** Returns the value for {@code key} with a reference taken on it, or null. */
+    synchronized V acquire(String key) {
+        V value = entries.get(key);
+        if (value == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        acquire(value);
+        return value;
+    }
+
+    /**
+     * Stores {@code value} and returns it with a reference taken on it, evicting least recently
+     * used values down to the limit. The value is referenced before anything is evicted, so it
+     * survives until released even if it alone is over the limit.
+     */
+    synchronized V put(String key, V value) {
+        acquire(value);
+        // Cached again, so no longer waiting for its last release.
+        evictedWhileReferenced.remove(value);
+        V previous = entries.put(key, value);
+        currentBytes += sizeOf.applyAsInt(value);
+        if (previous != null) {
+            currentBytes -= sizeOf.applyAsInt(previous);
+            if (previous != value) {
+                recycleWhenReleased(previous);
+            }
+        }
+        trimToSize(maxBytes);
+        return value;
+    }
+
+    /** Gives back a reference taken by {@link #acquire(String)} or {@link #put}. */
+    synchronized void release(V value) {
+        Integer count = references.get(value);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            references.put(value, count - 1);
+            return;
+        }
+        references.remove(value);
+        if (evictedWhileReferenced.remove(value)) {
+            recycler.accept(value);
+        }
+    }
+
+    /** Evicts least recently used values until at most {@code bytes} remain. */
+    synchronized void trimToSize(int bytes) {
+        Iterator<V> it = entries.values().iterator();
+        while (currentBytes > bytes && it.hasNext()) {
+            V eldest = it.next();
+            it.remove();
+            currentBytes -= sizeOf.applyAsInt(eldest);
+            evictionCount++;
+            recycleWhenReleased(eldest);
+        }
+    }
+
+    synchronized void evictAll() {
+        trimToSize(-1);
+    }
+
+    /** Frees this tier for a {@link ComponentCallbacks2} trim level and says what else to free. */
+    synchronized TrimAction trimMemory(int level) {
+        switch (level) {
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE:
+            case ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN:
+                // Still running, or just hidden: keep the decoded values so a return to the
+                // AR view reuses them, and drop only the spares.
+                return TrimAction.SPARES;
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW:
+            case ComponentCallbacks2.TRIM_MEMORY_BACKGROUND:
+                trimToSize(maxBytes / 2);
+                return TrimAction.SPARES;
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL:
+                evictAll();
+                return TrimAction.SPARES;
+            default:
+                if (level < ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+                    return TrimAction.NONE;
+                }
+                // Near the top of the kill list: free everything that can be rebuilt.
+                evictAll();
+                return TrimAction.SPARES_AND_DISK;
+        }
+    }
+
+    synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    /** Whether {@code value} still has references, cached or not. */
+    synchronized boolean isReferenced(V value) {
+        return references.containsKey(value);
+    }
+
+    synchronized int size() {
+        return currentBytes;
+    }
+
+    int maxSize() {
+        return maxBytes;
+    }
+
+    synchronized int hitCount() {
+        return hitCount;
+    }
+
+    synchronized int missCount() {
+        return missCount;
+    }
+
+    synchronized int evictionCount() {
+        return evictionCount;
+    }
+
+    private void acquire(V value) {
+        Integer count = references.get(value);
+        references.put(value, count == null ? 1 : count + 1);
+    }
+
+    private void recycleWhenReleased(V value) {
+        if (references.containsKey(value)) {
+            evictedWhileReferenced.add(value);
+        } else {
+            recycler.accept(value);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+/**
+ * Measures how bright the room is and how much of the image is clipped, so furniture previews and
+ * recommendations can account for dim or harshly lit rooms.
+ *
+ * <p>Reads only the Y plane: on a sparse grid by default, or every pixel when given a
+ * {@link TiledPlaneExecutor} to spread the work over several cores.
+ */
+public class LightingAnalyzer implements FrameProcessor {
+
+    private static final float TARGET_RATE = 4f;
+    private static final int SAMPLE_STEP = 16;
+    private static final int UNDEREXPOSED_BELOW = 16;
+    private static final int OVEREXPOSED_ABOVE = 240;
+
+    private final TiledPlaneExecutor tiledExecutor;
+
+    private volatile float meanLuma;
+    private volatile float underexposedFraction;
+    private volatile float overexposedFraction;
+
+    public LightingAnalyzer() {
+        this(null);
+    }
+
+    /** Analyses every pixel in row bands on {@code tiledExecutor}, if not null. */
+    public LightingAnalyzer(TiledPlaneExecutor tiledExecutor) {
+        this.tiledExecutor = tiledExecutor;
+    }
+
+    @Override
+    public float getTargetRate() {
+        return TARGET_RATE;
+    }
+
+    @Override
+    public boolean pausesWhenStill() {
+        return true;
+    }
+
+    @Override
+    public void process(CameraFrame frame) {
+        CameraFrame.Plane yPlane = frame.getPlane(CameraFrame.PLANE_Y);
+        if (tiledExecutor != null) {
+            LumaHistogram histogram =
+                    tiledExecutor.execute(
+                            yPlane, frame.getWidth(), frame.getHeight(), LumaHistogram.TASK);
+            if (histogram.getCount() > 0) {
+                meanLuma = histogram.getMean() / 255f;
+                underexposedFraction = histogram.getFraction(0, UNDEREXPOSED_BELOW - 1);
+                overexposedFraction = histogram.getFraction(OVEREXPOSED_ABOVE + 1, 255);
+            }
+            return;
+        }
+
+        long sum = 0;
+        int dark = 0;
+        int bright = 0;
+        int count = 0;
+        for (int row = 0; row < frame.getHeight(); row += SAMPLE_STEP) {
+            for (int col = 0; col < frame.getWidth(); col += SAMPLE_STEP) {
+                int luma = yPlane.get(col, row);
+                sum += luma;
+                if (luma < UNDEREXPOSED_BELOW) {
+                    dark++;
+                } else if (luma > OVEREXPOSED_ABOVE) {
+                    bright++;
+                }
+                count++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        meanLuma = (float) sum / count / 255f;
+        underexposedFraction = (float) dark / count;
+        overexposedFraction = (float) bright / count;
+    }
+
+    /** Mean brightness from 0 to 1. Any thread. */
+    public float getMeanLuma() {
+        return meanLuma;
+    }
+
+    public float getUnderexposedFraction() {
+        return underexposedFraction;
+    }
+
+    public float getOverexposedFraction() {
+        return overexposedFraction;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Tracks readiness of individually loading assets.
+ *
+ * <p>Instead of waiting for every renderable with {@code CompletableFuture.allOf}, callers register
+ * each stage under a key and ask whether the keys they need right now are ready. A failed asset only
+ * makes its own key unavailable. A cancelled stage, e.g. one dropped when its screen goes away, is
+ * neither ready nor failed: it is forgotten without an error.
+ *
+ * <p>Callbacks run on the thread that completes the stage, which is the UI thread for Sceneform
+ * renderables.
+ */
+public class LoadingCoordinator {
+
+    /** Notified every time an asset finishes, successfully or not. */
+    public interface OnProgressListener {
+        void onProgress(int completed, int total);
+    }
+
+    private final Map<String, CompletableFuture<?>> stages = new LinkedHashMap<>();
+    private final Set<String> ready = new HashSet<>();
+    private final Set<String> failed = new HashSet<>();
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    private OnProgressListener onProgressListener;
+    private BiConsumer<String, Throwable> onErrorListener;
+
+    private static class Waiter {
+        final String[] keys;
+        final Runnable action;
+        final Runnable onAbandoned;
+
+        Waiter(String[] keys, Runnable action, Runnable onAbandoned) {
+            this.keys = keys;
+            this.action = action;
+            this.onAbandoned = onAbandoned;
+        }
+
+        boolean waitsFor(String key) {
+            for (String waited : keys) {
+                if (waited.equals(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public void setOnProgressListener(OnProgressListener onProgressListener) {
+        this.onProgressListener = onProgressListener;
+    }
+
+    public void setOnErrorListener(BiConsumer<String, Throwable> onErrorListener) {
+        this.onErrorListener = onErrorListener;
+    }
+
+    /**
+     * Registers a loading stage. {@code onReady} receives the result as soon as this stage alone
+     * completes.
+     */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public synchronized <T> void register(
+            String key, CompletableFuture<T> stage, Consumer<T> onReady) {
+        stages.put(key, stage);
+        ready.remove(key);
+        failed.remove(key);
+
+        stage.handle(
+                (result, throwable) -> {
+                    if (isCancellation(throwable)) {
+                        onCancelled(key, stage);
+                    } else if (throwable != null) {
+                        onFailed(key, throwable);
+                    } else {
+                        onReady.accept(result);
+                        onReady(key);
+                    }
+                    return null;
+                });
+    }
+
+    public synchronized boolean isReady(String key) {
+        return ready.contains(key);
+    }
+
+    /** Returns true once every given key has loaded successfully. */
+    public synchronized boolean areReady(String... keys) {
+        for (String key : keys) {
+            if (!ready.contains(key)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Runs {@code action} once all keys are ready, immediately if they already are. */
+    public void whenReady(Runnable action, String... keys) {
+        whenReady(action, null, keys);
+    }
+
+    /**
+     * Like {@link #whenReady(Runnable, String...)}, but runs {@code onAbandoned} instead of {@code
+     * action} if one of the keys fails or is cancelled first, so the caller can undo whatever it
+     * set up for the action.
+     */
+    public void whenReady(Runnable action, Runnable onAbandoned, String... keys) {
+        boolean abandoned;
+        synchronized (this) {
+            abandoned = isFailed(keys);
+            if (!abandoned && !areReady(keys)) {
+                waiters.add(new Waiter(keys, action, onAbandoned));
+                return;
+            }
+        }
+        if (!abandoned) {
+            action.run();
+        } else if (onAbandoned != null) {
+            onAbandoned.run();
+        }
+    }
+
+    private boolean isFailed(String... keys) {
+        for (String key : keys) {
+            if (failed.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized int getReadyCount() {
+        return ready.size();
+    }
+
+    public synchronized int getTotalCount() {
+        return stages.size();
+    }
+
+    /** Fraction of registered stages that have completed, failed ones included. */
+    public synchronized float getProgress() {
+        if (stages.isEmpty()) {
+            return 1.0f;
+        }
+        return (float) (ready.size() + failed.size()) / stages.size();
+    }
+
+    private void onReady(String key) {
+        List<Runnable> runnable = new ArrayList<>();
+        synchronized (this) {
+            ready.add(key);
+            for (int i = waiters.size() - 1; i >= 0; i--) {
+                Waiter waiter = waiters.get(i);
+                if (areReady(waiter.keys)) {
+                    waiters.remove(i);
+                    runnable.add(0, waiter.action);
+                }
+            }
+        }
+        for (Runnable action : runnable) {
+            action.run();
+        }
+        notifyProgress();
+    }
+
+    private void onCancelled(String key, CompletableFuture<?> stage) {
+        synchronized (this) {
+            // Only if the key wasn't registered again since.
+            if (stages.get(key) != stage) {
+                return;
+            }
+            stages.remove(key);
+        }
+        abandonWaiters(key);
+    }
+
+    /** Drops the waiters that can no longer run because {@code key} won't become ready. */
+    private void abandonWaiters(String key) {
+        List<Runnable> abandoned = new ArrayList<>();
+        synchronized (this) {
+            for (int i = waiters.size() - 1; i >= 0; i--) {
+                Waiter waiter = waiters.get(i);
+                if (waiter.waitsFor(key)) {
+                    waiters.remove(i);
+                    if (waiter.onAbandoned != null) {
+                        abandoned.add(0, waiter.onAbandoned);
+                    }
+                }
+            }
+        }
+        for (Runnable onAbandoned : abandoned) {
+            onAbandoned.run();
+        }
+    }
+
+    private static boolean isCancellation(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable instanceof CancellationException;
+    }
+
+    private void onFailed(String key, Throwable throwable) {
+        synchronized (this) {
+            failed.add(key);
+        }
+        abandonWaiters(key);
+        if (onErrorListener != null) {
+            onErrorListener.accept(key, throwable);
+        }
+        notifyProgress();
+    }
+
+    private void notifyProgress() {
+        int completed;
+        int total;
+        synchronized (this) {
+            completed = ready.size() + failed.size();
+            total = stages.size();
+        }
+        if (onProgressListener != null) {
+            onProgressListener.onProgress(completed, total);
+        }
+    }
+}
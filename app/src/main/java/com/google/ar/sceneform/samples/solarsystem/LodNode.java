@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.support.annotation.Nullable;
+import com.google.ar.sceneform.Camera;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.collision.Box;
+import com.google.ar.sceneform.math.Vector3;
+import com.google.ar.sceneform.rendering.ModelRenderable;
+
+/**
+ * Node that switches between levels of detail generated by {@code lod.gradle}, based on how much of
+ * the screen height it covers.
+ *
+ * <p>Level 0 is the full mesh. A level is used while the coverage is at or above its threshold;
+ * switching only happens once coverage has moved past the threshold by {@link #HYSTERESIS}, so an
+ * item sitting at a boundary doesn't flicker between meshes. Levels can be set as they finish
+ * loading; until then the nearest loaded level is shown.
+ */
+public class LodNode extends Node {
+    // Relative band around each threshold in which the current level is kept.
+    private static final float HYSTERESIS = 0.15f;
+
+    // Used until level 0 is loaded and has a collision box.
+    private static final float DEFAULT_BOUNDING_RADIUS = 0.5f;
+
+    private final ModelRenderable[] levels;
+    private final float[] coverageThresholds;
+    private int currentLevel = 0;
+    private float boundingRadius = DEFAULT_BOUNDING_RADIUS;
+
+    /**
+     * @param coverageThresholds minimum fraction of the screen height covered to use each level,
+     *     descending, one per level. The last level is used below the last threshold.
+     */
+    public LodNode(float... coverageThresholds) {
+        this.coverageThresholds = coverageThresholds;
+        this.levels = new ModelRenderable[coverageThresholds.length];
+    }
+
+    /** Sets the renderable for {@code level}, e.g. once it has loaded. */
+    public void setLevel(int level, ModelRenderable renderable) {
+        levels[level] = renderable;
+        if (level == 0 && renderable.getCollisionShape() instanceof Box) {
+            Vector3 size = ((Box) renderable.getCollisionShape()).getSize();
+            boundingRadius = size.length() / 2;
+        }
+        applyLevel();
+    }
+
+    public int getCurrentLevel() {
+        return currentLevel;
+    }
+
+    @Override
+    public void onUpdate(FrameTime frameTime) {
+        super.onUpdate(frameTime);
+
+        if (getScene() == null) {
+            return;
+        }
+        Camera camera = getScene().getCamera();
+        float coverage = getScreenCoverage(camera);
+
+        int level = currentLevel;
+        // Move to a finer level only once clearly above its threshold.
+        while (level > 0 && coverage >= coverageThresholds[level - 1] * (1 + HYSTERESIS)) {
+            level--;
+        }
+        // Move to a coarser level only once clearly below the current threshold.
+        while (level < levels.length - 1
+                && coverage < coverageThresholds[level] * (1 - HYSTERESIS)) {
+            level++;
+        }
+
+        if (level != currentLevel) {
+            currentLevel = level;
+            applyLevel();
+        }
+    }
+
+    /**
+     * Fraction of the screen height covered by the bounding sphere. Reads the world matrices
+     * directly, so it allocates nothing per frame.
+     */
+    private float getScreenCoverage(Camera camera) {
+        float[] cameraWorld = camera.getWorldModelMatrix().data;
+        float[] world = getWorldModelMatrix().data;
+        float dx = cameraWorld[12] - world[12];
+        float dy = cameraWorld[13] - world[13];
+        float dz = cameraWorld[14] - world[14];
+        float distance = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+        // The length of the first column is the world scale along x.
+        float scale =
+                (float) Math.sqrt(world[0] * world[0] + world[1] * world[1] + world[2] * world[2]);
+        float radius = boundingRadius * scale;
+        if (distance <= radius) {
+            return 1.0f;
+        }
+        // Element [5] of the projection matrix is 1 / tan(verticalFov / 2).
+        float focal = camera.getProjectionMatrix().data[5];
+        return radius * focal / distance;
+    }
+
+    private void applyLevel() {
+        setRenderable(findLoadedLevel(currentLevel));
+    }
+
+    /** The requested level, or the closest loaded one, preferring finer levels. */
+    @Nullable
+    private ModelRenderable findLoadedLevel(int level) {
+        for (int offset = 0; offset < levels.length; offset++) {
+            if (level - offset >= 0 && levels[level - offset] != null) {
+                return levels[level - offset];
+            }
+            if (level + offset < levels.length && levels[level + offset] != null) {
+                return levels[level + offset];
+            }
+        }
+        return null;
+    }
+}
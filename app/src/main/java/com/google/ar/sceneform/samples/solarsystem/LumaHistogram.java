@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 256-bin histogram of a Y plane, built band by band through a {@link TiledPlaneExecutor}.
+ *
+ * <p>Plain Java.
+ */
+public class LumaHistogram {
+
+    /** Builds one histogram per band and adds them up. */
+    public static final TiledPlaneExecutor.BandTask<LumaHistogram> TASK =
+            new TiledPlaneExecutor.BandTask<LumaHistogram>() {
+                @Override
+                public LumaHistogram analyze(
+                        ByteBuffer buffer,
+                        int rowStride,
+                        int pixelStride,
+                        int width,
+                        int rowStart,
+                        int rowEnd) {
+                    LumaHistogram histogram = new LumaHistogram();
+                    long[] bins = histogram.bins;
+                    for (int row = rowStart; row < rowEnd; row++) {
+                        int offset = row * rowStride;
+                        for (int col = 0; col < width; col++) {
+                            bins[buffer.get(offset + col * pixelStride) & 0xff]++;
+                        }
+                    }
+                    histogram.count = (long) width * (rowEnd - rowStart);
+                    return histogram;
+                }
+
+                @Override
+                public LumaHistogram merge(LumaHistogram upper, LumaHistogram lower) {
+                    for (int i = 0; i < upper.bins.length; i++) {
+                        upper.bins[i] += lower.bins[i];
+                    }
+                    upper.count += lower.count;
+                    return upper;
+                }
+            };
+
+    private final long[] bins = new long[256];
+    private long count;
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getBin(int luma) {
+        return bins[luma];
+    }
+
+    /** Mean luma from 0 to 255, or 0 if empty. */
+    public float getMean() {
+        if (count == 0) {
+            return 0f;
+        }
+        long sum = 0;
+        for (int i = 0; i < bins.length; i++) {
+            sum += bins[i] * i;
+        }
+        return (float) sum / count;
+    }
+
+    /** Fraction of pixels with luma in {@code [from, to]}. */
+    public float getFraction(int from, int to) {
+        if (count == 0) {
+            return 0f;
+        }
+        long inRange = 0;
+        for (int i = from; i <= to; i++) {
+            inRange += bins[i];
+        }
+        return (float) inRange / count;
+    }
+
+    /** Smallest luma at or below which {@code percentile} (0 to 100) of the pixels lie. */
+    public int getPercentile(double percentile) {
+        long rank = (long) Math.ceil(count * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < bins.length; i++) {
+            seen += bins[i];
+            if (seen >= rank) {
+                return i;
+            }
+        }
+        return bins.length - 1;
+    }
+}
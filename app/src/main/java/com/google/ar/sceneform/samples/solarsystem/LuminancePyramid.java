@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Downscaled copies of a Y plane, each level half the size of the one before.
+ *
+ * <p>Level 0 is the plane box-filtered down by {@code 2^baseShift} on each side; every further
+ * level averages 2x2 blocks of the previous one, both rounded to nearest. Odd trailing rows and
+ * columns are dropped. Levels are row-major {@code byte[]}s with a stride equal to their width.
+ *
+ * <p>The arrays are allocated on the first frame and reused as long as the frame size stays the
+ * same, so building allocates nothing per frame after that. The source plane is read with its own
+ * row and pixel stride, so padded rows and interleaved layouts work as-is.
+ *
+ * <p>Plain Java. Not thread-safe; build and read on the same thread, or copy what is needed.
+ */
+public class LuminancePyramid {
+
+    private final int levelCount;
+    private final int baseShift;
+
+    private byte[][] levels;
+    private int[] widths;
+    private int[] heights;
+    private int sourceWidth = -1;
+    private int sourceHeight = -1;
+
+    /**
+     * @param levelCount number of levels, at least 1
+     * @param baseShift level 0 is {@code 2^baseShift} times smaller than the frame on each side
+     */
+    public LuminancePyramid(int levelCount, int baseShift) {
+        if (levelCount < 1 || baseShift < 0) {
+            throw new IllegalArgumentException("levelCount >= 1 and baseShift >= 0 required");
+        }
+        this.levelCount = levelCount;
+        this.baseShift = baseShift;
+    }
+
+    /** Rebuilds every level from a {@code width} x {@code height} Y plane. */
+    public void build(CameraFrame.Plane yPlane, int width, int height) {
+        if (width != sourceWidth || height != sourceHeight) {
+            allocate(width, height);
+        }
+        buildBase(yPlane);
+        for (int level = 1; level < levelCount; level++) {
+            halve(level);
+        }
+    }
+
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    public int getWidth(int level) {
+        return widths[level];
+    }
+
+    public int getHeight(int level) {
+        return heights[level];
+    }
+
+    /** The level's pixels, row-major. Overwritten by the next {@link #build}; don't modify. */
+    public byte[] getLevel(int level) {
+        return levels[level];
+    }
+
+    public int get(int level, int x, int y) {
+        return levels[level][y * widths[level] + x] & 0xff;
+    }
+
+    /** Mean luma of a level from 0 to 255. */
+    public float getMean(int level) {
+        byte[] pixels = levels[level];
+        if (pixels.length == 0) {
+            return 0f;
+        }
+        long sum = 0;
+        for (byte pixel : pixels) {
+            sum += pixel & 0xff;
+        }
+        return (float) sum / pixels.length;
+    }
+
+    private void allocate(int width, int height) {
+        levels = new byte[levelCount][];
+        widths = new int[levelCount];
+        heights = new int[levelCount];
+        int levelWidth = width >> baseShift;
+        int levelHeight = height >> baseShift;
+        for (int level = 0; level < levelCount; level++) {
+            widths[level] = levelWidth;
+            heights[level] = levelHeight;
+            levels[level] = new byte[levelWidth * levelHeight];
+            levelWidth >>= 1;
+            levelHeight >>= 1;
+        }
+        sourceWidth = width;
+        sourceHeight = height;
+    }
+
+    private void buildBase(CameraFrame.Plane yPlane) {
+        ByteBuffer buffer = yPlane.getBuffer();
+        int rowStride = yPlane.getRowStride();
+        int pixelStride = yPlane.getPixelStride();
+        byte[] base = levels[0];
+        int baseWidth = widths[0];
+        int baseHeight = heights[0];
+        int block = 1 << baseShift;
+        int shift = baseShift * 2;
+        int round = shift > 0 ? 1 << (shift - 1) : 0;
+
+        for (int y = 0; y < baseHeight; y++) {
+            int sourceRow = (y << baseShift) * rowStride;
+            int out = y * baseWidth;
+            for (int x = 0; x < baseWidth; x++) {
+                int sourceColumn = (x << baseShift) * pixelStride;
+                int sum = 0;
+                for (int by = 0; by < block; by++) {
+                    int index = sourceRow + by * rowStride + sourceColumn;
+                    for (int bx = 0; bx < block; bx++) {
+                        sum += buffer.get(index) & 0xff;
+                        index += pixelStride;
+                    }
+                }
+                base[out + x] = (byte) ((sum + round) >> shift);
+            }
+        }
+    }
+
+    private void halve(int level) {
+        byte[] source = levels[level - 1];
+        int stride = widths[level - 1];
+        byte[] target = levels[level];
+        int width = widths[level];
+        int height = heights[level];
+
+        for (int y = 0; y < height; y++) {
+            int top = (y * 2) * stride;
+            int bottom = top + stride;
+            int out = y * width;
+            for (int x = 0; x < width; x++) {
+                int column = x * 2;
+                int sum = (source[top + column] & 0xff)
+                        + (source[top + column + 1] & 0xff)
+                        + (source[bottom + column] & 0xff)
+                        + (source[bottom + column + 1] & 0xff);
+                target[out + x] = (byte) ((sum + 2) >> 2);
+            }
+        }
+    }
+}
@@ -1,14 +1,93 @@
 package com.google.ar.sceneform.samples.solarsystem;
 
+import android.content.Intent;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.TypedValue;
+
+import java.util.List;
 
 public class MainActivity extends AppCompatActivity {
 
+    // One model at a time, so prefetching doesn't compete with the list for the UI thread.
+    private static final int MAX_CONCURRENT_PREFETCHES = 1;
+
+    // Size of iv_product in item_product.xml.
+    private static final int PRODUCT_IMAGE_WIDTH_DP = 123;
+    private static final int PRODUCT_IMAGE_HEIGHT_DP = 197;
+
+    private PrefetchScheduler prefetchScheduler;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
+        List<Product> products = Product.getCatalog();
+
+        ModelLoadQueue modelLoadQueue =
+                new ModelLoadQueue(
+                        this,
+                        RenderableCache.getInstance(),
+                        TextureQualityTier.select(this),
+                        MAX_CONCURRENT_PREFETCHES);
+        prefetchScheduler =
+                new PrefetchScheduler(
+                        this,
+                        modelLoadQueue,
+                        products,
+                        dpToPx(PRODUCT_IMAGE_WIDTH_DP),
+                        dpToPx(PRODUCT_IMAGE_HEIGHT_DP));
+
+        RecyclerView rvProducts = findViewById(R.id.rv_products);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        rvProducts.setLayoutManager(layoutManager);
+        rvProducts.setAdapter(new ProductAdapter(products, this::openProduct));
+
+        rvProducts.addOnScrollListener(
+                new RecyclerView.OnScrollListener() {
+                    @Override
+                    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+                        prefetchScheduler.onViewportChanged(
+                                layoutManager.findFirstVisibleItemPosition(),
+                                layoutManager.findLastVisibleItemPosition(),
+                                dy);
+                    }
+                });
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        prefetchScheduler.start();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        prefetchScheduler.stop();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        prefetchScheduler.cancel();
+    }
+
+    /**
+    * 고른 상품을 AR 화면에서 배치
+    * */
+    private void openProduct(Product product) {
+        Intent intent = new Intent(this, SolarActivity.class);
+        intent.putExtra(Data.EXTRA_PRODUCT_ASSET, product.modelAsset);
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        startActivity(intent);
+    }
+
+    private int dpToPx(int dp) {
+        return (int) TypedValue.applyDimension(
+                TypedValue.COMPLEX_UNIT_DIP, dp, getResources().getDisplayMetrics());
     }
 }
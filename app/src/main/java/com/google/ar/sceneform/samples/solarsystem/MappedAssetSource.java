@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+
+/**
+ * Opens uncompressed assets through their {@link AssetFileDescriptor} and memory-maps them.
+ *
+ * <p>The .sfb files are stored uncompressed (see {@code aaptOptions} in the app build.gradle), so
+ * their bytes can be mapped straight out of the APK instead of being streamed through the asset
+ * manager's buffers.
+ */
+public final class MappedAssetSource {
+
+    private MappedAssetSource() {}
+
+    /** Maps {@code asset} read-only. Fails for assets stored compressed. */
+    public static MappedByteBuffer map(Context context, String asset) throws IOException {
+        try (AssetFileDescriptor fd = context.getAssets().openFd(asset);
+                FileInputStream input = fd.createInputStream();
+                FileChannel channel = input.getChannel()) {
+            // The mapping stays valid after the channel is closed.
+            return channel.map(FileChannel.MapMode.READ_ONLY, fd.getStartOffset(), fd.getLength());
+        }
+    }
+
+    /**
+     * Returns a source for {@code ModelRenderable.Builder#setSource(Context, Callable)} that reads
+     * the mapped asset, or streams it the usual way if it was stored compressed.
+     */
+    public static Callable<InputStream> streamSource(Context context, String asset) {
+        return () -> {
+            try {
+                return new ByteBufferInputStream(map(context, asset));
+            } catch (IOException e) {
+                return context.getAssets().open(asset);
+            }
+        };
+    }
+
+    /** Reads a buffer from its position to its limit without copying it first. */
+    public static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        public ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.content.Context;
+import com.google.ar.sceneform.rendering.ModelRenderable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loads models on demand through {@link RenderableCache}, at most {@code maxConcurrentLoads} at a
+ * time and in priority order.
+ *
+ * <p>Requests for the same asset share one load. Re-requesting an asset with a higher priority moves
+ * it forward in the queue, and a pending load is dropped once all of its requests are cancelled.
+ *
+ * <p>Assets are requested by their full-quality name and loaded from the configured
+ * {@link TextureQualityTier}, or a smaller one if the {@link AssetIndex} says the model would not
+ * fit the cache budget. Levels of detail are requested by their {@code lod<n>/} path and resolved
+ * by the tier the same way.
+ *
+ * <p>Sceneform has to be started from the UI thread and decodes on its own background executor, so
+ * this class only bounds how many loads are in flight. All methods must be called from the UI
+ * thread.
+ */
+public class ModelLoadQueue {
+
+    /** Lower ordinal is served first. */
+    public enum Priority {
+        /** The user tapped to place this item. */
+        TAPPED,
+        /** The item is on screen in the catalog. */
+        VISIBLE,
+        /** Speculative, the item may be needed soon. */
+        PREFETCH
+    }
+
+    /** A caller's handle on a queued load. */
+    public static class Request {
+        private final Job job;
+        private final CompletableFuture<ModelRenderable> future = new CompletableFuture<>();
+
+        private Request(Job job) {
+            this.job = job;
+        }
+
+        public String getAsset() {
+            return job.asset;
+        }
+
+        public CompletableFuture<ModelRenderable> getFuture() {
+            return future;
+        }
+
+        public boolean isCancelled() {
+            return future.isCancelled();
+        }
+    }
+
+    private static class Job implements Comparable<Job> {
+        final String asset;
+        final long sequence;
+        Priority priority;
+        boolean started;
+        final List<Request> requests = new ArrayList<>();
+
+        Job(String asset, Priority priority, long sequence) {
+            this.asset = asset;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int result = priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private final Context context;
+    private final RenderableCache renderableCache;
+    private final TextureQualityTier textureQualityTier;
+    private final int maxConcurrentLoads;
+
+    private final PriorityQueue<Job> pending = new PriorityQueue<>();
+    private final Map<String, Job> jobs = new HashMap<>();
+    private int runningLoads;
+    private long nextSequence;
+
+    public ModelLoadQueue(
+            Context context,
+            RenderableCache renderableCache,
+            TextureQualityTier textureQualityTier,
+            int maxConcurrentLoads) {
+        this.context = context.getApplicationContext();
+        this.renderableCache = renderableCache;
+        this.textureQualityTier = textureQualityTier;
+        this.maxConcurrentLoads = maxConcurrentLoads;
+    }
+
+    /** Moves a queued load forward. Does nothing if it isn't queued or has already started. */
+    public void prioritize(String asset, Priority priority) {
+        Job job = jobs.get(asset);
+        if (job != null && !job.started && priority.compareTo(job.priority) < 0) {
+            // PriorityQueue doesn't reorder on mutation, so re-insert.
+            pending.remove(job);
+            job.priority = priority;
+            pending.add(job);
+        }
+    }
+
+    /** Queues {@code asset}, or raises the priority of a load that is already queued. */
+    public Request request(String asset, Priority priority) {
+        Job job = jobs.get(asset);
+        if (job == null) {
+            job = new Job(asset, priority, nextSequence++);
+            jobs.put(asset, job);
+            AssetLoadMetrics.getInstance().submitted(asset);
+            pending.add(job);
+        } else {
+            prioritize(asset, priority);
+        }
+
+        Request request = new Request(job);
+        job.requests.add(request);
+        scheduleNext();
+        return request;
+    }
+
+    /**
+     * Cancels a request. The load itself is dropped if it hasn't started and nobody else is waiting
+     * for it; a started load still finishes into the cache.
+     */
+    public void cancel(Request request) {
+        Job job = request.job;
+        request.future.cancel(false);
+        job.requests.remove(request);
+
+        if (!job.started && job.requests.isEmpty()) {
+            pending.remove(job);
+            jobs.remove(job.asset);
+            AssetLoadMetrics.getInstance().dropped(job.asset);
+        }
+    }
+
+    /**
+     * Cancels every request, e.g. when the requesting screen goes away. Loads that haven't started
+     * are dropped; started ones still finish into the cache, but their requests complete as
+     * cancelled.
+     */
+    public void cancelAll() {
+        for (Job job : new ArrayList<>(jobs.values())) {
+            for (Request request : new ArrayList<>(job.requests)) {
+                cancel(request);
+            }
+        }
+    }
+
+    /** Returns true if the variant of {@code asset} this queue would load is already decoded. */
+    public boolean isCached(String asset) {
+        String path =
+                textureQualityTier.resolveWithinBudget(context, asset, renderableCache.getMaxBytes());
+        return path != null && renderableCache.contains(path);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    private void scheduleNext() {
+        while (runningLoads < maxConcurrentLoads && !pending.isEmpty()) {
+            Job job = pending.poll();
+            job.started = true;
+
+            // Downgrade to a smaller texture tier, or refuse, if the model can't fit the cache.
+            String path =
+                    textureQualityTier.resolveWithinBudget(
+                            context, job.asset, renderableCache.getMaxBytes());
+            if (path == null) {
+                jobs.remove(job.asset);
+                AssetLoadMetrics.getInstance().finished(job.asset, true);
+                complete(
+                        job,
+                        null,
+                        new IllegalStateException(job.asset + " doesn't fit the memory budget"));
+                continue;
+            }
+
+            // The cache records the load under the resolved path.
+            AssetLoadMetrics.getInstance().resolved(job.asset, path);
+            runningLoads++;
+            renderableCache
+                    .load(context, path)
+                    .handle(
+                            (renderable, throwable) -> {
+                                runningLoads--;
+                                jobs.remove(job.asset);
+                                complete(job, renderable, throwable);
+                                scheduleNext();
+                                return null;
+                            });
+        }
+    }
+
+    private static void complete(Job job, ModelRenderable renderable, Throwable throwable) {
+        for (int i = 0; i < job.requests.size(); i++) {
+            Request request = job.requests.get(i);
+            if (throwable != null) {
+                request.future.completeExceptionally(throwable);
+            } else {
+                // The first request gets the copy made by the cache, the rest get their own.
+                request.future.complete(i == 0 ? renderable : renderable.makeCopy());
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+/**
+ * Tells whether the camera has been held still, so work that only needs a new view of the room
+ * can be skipped until it moves again.
+ *
+ * <p>Compares the coarsest level of a {@link LuminancePyramid} with the previous frame's. Both are
+ * kept in reused arrays, so nothing is allocated per frame once the first frame has been seen.
+ */
+public class MotionDetector implements FrameProcessor {
+
+    private static final float TARGET_RATE = 8f;
+    // 3 levels starting at 1/8 scale: 640x480 gives 80x60, 40x30 and 20x15.
+    private static final int PYRAMID_LEVELS = 3;
+    private static final int PYRAMID_BASE_SHIFT = 3;
+    // Mean absolute luma difference, 0 to 255, below which two frames count as the same view.
+    private static final float STILL_THRESHOLD = 3f;
+    // Consecutive unchanged frames before the camera counts as still.
+    private static final int STILL_FRAMES = 4;
+
+    private final LuminancePyramid pyramid =
+            new LuminancePyramid(PYRAMID_LEVELS, PYRAMID_BASE_SHIFT);
+    private byte[] previous;
+    private int unchangedFrames;
+
+    private volatile float difference;
+    private volatile boolean still;
+
+    @Override
+    public float getTargetRate() {
+        return TARGET_RATE;
+    }
+
+    @Override
+    public void process(CameraFrame frame) {
+        pyramid.build(frame.getPlane(CameraFrame.PLANE_Y), frame.getWidth(), frame.getHeight());
+        int level = PYRAMID_LEVELS - 1;
+        byte[] current = pyramid.getLevel(level);
+        if (current.length == 0) {
+            return;
+        }
+        if (previous == null || previous.length != current.length) {
+            previous = current.clone();
+            unchangedFrames = 0;
+            still = false;
+            return;
+        }
+
+        long sum = 0;
+        for (int i = 0; i < current.length; i++) {
+            sum += Math.abs((current[i] & 0xff) - (previous[i] & 0xff));
+        }
+        System.arraycopy(current, 0, previous, 0, current.length);
+
+        difference = (float) sum / current.length;
+        unchangedFrames = difference < STILL_THRESHOLD ? unchangedFrames + 1 : 0;
+        still = unchangedFrames >= STILL_FRAMES;
+    }
+
+    /** Whether the last few frames showed the same view. Any thread. */
+    public boolean isStill() {
+        return still;
+    }
+
+    /** Mean absolute luma change between the last two frames, from 0 to 255. */
+    public float getDifference() {
+        return difference;
+    }
+}
@@ -18,10 +18,8 @@ package com.google.ar.sceneform.samples.solarsystem;
 import android.content.Context;
 import android.view.MotionEvent;
 import android.widget.TextView;
-import com.google.ar.sceneform.FrameTime;
 import com.google.ar.sceneform.HitTestResult;
 import com.google.ar.sceneform.Node;
-import com.google.ar.sceneform.math.Quaternion;
 import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.rendering.ModelRenderable;
 import com.google.ar.sceneform.rendering.ViewRenderable;
@@ -46,7 +44,8 @@ public class Planet extends Node implements Node.OnTapListener {
   private final float orbitDegreesPerSecond;
   private final float axisTilt;
   private final ModelRenderable planetRenderable;
-  private final SolarSettings solarSettings;
+  private final RotationAnimationScheduler rotationScheduler;
+  private final BillboardManager billboardManager;
 
   private Node infoCard;
   private RotatingNode planetVisual;
@@ -61,14 +60,16 @@ public class Planet extends Node implements Node.OnTapListener {
       float orbitDegreesPerSecond,
       float axisTilt,
       ModelRenderable planetRenderable,
-      SolarSettings solarSettings) {
+      RotationAnimationScheduler rotationScheduler,
+      BillboardManager billboardManager) {
     this.context = context;
     this.planetName = planetName;
     this.planetScale = planetScale;
     this.orbitDegreesPerSecond = orbitDegreesPerSecond;
     this.axisTilt = axisTilt;
     this.planetRenderable = planetRenderable;
-    this.solarSettings = solarSettings;
+    this.rotationScheduler = rotationScheduler;
+    this.billboardManager = billboardManager;
     setOnTapListener(this);
   }
 
@@ -101,15 +102,18 @@ public class Planet extends Node implements Node.OnTapListener {
               });
     }
 
+    // Keeps the info card facing the camera.
+    billboardManager.register(infoCard);
+
     if (planetVisual == null) {
       // Put a rotator to counter the effects of orbit, and allow the planet orientation to remain
       // of planets like Uranus (which has high tilt) to keep tilted towards the same direction
       // wherever it is in its orbit.
-      RotatingNode counterOrbit = new RotatingNode(solarSettings, true, true, 0f);
+      RotatingNode counterOrbit = new RotatingNode(rotationScheduler, true, true, 0f);
       counterOrbit.setDegreesPerSecond(orbitDegreesPerSecond);
       counterOrbit.setParent(this);
 
-      planetVisual = new RotatingNode(solarSettings, false, false, axisTilt);
+      planetVisual = new RotatingNode(rotationScheduler, false, false, axisTilt);
       planetVisual.setParent(counterOrbit);
       planetVisual.setRenderable(planetRenderable);
       planetVisual.setLocalScale(new Vector3(planetScale, planetScale, planetScale));
@@ -126,22 +130,9 @@ public class Planet extends Node implements Node.OnTapListener {
   }
 
   @Override
-  public void onUpdate(FrameTime frameTime) {
-    if (infoCard == null) {
-      return;
-    }
-
-    // Typically, getScene() will never return null because onUpdate() is only called when the node
-    // is in the scene.
-    // However, if onUpdate is called explicitly or if the node is removed from the scene on a
-    // different thread during onUpdate, then getScene may be null.
-    if (getScene() == null) {
-      return;
+  public void onDeactivate() {
+    if (infoCard != null) {
+      billboardManager.unregister(infoCard);
     }
-    Vector3 cameraPosition = getScene().getCamera().getWorldPosition();
-    Vector3 cardPosition = infoCard.getWorldPosition();
-    Vector3 direction = Vector3.subtract(cameraPosition, cardPosition);
-    Quaternion lookRotation = Quaternion.lookRotation(direction, Vector3.up());
-    infoCard.setWorldRotation(lookRotation);
   }
 }
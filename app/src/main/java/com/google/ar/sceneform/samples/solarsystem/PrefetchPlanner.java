@@ -0,0 +1,192 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The decisions behind {@link PrefetchScheduler}, without the Android parts: which rows to warm
+ * for a viewport and scroll direction, how much the device state allows, and the byte budget.
+ *
+ * <p>Every prefetch holds a {@link Reservation} of its estimated bytes until its load finishes.
+ * A finished load gives the reservation back and charges the bytes to the {@link PrefetchStats} if
+ * it loaded, so cancelled and failed prefetches cost nothing.
+ *
+ * <p>Plain Java, so it runs on the JVM. Not thread-safe; the scheduler calls it from the UI thread.
+ */
+class PrefetchPlanner {
+
+    static final int LOOKAHEAD_ROWS = 3;
+    static final int LOOKBEHIND_ROWS = 1;
+    static final int LOW_BATTERY_PERCENT = 20;
+
+    /** How much prefetching the device state allows. */
+    enum Throttle {
+        FULL,
+        LOCAL_ONLY,
+        PAUSED
+    }
+
+    /** The rows to warm, inclusive. */
+    static final class Window {
+        final int from;
+        final int to;
+
+        Window(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        boolean contains(int row) {
+            return row >= from && row <= to;
+        }
+    }
+
+    /** Estimated bytes held by one prefetch while it loads. */
+    static final class Reservation {
+        final String asset;
+        final int row;
+        final long bytes;
+
+        Reservation(String asset, int row, long bytes) {
+            this.asset = asset;
+            this.row = row;
+            this.bytes = bytes;
+        }
+    }
+
+    private final PrefetchStats stats;
+    private final long budgetBytes;
+
+    // Prefetches still loading, by asset.
+    private final Map<String, Reservation> reservations = new LinkedHashMap<>();
+    private long reservedBytes;
+
+    PrefetchPlanner(PrefetchStats stats, long budgetBytes) {
+        this.stats = stats;
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * The visible rows plus {@link #LOOKAHEAD_ROWS} in the scroll direction and
+     * {@link #LOOKBEHIND_ROWS} behind, or null if nothing is visible. {@code dy} is positive when
+     * scrolling towards the end of the list.
+     */
+    @Nullable
+    static Window window(int firstVisible, int lastVisible, int dy, int rowCount) {
+        if (firstVisible < 0 || lastVisible < firstVisible || rowCount == 0) {
+            return null;
+        }
+        boolean up = dy < 0;
+        int from = Math.max(0, firstVisible - (up ? LOOKAHEAD_ROWS : LOOKBEHIND_ROWS));
+        int to = Math.min(rowCount - 1, lastVisible + (up ? LOOKBEHIND_ROWS : LOOKAHEAD_ROWS));
+        return new Window(from, to);
+    }
+
+    /**
+     * What the device state allows. {@code batteryLevel} and {@code batteryScale} are the extras
+     * of the battery broadcast, -1 if unknown.
+     */
+    static Throttle throttle(
+            boolean powerSaveMode,
+            int batteryLevel,
+            int batteryScale,
+            boolean charging,
+            boolean connected,
+            boolean metered) {
+        if (powerSaveMode) {
+            return Throttle.PAUSED;
+        }
+        if (!charging
+                && batteryLevel >= 0
+                && batteryScale > 0
+                && batteryLevel * 100 / batteryScale < LOW_BATTERY_PERCENT) {
+            return Throttle.PAUSED;
+        }
+        if (!connected || metered) {
+            return Throttle.LOCAL_ONLY;
+        }
+        return Throttle.FULL;
+    }
+
+    /** Whether the throttle lets {@code asset} be prefetched at all. */
+    static boolean allows(Throttle throttle, String asset) {
+        switch (throttle) {
+            case FULL:
+                return true;
+            case LOCAL_ONLY:
+                return !RenderableCache.isRemote(asset);
+            default:
+                return false;
+        }
+    }
+
+    /** The prefetch of {@code asset} still loading, or null. */
+    @Nullable
+    Reservation getReservation(String asset) {
+        return reservations.get(asset);
+    }
+
+    /**
+     * Reserves {@code bytes} for prefetching {@code asset} at {@code row}, or returns null if that
+     * would exceed the budget together with what was spent and what is reserved.
+     */
+    @Nullable
+    Reservation reserve(String asset, int row, long bytes) {
+        if (stats.getPrefetchedBytes() + reservedBytes + bytes > budgetBytes) {
+            return null;
+        }
+        Reservation reservation = new Reservation(asset, row, bytes);
+        reservations.put(asset, reservation);
+        reservedBytes += bytes;
+        return reservation;
+    }
+
+    /**
+     * The load behind {@code reservation} finished, was cancelled or failed. Gives the reservation
+     * back, and charges its bytes if {@code loaded}.
+     */
+    void finish(Reservation reservation, boolean loaded) {
+        if (!reservations.remove(reservation.asset, reservation)) {
+            // Already finished.
+            return;
+        }
+        reservedBytes -= reservation.bytes;
+        if (loaded) {
+            stats.recordPrefetch(reservation.asset, reservation.bytes);
+        }
+    }
+
+    /** The prefetches still loading whose rows are outside {@code window}. */
+    List<Reservation> outside(Window window) {
+        List<Reservation> outside = new ArrayList<>();
+        for (Reservation reservation : reservations.values()) {
+            if (!window.contains(reservation.row)) {
+                outside.add(reservation);
+            }
+        }
+        return outside;
+    }
+
+    long getReservedBytes() {
+        return reservedBytes;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.BatteryManager;
+import android.os.PowerManager;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warms models and images for the catalog rows around the viewport, so a product picked in
+ * {@link MainActivity} is already decoded when {@link SolarActivity} places it.
+ *
+ * <p>Rows on screen are loaded at {@link ModelLoadQueue.Priority#VISIBLE}, and a few rows ahead in
+ * the scroll direction at {@link ModelLoadQueue.Priority#PREFETCH}. Requests that scroll out of
+ * range are cancelled if they haven't started. Prefetching pauses in battery saver or on a low,
+ * discharging battery, skips remote models on metered or missing networks, and stops once
+ * {@link Data#PREFETCH_SESSION_BYTE_BUDGET} is spent. The device state is read from broadcasts
+ * between {@link #start()} and {@link #stop()}, not on every scroll. A prefetch is charged to the
+ * budget when its model has loaded; until then its estimate is only reserved, and cancelling it
+ * gives the reservation back. The decisions themselves are made by {@link PrefetchPlanner}.
+ *
+ * <p>All methods must be called from the UI thread.
+ */
+public class PrefetchScheduler {
+
+    private static final String TAG = PrefetchScheduler.class.getSimpleName();
+
+    // Used when the AssetIndex doesn't know the asset, e.g. a remote model.
+    private static final long DEFAULT_MODEL_BYTES = 1024 * 1024;
+
+    private final Context context;
+    private final ModelLoadQueue modelLoadQueue;
+    private final List<Product> products;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final PrefetchStats stats = PrefetchStats.getInstance();
+    private final PrefetchPlanner planner =
+            new PrefetchPlanner(stats, Data.PREFETCH_SESSION_BYTE_BUDGET);
+
+    // Loads of the prefetches the planner holds reservations for.
+    private final Map<String, ModelLoadQueue.Request> requests = new HashMap<>();
+
+    private PrefetchPlanner.Throttle throttle = PrefetchPlanner.Throttle.PAUSED;
+    @Nullable private Intent batteryStatus;
+
+    private final BroadcastReceiver deviceStateReceiver =
+            new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+                        batteryStatus = intent;
+                    }
+                    updateThrottle();
+                }
+            };
+
+    /** Images are warmed at {@code imageWidth} x {@code imageHeight}, the size the rows bind at. */
+    public PrefetchScheduler(
+            Context context,
+            ModelLoadQueue modelLoadQueue,
+            List<Product> products,
+            int imageWidth,
+            int imageHeight) {
+        this.context = context.getApplicationContext();
+        this.modelLoadQueue = modelLoadQueue;
+        this.products = products;
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+    }
+
+    /** Starts following battery, power saving and network changes. */
+    public void start() {
+        IntentFilter filter = new IntentFilter(Intent.ACTION_BATTERY_CHANGED);
+        filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        filter.addAction(ConnectivityManager.CONNECTIVITY_ACTION);
+        // The battery broadcast is sticky, so the current state comes back right away.
+        batteryStatus = context.registerReceiver(deviceStateReceiver, filter);
+        updateThrottle();
+    }
+
+    /** Stops following device state. Prefetching stays paused until {@link #start()}. */
+    public void stop() {
+        context.unregisterReceiver(deviceStateReceiver);
+        throttle = PrefetchPlanner.Throttle.PAUSED;
+    }
+
+    /**
+     * Called whenever the visible rows change. {@code dy} is the last scroll delta, positive when
+     * scrolling towards the end of the list.
+     */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public void onViewportChanged(int firstVisible, int lastVisible, int dy) {
+        PrefetchPlanner.Window window =
+                PrefetchPlanner.window(firstVisible, lastVisible, dy, products.size());
+        if (window == null) {
+            return;
+        }
+
+        // A load that already started still finishes into the cache.
+        for (PrefetchPlanner.Reservation reservation : planner.outside(window)) {
+            modelLoadQueue.cancel(requests.get(reservation.asset));
+        }
+
+        if (throttle == PrefetchPlanner.Throttle.PAUSED) {
+            return;
+        }
+        for (int i = window.from; i <= window.to; i++) {
+            Product product = products.get(i);
+            boolean visible = i >= firstVisible && i <= lastVisible;
+            if (!visible) {
+                // Visible rows are bound by the adapter.
+                ImageCache.getInstance(context)
+                        .prefetchResource(product.imageRes, imageWidth, imageHeight);
+            }
+            prefetchModel(
+                    product.modelAsset,
+                    i,
+                    visible ? ModelLoadQueue.Priority.VISIBLE : ModelLoadQueue.Priority.PREFETCH);
+        }
+    }
+
+    /** Drops everything that hasn't started loading. */
+    public void cancel() {
+        // Cancelled requests give their reservations back as they complete.
+        modelLoadQueue.cancelAll();
+        Log.d(TAG, stats.toString());
+    }
+
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    private void prefetchModel(String asset, int row, ModelLoadQueue.Priority priority) {
+        if (planner.getReservation(asset) != null) {
+            modelLoadQueue.prioritize(asset, priority);
+            return;
+        }
+        if (modelLoadQueue.isCached(asset) || !PrefetchPlanner.allows(throttle, asset)) {
+            return;
+        }
+        PrefetchPlanner.Reservation reservation =
+                planner.reserve(asset, row, estimateBytes(asset));
+        if (reservation == null) {
+            return;
+        }
+
+        ModelLoadQueue.Request loading = modelLoadQueue.request(asset, priority);
+        requests.put(asset, loading);
+        // The queue completes requests on the UI thread, cancelled ones included.
+        loading.getFuture()
+                .handle(
+                        (renderable, throwable) -> {
+                            requests.remove(asset, loading);
+                            planner.finish(reservation, throwable == null);
+                            return null;
+                        });
+    }
+
+    private long estimateBytes(String asset) {
+        AssetIndex.Entry entry = AssetIndex.getInstance(context).get(asset);
+        return entry != null ? entry.byteSize : DEFAULT_MODEL_BYTES;
+    }
+
+    private void updateThrottle() {
+        PrefetchPlanner.Throttle updated = readThrottle();
+        if (updated != throttle) {
+            Log.d(TAG, "Prefetch throttle " + throttle + " -> " + updated);
+            throttle = updated;
+        }
+    }
+
+    private PrefetchPlanner.Throttle readThrottle() {
+        PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        boolean powerSaveMode = powerManager != null && powerManager.isPowerSaveMode();
+
+        Intent battery = batteryStatus;
+        int level = battery != null ? battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1) : -1;
+        int scale = battery != null ? battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1) : -1;
+        boolean charging =
+                battery != null && battery.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+
+        ConnectivityManager connectivityManager =
+                (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkInfo network =
+                connectivityManager != null ? connectivityManager.getActiveNetworkInfo() : null;
+        boolean connected = network != null && network.isConnected();
+        boolean metered =
+                connectivityManager == null || connectivityManager.isActiveNetworkMetered();
+
+        return PrefetchPlanner.throttle(powerSaveMode, level, scale, charging, connected, metered);
+    }
+}
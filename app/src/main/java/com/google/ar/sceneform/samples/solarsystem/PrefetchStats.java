@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Process-wide record of what the catalog prefetched and whether it was warm when placed.
+ *
+ * <p>A use is a hit if the model was already decoded when {@link SolarActivity} asked for it. The
+ * bytes spent on prefetching count against {@link Data#PREFETCH_SESSION_BYTE_BUDGET} for the whole
+ * app session, not just one visit to the catalog.
+ *
+ * <p>Thread-safe.
+ */
+public class PrefetchStats {
+
+    private static PrefetchStats instance;
+
+    private final Set<String> prefetched = new HashSet<>();
+    private final Set<String> usedPrefetched = new HashSet<>();
+    private long prefetchedBytes;
+    private int uses;
+    private int hits;
+
+    public static synchronized PrefetchStats getInstance() {
+        if (instance == null) {
+            instance = new PrefetchStats();
+        }
+        return instance;
+    }
+
+    public synchronized void recordPrefetch(String asset, long bytes) {
+        if (prefetched.add(asset)) {
+            prefetchedBytes += bytes;
+        }
+    }
+
+    /** Records that {@code asset} was needed, and whether it was already decoded. */
+    public synchronized void recordUse(String asset, boolean warm) {
+        uses++;
+        if (warm) {
+            hits++;
+        }
+        if (prefetched.contains(asset)) {
+            usedPrefetched.add(asset);
+        }
+    }
+
+    public synchronized long getPrefetchedBytes() {
+        return prefetchedBytes;
+    }
+
+    /** Fraction of uses that found the model warm. */
+    public synchronized float getHitRate() {
+        return uses == 0 ? 0f : (float) hits / uses;
+    }
+
+    /** Prefetched assets that haven't been used yet. */
+    public synchronized int getUnusedCount() {
+        return prefetched.size() - usedPrefetched.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                Locale.US,
+                "prefetched %d (%d KB), hit rate %.0f%% of %d uses, %d unused",
+                prefetched.size(),
+                prefetchedBytes / 1024,
+                getHitRate() * 100,
+                uses,
+                getUnusedCount());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.support.annotation.DrawableRes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/** An item in the catalog, with the image shown in the list and the model placed in AR. */
+public class Product {
+
+    public final String id;
+    public final String name;
+    public final String price;
+    @DrawableRes public final int imageRes;
+    public final String modelAsset;
+
+    public Product(
+            String id, String name, String price, @DrawableRes int imageRes, String modelAsset) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.imageRes = imageRes;
+        this.modelAsset = modelAsset;
+    }
+
+    /** Returns the catalog product placed as {@code modelAsset}, or null. */
+    public static Product forModelAsset(String modelAsset) {
+        for (Product product : getCatalog()) {
+            if (product.modelAsset.equals(modelAsset)) {
+                return product;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 카탈로그 상품 목록
+     * */
+    public static List<Product> getCatalog() {
+        return Collections.unmodifiableList(
+                Arrays.asList(
+                        new Product(
+                                "gray_sofa", "회색 소파", "320,000원", R.drawable.gray_sofa, "Jupiter.sfb"),
+                        new Product(
+                                "red_sofa", "빨간 소파", "290,000원", R.drawable.red_sofa, "Saturn.sfb"),
+                        new Product(
+                                "wooden_cupboard",
+                                "원목 수납장",
+                                "180,000원",
+                                R.drawable.wooden_cupboard,
+                                "Uranus.sfb"),
+                        new Product(
+                                "zebra_bed", "얼룩말 침대", "450,000원", R.drawable.zebra_bed, "Neptune.sfb")));
+    }
+}
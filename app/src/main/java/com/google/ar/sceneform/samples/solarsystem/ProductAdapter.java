@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Catalog rows. Images come from the {@link ImageCache} at the size the row shows them, and names
+ * and prices from the {@link ProductMetadataClient}, with the bundled catalog shown until then.
+ */
+public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.ViewHolder> {
+
+    private static final String TAG = ProductAdapter.class.getSimpleName();
+
+    private final List<Product> products;
+    private final Consumer<Product> onClick;
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final ImageView ivProduct;
+        final TextView tvName;
+        final TextView tvPrice;
+        Product product;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            ivProduct = itemView.findViewById(R.id.iv_product);
+            tvName = itemView.findViewById(R.id.tv_name);
+            tvPrice = itemView.findViewById(R.id.tv_price);
+        }
+    }
+
+    public ProductAdapter(List<Product> products, Consumer<Product> onClick) {
+        this.products = products;
+        this.onClick = onClick;
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view =
+                LayoutInflater.from(parent.getContext())
+                        .inflate(R.layout.item_product, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        view.setOnClickListener(v -> onClick.accept(holder.product));
+        return holder;
+    }
+
+    @Override
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Product product = products.get(position);
+        holder.product = product;
+        holder.tvName.setText(product.name);
+        holder.tvPrice.setText(product.price);
+
+        // Releases the previous product's bitmap to the pool once nothing else holds it.
+        ImageCache imageCache = ImageCache.getInstance(holder.itemView.getContext());
+        imageCache.show(holder.ivProduct, null);
+
+        ViewGroup.LayoutParams params = holder.ivProduct.getLayoutParams();
+        imageCache
+                .loadResource(product.imageRes, params.width, params.height)
+                .thenAccept(
+                        bitmap ->
+                                holder.ivProduct.post(
+                                        () -> {
+                                            // The row may have been rebound while decoding.
+                                            if (holder.product == product) {
+                                                imageCache.show(holder.ivProduct, bitmap);
+                                            } else {
+                                                imageCache.release(bitmap);
+                                            }
+                                        }));
+
+        // Rows bound in the same layout pass share one request.
+        ProductMetadataClient metadataClient = ProductMetadataClient.getInstance();
+        if (!metadataClient.isEnabled()) {
+            return;
+        }
+        metadataClient
+                .get(product.id)
+                .whenComplete(
+                        (metadata, throwable) -> {
+                            if (throwable != null) {
+                                // The bundled name and price stay.
+                                Log.w(TAG, "No metadata for " + product.id, throwable);
+                                return;
+                            }
+                            holder.itemView.post(
+                                    () -> {
+                                        if (holder.product == product) {
+                                            holder.tvName.setText(metadata.name);
+                                            holder.tvPrice.setText(metadata.getFormattedPrice());
+                                        }
+                                    });
+                        });
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ViewHolder holder) {
+        holder.product = null;
+        ImageCache.getInstance(holder.itemView.getContext()).show(holder.ivProduct, null);
+    }
+
+    @Override
+    public int getItemCount() {
+        return products.size();
+    }
+}
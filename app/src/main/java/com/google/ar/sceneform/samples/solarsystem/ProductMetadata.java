@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.Locale;
+
+/** Name and price of a product as served by the metadata backend. */
+public class ProductMetadata {
+
+    public final String id;
+    public final String name;
+    public final long price;
+
+    public ProductMetadata(String id, String name, long price) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+    }
+
+    /** The price as shown on the cards, e.g. {@code "1,000원"}. */
+    public String getFormattedPrice() {
+        return String.format(Locale.KOREA, "%,d원", price);
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looks up product names and prices in batches.
+ *
+ * <p>Lookups made within {@link #BATCH_WINDOW_MS} of each other, such as every row bound in one
+ * layout pass, go out as a single request:
+ *
+ * <pre>
+ * POST {"ids":["gray_sofa","red_sofa"]}
+ * 200  [{"id":"gray_sofa","name":"회색 소파","price":320000}, ...]
+ * </pre>
+ *
+ * <p>The response is read with a streaming {@link JsonReader}, and each lookup completes as soon as
+ * its own object has been parsed, so the first cards fill before the rest of the batch arrives.
+ * Batches don't wait for each other; a new one can be sent while earlier ones are still streaming.
+ * Ids missing from the response fail their lookup. Results are kept for the life of the process.
+ *
+ * <p>Without a configured endpoint every lookup fails right away, see {@link #isEnabled()}. After a
+ * batch fails, lookups fail without a request for a back-off period that doubles with each further
+ * failure, up to {@link #MAX_BACKOFF_MS}, and resets on the next successful batch.
+ *
+ * <p>Plain Java, so it runs on the JVM against a local server.
+ */
+public class ProductMetadataClient {
+
+    private static final long BATCH_WINDOW_MS = 16;
+    private static final int MAX_BATCHES_IN_FLIGHT = 2;
+
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+
+    private static final long INITIAL_BACKOFF_MS = 1_000;
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    private static ProductMetadataClient instance;
+
+    private final String endpoint;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final ScheduledExecutorService executor =
+            Executors.newScheduledThreadPool(MAX_BATCHES_IN_FLIGHT);
+
+    private final Map<String, ProductMetadata> cache = new ConcurrentHashMap<>();
+    // Lookups waiting for the current batch window to close, or for their batch to answer.
+    private final Map<String, CompletableFuture<ProductMetadata>> pending = new HashMap<>();
+    private Map<String, CompletableFuture<ProductMetadata>> nextBatch = new LinkedHashMap<>();
+
+    private int consecutiveFailures;
+    private long retryAtNanos;
+    private IOException lastFailure;
+
+    public static synchronized ProductMetadataClient getInstance() {
+        if (instance == null) {
+            instance = new ProductMetadataClient(Data.PRODUCT_METADATA_ENDPOINT);
+        }
+        return instance;
+    }
+
+    /** @param endpoint batch lookup URL, or null or empty to disable lookups */
+    public ProductMetadataClient(String endpoint) {
+        this(endpoint, INITIAL_BACKOFF_MS, MAX_BACKOFF_MS);
+    }
+
+    ProductMetadataClient(String endpoint, long initialBackoffMs, long maxBackoffMs) {
+        this.endpoint = endpoint;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    /** Whether an endpoint is configured. Lookups fail immediately otherwise. */
+    public boolean isEnabled() {
+        return endpoint != null && !endpoint.isEmpty();
+    }
+
+    /**
+     * Completes on a network thread once the product's metadata has been parsed. Fails right away
+     * if lookups are disabled or backing off after a failed batch.
+     */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public synchronized CompletableFuture<ProductMetadata> get(String id) {
+        ProductMetadata cached = cache.get(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<ProductMetadata> future = pending.get(id);
+        if (future != null) {
+            return future;
+        }
+
+        future = new CompletableFuture<>();
+        if (!isEnabled()) {
+            future.completeExceptionally(
+                    new IllegalStateException("No product metadata endpoint configured"));
+            return future;
+        }
+        if (consecutiveFailures > 0 && retryAtNanos - System.nanoTime() > 0) {
+            future.completeExceptionally(
+                    new IOException(
+                            "Backing off after " + consecutiveFailures + " failed batches",
+                            lastFailure));
+            return future;
+        }
+
+        pending.put(id, future);
+        if (nextBatch.isEmpty()) {
+            executor.schedule(this::sendBatch, BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+        }
+        nextBatch.put(id, future);
+        return future;
+    }
+
+    private void sendBatch() {
+        Map<String, CompletableFuture<ProductMetadata>> batch;
+        synchronized (this) {
+            batch = nextBatch;
+            nextBatch = new LinkedHashMap<>();
+        }
+
+        // fetch() removes lookups from the batch as it completes them.
+        List<String> ids = new ArrayList<>(batch.keySet());
+        try {
+            fetch(ids, batch);
+            recordSuccess();
+            for (Map.Entry<String, CompletableFuture<ProductMetadata>> entry : batch.entrySet()) {
+                entry.getValue()
+                        .completeExceptionally(
+                                new IOException("No metadata for " + entry.getKey()));
+            }
+        } catch (IOException | RuntimeException e) {
+            recordFailure(e instanceof IOException ? (IOException) e : new IOException(e));
+            for (CompletableFuture<ProductMetadata> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+        } finally {
+            synchronized (this) {
+                pending.keySet().removeAll(ids);
+            }
+        }
+    }
+
+    private synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        lastFailure = null;
+    }
+
+    private synchronized void recordFailure(IOException failure) {
+        long backoffMs = initialBackoffMs << Math.min(consecutiveFailures, 20);
+        consecutiveFailures++;
+        retryAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                Math.min(backoffMs, maxBackoffMs));
+        lastFailure = failure;
+    }
+
+    /** Sends one batch and completes each lookup as its object is read. */
+    private void fetch(List<String> ids, Map<String, CompletableFuture<ProductMetadata>> batch)
+            throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(endpoint).openConnection();
+        try {
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json; charset=utf-8");
+
+            try (JsonWriter writer =
+                    new JsonWriter(
+                            new OutputStreamWriter(
+                                    connection.getOutputStream(), StandardCharsets.UTF_8))) {
+                writer.beginObject().name("ids").beginArray();
+                for (String id : ids) {
+                    writer.value(id);
+                }
+                writer.endArray().endObject();
+            }
+
+            int status = connection.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status + " from " + endpoint);
+            }
+
+            try (JsonReader reader =
+                    new JsonReader(
+                            new InputStreamReader(
+                                    connection.getInputStream(), StandardCharsets.UTF_8))) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    ProductMetadata metadata = readProduct(reader);
+                    CompletableFuture<ProductMetadata> future = batch.remove(metadata.id);
+                    if (future != null) {
+                        cache.put(metadata.id, metadata);
+                        future.complete(metadata);
+                    }
+                }
+                reader.endArray();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static ProductMetadata readProduct(JsonReader reader) throws IOException {
+        String id = null;
+        String name = null;
+        long price = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (field) {
+                case "id":
+                    id = reader.nextString();
+                    break;
+                case "name":
+                    name = reader.nextString();
+                    break;
+                case "price":
+                    price = reader.nextLong();
+                    break;
+                default:
+                    // Newer fields are ignored.
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if (id == null || name == null) {
+            throw new IOException("Product without id or name");
+        }
+        return new ProductMetadata(id, name, price);
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Downloads product images and .sfb models in the background and keeps them in a
+ * {@link DiskCache}.
+ *
+ * <p>A cached URL is revalidated with {@code If-None-Match} when the server gave it an ETag; a
+ * {@code 304} reuses the cached file without transferring the body again. If the network fails
+ * and a copy is cached, the cached copy is returned.
+ *
+ * <p>Concurrent fetches of the same URL share one download through {@link SingleFlight}; the
+ * download is abandoned once every caller has cancelled its future.
+ *
+ * <p>Apart from {@link #getInstance(Context)} this is plain Java, so it can run on the JVM against
+ * a local HTTP server.
+ */
+public class RemoteFetcher {
+
+    private static final String CACHE_DIRECTORY = "remote";
+    private static final long MAX_CACHE_BYTES = 64 * 1024 * 1024;
+    private static final int THREADS = 3;
+
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 30_000;
+
+    private static RemoteFetcher instance;
+
+    private final DiskCache diskCache;
+    private final ExecutorService executor;
+    private final SingleFlight<String, File> downloads;
+
+    public static synchronized RemoteFetcher getInstance(Context context) {
+        if (instance == null) {
+            File directory =
+                    new File(context.getApplicationContext().getCacheDir(), CACHE_DIRECTORY);
+            instance =
+                    new RemoteFetcher(
+                            new DiskCache(directory, MAX_CACHE_BYTES),
+                            Executors.newFixedThreadPool(THREADS));
+        }
+        return instance;
+    }
+
+    public RemoteFetcher(DiskCache diskCache, ExecutorService executor) {
+        this.diskCache = diskCache;
+        this.executor = executor;
+        this.downloads = new SingleFlight<>(executor);
+    }
+
+    /**
+     * Completes with a local file holding the body of {@code url}. Cancelling the future
+     * unsubscribes this caller only.
+     */
+    public CompletableFuture<File> fetch(String url) {
+        return downloads.execute(url, () -> fetchBlocking(url));
+    }
+
+    /** Downloads or revalidates {@code url} on the calling thread. */
+    public File fetchBlocking(String url) throws IOException {
+        DiskCache.Entry cached = diskCache.get(url);
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            // The cache does its own revalidation.
+            connection.setUseCaches(false);
+            if (cached != null && cached.etag != null) {
+                connection.setRequestProperty("If-None-Match", cached.etag);
+            }
+
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                diskCache.touch(url);
+                return cached.file;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status + " for " + url);
+            }
+
+            try (InputStream input = connection.getInputStream()) {
+                // A connection that drops early can end the stream without an error.
+                return diskCache
+                        .put(
+                                url,
+                                input,
+                                connection.getHeaderField("ETag"),
+                                connection.getContentLengthLong())
+                        .file;
+            }
+        } catch (IOException e) {
+            if (cached != null && cached.file.exists()) {
+                // Offline or server error: a stale copy beats nothing.
+                diskCache.touch(url);
+                return cached.file;
+            }
+            throw e;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /** Number of URLs currently being downloaded. */
+    public int getInFlightCount() {
+        return downloads.getInFlightCount();
+    }
+
+    /** Trims the disk cache to {@code bytes} on the download executor, off the caller's thread. */
+    @SuppressWarnings("AndroidApiChecker")
+    public CompletableFuture<Void> trimDiskCache(long bytes) {
+        return CompletableFuture.runAsync(() -> diskCache.trimToSize(bytes), executor);
+    }
+
+    public DiskCache getDiskCache() {
+        return diskCache;
+    }
+}
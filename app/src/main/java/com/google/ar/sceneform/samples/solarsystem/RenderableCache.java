@@ -0,0 +1,203 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import com.google.ar.sceneform.rendering.ModelRenderable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Process-wide cache of decoded {@link ModelRenderable}s keyed by asset URI.
+ *
+ * <p>Assets are packaged asset paths, or http(s) URLs downloaded through {@link RemoteFetcher}.
+ *
+ * <p>Concurrent loads of the same asset share one in-flight future, and every caller receives its
+ * own {@link ModelRenderable#makeCopy()} so nodes never share material state. Entries are evicted
+ * least-recently-used first once the estimated byte size exceeds the budget.
+ *
+ * <p>All methods must be called from the UI thread, like {@link ModelRenderable.Builder#build()}.
+ */
+public class RenderableCache {
+
+    private static final String TAG = RenderableCache.class.getSimpleName();
+
+    // Used when the asset size can't be read (e.g. the asset is stored compressed).
+    private static final long DEFAULT_ENTRY_BYTES = 1024 * 1024;
+
+    private static RenderableCache instance;
+
+    private final AssetLoadMetrics metrics = AssetLoadMetrics.getInstance();
+
+    // The builder has to be started on the UI thread, also for downloaded models.
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Executor mainExecutor = mainHandler::post;
+
+    private final long maxBytes;
+    private long currentBytes;
+
+    // Access-ordered so iteration starts at the least recently used entry.
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, CompletableFuture<ModelRenderable>> inFlight = new HashMap<>();
+
+    private static class Entry {
+        final ModelRenderable renderable;
+        final long bytes;
+
+        Entry(ModelRenderable renderable, long bytes) {
+            this.renderable = renderable;
+            this.bytes = bytes;
+        }
+    }
+
+    public static synchronized RenderableCache getInstance() {
+        if (instance == null) {
+            // An eighth of the heap, the same share the platform suggests for bitmap caches.
+            instance = new RenderableCache(Runtime.getRuntime().maxMemory() / 8);
+        }
+        return instance;
+    }
+
+    public RenderableCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a copy of the renderable for {@code asset}, loading it if it isn't cached or already
+     * being loaded.
+     */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public CompletableFuture<ModelRenderable> load(Context context, String asset) {
+        Entry entry = entries.get(asset);
+        if (entry != null) {
+            metrics.cacheHit(asset);
+            return CompletableFuture.completedFuture(entry.renderable.makeCopy());
+        }
+
+        CompletableFuture<ModelRenderable> original = inFlight.get(asset);
+        if (original == null) {
+            Context appContext = context.getApplicationContext();
+            long bytes = estimateBytes(appContext, asset);
+
+            metrics.started(asset, bytes);
+            if (isRemote(asset)) {
+                original =
+                        RemoteFetcher.getInstance(appContext)
+                                .fetch(asset)
+                                .thenComposeAsync(
+                                        file -> buildFromFile(appContext, file), mainExecutor);
+            } else {
+                // Read straight from the mapped APK instead of through the asset manager's streams.
+                original = ModelRenderable.builder()
+                        .setSource(appContext, MappedAssetSource.streamSource(appContext, asset))
+                        .build();
+            }
+            inFlight.put(asset, original);
+
+            original.handle(
+                    (renderable, throwable) -> {
+                        inFlight.remove(asset);
+                        metrics.finished(asset, throwable != null);
+                        if (throwable == null) {
+                            put(asset, renderable, bytes);
+                        }
+                        return null;
+                    });
+        }
+
+        return original.thenApply(ModelRenderable::makeCopy);
+    }
+
+    /** Whether {@code asset} is a URL to download rather than a packaged asset path. */
+    public static boolean isRemote(String asset) {
+        return asset.startsWith("https://") || asset.startsWith("http://");
+    }
+
+    /** Returns true if {@code asset} is decoded and can be handed out without loading. */
+    public boolean contains(String asset) {
+        return entries.containsKey(asset);
+    }
+
+    public void evictAll() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public long getCurrentBytes() {
+        return currentBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private static CompletableFuture<ModelRenderable> buildFromFile(Context context, File file) {
+        return ModelRenderable.builder()
+                .setSource(context, () -> new FileInputStream(file))
+                .build();
+    }
+
+    private void put(String asset, ModelRenderable renderable, long bytes) {
+        Entry previous = entries.put(asset, new Entry(renderable, bytes));
+        if (previous != null) {
+            currentBytes -= previous.bytes;
+        }
+        currentBytes += bytes;
+        trimToSize();
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        // Always keep the most recent entry, even if it alone is over budget.
+        while (currentBytes > maxBytes && entries.size() > 1 && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            currentBytes -= eldest.getValue().bytes;
+            it.remove();
+            Log.d(TAG, "Evicted " + eldest.getKey());
+        }
+    }
+
+    /**
+     * Uses the loaded size from the {@link AssetIndex}, or else the .sfb length, which the decoded
+     * renderable roughly tracks.
+     */
+    private static long estimateBytes(Context context, String asset) {
+        if (isRemote(asset)) {
+            return DEFAULT_ENTRY_BYTES;
+        }
+        AssetIndex.Entry entry = AssetIndex.getInstance(context).get(asset);
+        if (entry != null) {
+            return entry.toBudget().getTotalBytes();
+        }
+        try (AssetFileDescriptor fd = context.getAssets().openFd(asset)) {
+            return fd.getLength();
+        } catch (IOException e) {
+            return DEFAULT_ENTRY_BYTES;
+        }
+    }
+}
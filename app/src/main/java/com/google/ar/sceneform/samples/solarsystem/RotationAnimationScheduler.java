@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.support.annotation.Nullable;
+import com.google.ar.sceneform.FrameTime;
+import com.google.ar.sceneform.Scene;
+import java.util.ArrayList;
+
+/**
+ * Advances every active {@link RotatingNode} once per frame from a single scene update listener.
+ *
+ * <p>Speed multipliers are read from {@link SolarSettings} once per frame rather than by each node.
+ * Nodes register themselves while active; the scheduler attaches to the scene of the first node
+ * registered. All calls are on the UI thread, like the scene's own updates.
+ */
+public class RotationAnimationScheduler implements Scene.OnUpdateListener {
+  /** Something turned every frame; {@link RotatingNode} in the app. */
+  interface Target {
+    /** Whether the orbit speed setting applies rather than the rotation speed one. */
+    boolean isOrbit();
+
+    /** Turns by {@code scaledSeconds} worth of rotation. */
+    void advance(float scaledSeconds);
+  }
+
+  private final SolarSettings solarSettings;
+  private final ArrayList<Target> targets = new ArrayList<>();
+  @Nullable private Scene scene;
+  private boolean paused;
+
+  public RotationAnimationScheduler(SolarSettings solarSettings) {
+    this.solarSettings = solarSettings;
+  }
+
+  /** Starts advancing {@code node}, which must be in a scene. */
+  void register(RotatingNode node) {
+    Scene nodeScene = node.getScene();
+    if (nodeScene != scene) {
+      detach();
+      scene = nodeScene;
+      if (scene != null) {
+        scene.addOnUpdateListener(this);
+      }
+    }
+    add(node);
+  }
+
+  void unregister(RotatingNode node) {
+    remove(node);
+    if (targets.isEmpty()) {
+      detach();
+    }
+  }
+
+  /** Starts turning {@code target} on {@link #advance}, without attaching to a scene. */
+  void add(Target target) {
+    if (!targets.contains(target)) {
+      targets.add(target);
+    }
+  }
+
+  void remove(Target target) {
+    targets.remove(target);
+  }
+
+  /** Freezes every rotation where it is, e.g. while the activity is paused. */
+  public void pause() {
+    paused = true;
+  }
+
+  /** Continues from where {@link #pause} stopped, without jumping ahead. */
+  public void resume() {
+    paused = false;
+  }
+
+  public boolean isPaused() {
+    return paused;
+  }
+
+  public int getNodeCount() {
+    return targets.size();
+  }
+
+  @Override
+  public void onUpdate(FrameTime frameTime) {
+    advance(frameTime.getDeltaSeconds());
+  }
+
+  /** Turns every target by one frame of {@code deltaSeconds}, unless paused. */
+  void advance(float deltaSeconds) {
+    if (paused || targets.isEmpty()) {
+      return;
+    }
+    float orbitDelta = deltaSeconds * solarSettings.getOrbitSpeedMultiplier();
+    float rotationDelta = deltaSeconds * solarSettings.getRotationSpeedMultiplier();
+    for (int i = 0; i < targets.size(); i++) {
+      Target target = targets.get(i);
+      target.advance(target.isOrbit() ? orbitDelta : rotationDelta);
+    }
+  }
+
+  private void detach() {
+    if (scene != null) {
+      scene.removeOnUpdateListener(this);
+      scene = null;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs at most one task per key at a time and shares its result with every caller that asks for
+ * the same key while it runs.
+ *
+ * <p>Each caller gets its own future, so cancelling it only unsubscribes that caller. When the last
+ * subscriber cancels, the task is cancelled too and its thread interrupted. Tasks run on the given
+ * executor, never on the caller's thread.
+ *
+ * <p>Plain Java and thread-safe.
+ */
+public class SingleFlight<K, V> {
+
+    private final ExecutorService executor;
+    private final Map<K, Flight> flights = new HashMap<>();
+
+    private class Flight {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        Future<?> task;
+        int subscribers;
+    }
+
+    public SingleFlight(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /** Subscribes to the task running for {@code key}, starting {@code task} if there is none. */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    public CompletableFuture<V> execute(K key, Callable<V> task) {
+        Flight flight;
+        synchronized (this) {
+            flight = flights.get(key);
+            if (flight == null) {
+                Flight started = new Flight();
+                flights.put(key, started);
+                started.task = executor.submit(() -> run(key, started, task));
+                flight = started;
+            }
+            flight.subscribers++;
+        }
+
+        Flight subscribed = flight;
+        CompletableFuture<V> subscriber = new CompletableFuture<>();
+        subscribed.result.whenComplete(
+                (value, throwable) -> {
+                    if (throwable != null) {
+                        subscriber.completeExceptionally(throwable);
+                    } else {
+                        subscriber.complete(value);
+                    }
+                });
+        subscriber.whenComplete(
+                (value, throwable) -> {
+                    if (subscriber.isCancelled()) {
+                        unsubscribe(key, subscribed);
+                    }
+                });
+        return subscriber;
+    }
+
+    /** Number of keys with a task still running. */
+    public synchronized int getInFlightCount() {
+        return flights.size();
+    }
+
+    private void run(K key, Flight flight, Callable<V> task) {
+        V value = null;
+        Throwable failure = null;
+        try {
+            value = task.call();
+        } catch (Throwable t) {
+            failure = t;
+        }
+        synchronized (this) {
+            if (flights.get(key) == flight) {
+                flights.remove(key);
+            }
+        }
+        if (failure != null) {
+            flight.result.completeExceptionally(failure);
+        } else {
+            flight.result.complete(value);
+        }
+    }
+
+    private synchronized void unsubscribe(K key, Flight flight) {
+        if (--flight.subscribers > 0 || flight.result.isDone()) {
+            return;
+        }
+        if (flights.get(key) == flight) {
+            flights.remove(key);
+        }
+        flight.task.cancel(true);
+        flight.result.cancel(false);
+    }
+}
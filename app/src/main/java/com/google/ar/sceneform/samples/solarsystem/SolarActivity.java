@@ -17,25 +17,24 @@ package com.google.ar.sceneform.samples.solarsystem;
 
 import android.content.Intent;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.ImageFormat;
 import android.hardware.camera2.CameraDevice;
 import android.hardware.camera2.CameraManager;
 import android.media.Image;
 import android.media.ImageReader;
-import android.net.Uri;
 import android.os.Bundle;
+import android.os.Environment;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.design.widget.Snackbar;
 import android.support.v7.app.AppCompatActivity;
 import android.util.DisplayMetrics;
 import android.util.Log;
-import android.util.Size;
 import android.view.GestureDetector;
-import android.view.Gravity;
 import android.view.MotionEvent;
+import android.view.PixelCopy;
 import android.view.View;
 import android.view.WindowManager;
 import android.widget.ImageView;
@@ -46,34 +45,40 @@ import com.google.ar.core.Anchor;
 import com.google.ar.core.Frame;
 import com.google.ar.core.HitResult;
 import com.google.ar.core.Plane;
+import com.google.ar.core.Pose;
 import com.google.ar.core.Session;
 import com.google.ar.core.SharedCamera;
 import com.google.ar.core.Trackable;
 import com.google.ar.core.TrackingState;
 import com.google.ar.core.exceptions.CameraNotAvailableException;
+import com.google.ar.core.exceptions.NotYetAvailableException;
 import com.google.ar.core.exceptions.UnavailableException;
 import com.google.ar.sceneform.AnchorNode;
 import com.google.ar.sceneform.ArSceneView;
+import com.google.ar.sceneform.FrameTime;
 import com.google.ar.sceneform.HitTestResult;
 import com.google.ar.sceneform.Node;
+import com.google.ar.sceneform.Scene;
 import com.google.ar.sceneform.math.Vector3;
 import com.google.ar.sceneform.rendering.ModelRenderable;
 import com.google.ar.sceneform.rendering.ViewRenderable;
-import com.google.ar.sceneform.ux.ArFragment;
 import com.google.ar.sceneform.ux.BaseTransformableNode;
 import com.google.ar.sceneform.ux.FootprintSelectionVisualizer;
 import com.google.ar.sceneform.ux.SelectionVisualizer;
 import com.google.ar.sceneform.ux.TransformableNode;
 import com.google.ar.sceneform.ux.TransformationSystem;
 
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * This is a simple example that shows how to create an augmented reality (AR) application using the
@@ -85,7 +90,7 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
 
     //AR 뷰
     private ArSceneView arSceneView;
-    private ArFragment arFragment;
+    private CameraArFragment arFragment;
 
     //ModelRenderable
     ModelRenderable robotRenderable;
@@ -96,9 +101,31 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
     private ImageReader cpuImageReader;             // Image reader that continuously processes CPU images.
     private Handler backgroundHandler;              // Looper handler.
     private HandlerThread backgroundThread;         // Looper handler thread.
-    private int cpuImagesProcessed;                 // Total number of CPU images processed.
+    private final FrameStats frameStats = new FrameStats(); // CPU image counters and latency, readable from any thread.
+    private volatile Pose latestCameraPose;         // Camera pose of the last tracked ARCore frame.
+    private final Scene.OnUpdateListener cameraPoseListener = this::updateCameraPose;
+    // ArFragment mode: CPU images come from the fragment's frames, one in flight at a time.
+    private final Scene.OnUpdateListener cameraImageListener = this::acquireCameraImage;
+    private final AtomicBoolean cameraImageInFlight = new AtomicBoolean(false);
+    private long lastCameraImageTimestamp = -1;     // Only touched on the UI thread.
     private CameraDevice cameraDevice;              // Camera device. Used by both non-AR and AR modes;
 
+    //카메라 영상 분석 (가구 추천용)
+    private final FrameProcessorChain frameProcessorChain = new FrameProcessorChain();
+    private final MotionDetector motionDetector = new MotionDetector();
+    private final FloorColorSampler floorColorSampler = new FloorColorSampler();
+    private final CameraSnapshot cameraSnapshot = new CameraSnapshot(Data.SNAPSHOT_SCALE_SHIFT);
+    private FrameRecorder frameRecorder;            // Debug recording, off by default.
+    // Full-resolution frames are analysed in bands of 64 rows on the common fork-join pool.
+    private final LightingAnalyzer lightingAnalyzer =
+            new LightingAnalyzer(new TiledPlaneExecutor(ForkJoinPool.commonPool(), 64));
+    // Processing may take 10ms per frame on average; frames over that are dropped.
+    // FrameDropPolicy.latestWins() or everyNth(n) trade differently.
+    private static final long CPU_FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private final FrameDropPolicy frameDropPolicy =
+            FrameDropPolicy.timeBudget(CPU_FRAME_BUDGET_NANOS);
+    private CameraConfigSelector.Selection cameraConfigSelection;
+
     //카메라 테스트용
     private final AtomicBoolean automatorRun = new AtomicBoolean(false);
 
@@ -116,6 +143,7 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
 
     //쇼핑카트
     ImageView ivCart;
+    ImageView ivSnapshot;
 
 
 
@@ -157,9 +185,31 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
     private ViewRenderable solarControlsRenderable;
 
     private final SolarSettings solarSettings = new SolarSettings();
+    // Advances every RotatingNode from one scene update listener.
+    private final RotationAnimationScheduler rotationScheduler =
+            new RotationAnimationScheduler(solarSettings);
+    // Turns info and price cards towards the camera.
+    private final BillboardManager billboardManager = new BillboardManager();
+
+    // Per-asset loading state.
+    private final LoadingCoordinator loadingCoordinator = new LoadingCoordinator();
+
+    // Loads models on demand, two at a time.
+    private ModelLoadQueue modelLoadQueue;
+    private static final int MAX_CONCURRENT_MODEL_LOADS = 2;
 
-    // True once scene is loaded
-    private boolean hasFinishedLoading = false;
+    // Screen height fraction above which each mesh level of detail is used.
+    private static final float[] LOD_COVERAGE_THRESHOLDS = {0.25f, 0.08f, 0.0f};
+
+    private static final String ASSET_SOL = "Sol.sfb";
+    private static final String ASSET_MERCURY = "Mercury.sfb";
+    private static final String KEY_SOLAR_CONTROLS = "solar_controls";
+
+    // The product placed on tap, picked in the catalog (MainActivity).
+    private String productAsset = ASSET_MERCURY;
+    // Pending load of the product, cancelled when another one is picked.
+    private ModelLoadQueue.Request productRequest;
+    private final Map<String, ModelRenderable> productRenderables = new HashMap<>();
 
     // True once the scene has been placed.
     private boolean hasPlacedSolarSystem = false;
@@ -187,9 +237,42 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
             startActivity(intent);
         });
 
+        modelLoadQueue =
+                new ModelLoadQueue(
+                        this,
+                        RenderableCache.getInstance(),
+                        TextureQualityTier.select(this),
+                        MAX_CONCURRENT_MODEL_LOADS);
+        setLoadingCoordinatorListeners();
+
+        frameProcessorChain.add(motionDetector);
+        frameProcessorChain.setStillSignal(motionDetector::isStill);
+        frameProcessorChain.add(floorColorSampler);
+        frameProcessorChain.add(lightingAnalyzer);
+        frameProcessorChain.add(cameraSnapshot);
+        if (BuildConfig.DEBUG && Data.RECORD_CAMERA_FRAMES) {
+            frameRecorder =
+                    new FrameRecorder(
+                            new File(getExternalFilesDir(null), Data.FILE_CAMERA_RECORDING),
+                            Data.RECORDING_SLOTS,
+                            Data.RECORDING_RATE);
+            frameProcessorChain.add(frameRecorder);
+        }
+
+        ivSnapshot = findViewById(R.id.iv_snapshot);
+        ivSnapshot.setOnClickListener(v -> requestSceneSnapshot());
+
+        if (BuildConfig.DEBUG && Data.RUN_ASSET_LOAD_BENCHMARK) {
+            new AssetLoadBenchmark(this, Data.BENCHMARK_ASSET, Data.BENCHMARK_ITERATIONS).run();
+        }
+
         if(isArFragmentMode){
-            arFragment = (ArFragment) getSupportFragmentManager().findFragmentById(R.id.ux_fragment);
+            arFragment =
+                    (CameraArFragment) getSupportFragmentManager().findFragmentById(R.id.ux_fragment);
+            // The fragment creates its session after this, so the camera config can still change.
+            arFragment.setCameraBudget(cameraBudget());
 
+            selectProduct(getIntent());
             createModelRenderable();
 
             setOnTapArPlaneListener();
@@ -229,119 +312,225 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
     * arFragment있을때
     * */
     private void createModelRenderable(){
-        ModelRenderable.builder()
-                .setSource(this, Uri.parse("Mercury.sfb"))
-                .build()
-                .thenAccept(renderable -> mercuryRenderable = renderable)
-                .exceptionally(
-                        throwable -> {
-                            Toast toast =
-                                    Toast.makeText(this, "Unable to load andy renderable", Toast.LENGTH_LONG);
-                            toast.setGravity(Gravity.CENTER, 0, 0);
-                            toast.show();
-                            return null;
-                        }
-                );
+        // The product on display is loaded in the background; a tap moves it to the front.
+        requestProduct();
+
+        loadingCoordinator.register(
+                KEY_SOLAR_CONTROLS,
+                AssetLoadMetrics.getInstance().track(
+                        KEY_SOLAR_CONTROLS,
+                        0,
+                        () -> ViewRenderable.builder().setView(this, R.layout.solar_controls).build()),
+                renderable -> {
+                    solarControlsRenderable = renderable;
+                    bindProductImage(renderable.getView());
+                });
+    }
 
-        CompletableFuture<ViewRenderable> solarControlsStage
-                =  ViewRenderable.builder().setView(this, R.layout.solar_controls).build();
+    /**
+    * 상품 이미지는 카드 크기로 줄여서 디코딩
+    * */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    private void bindProductImage(View solarControlsView){
+        ImageView productImage = solarControlsView.findViewById(R.id.chair_img);
+        if(productImage.getVisibility() == View.GONE){
+            // Not shown on the card, so don't decode it at all.
+            return;
+        }
+        ImageCache imageCache = ImageCache.getInstance(this);
+        imageCache
+                .loadResource(
+                        R.drawable.img,
+                        productImage.getLayoutParams().width,
+                        productImage.getLayoutParams().height)
+                .thenAccept(
+                        bitmap -> productImage.post(() -> imageCache.show(productImage, bitmap)));
+    }
 
-        CompletableFuture.allOf(
-                solarControlsStage)
-                .handle(
-                        (notUsed, throwable) -> {
-                            // When you build a Renderable, Sceneform loads its resources in the background while
-                            // returning a CompletableFuture. Call handle(), thenAccept(), or check isDone()
-                            // before calling get().
+    /**
+    * 카탈로그에서 다른 상품을 고르고 돌아온 경우
+    * */
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        setIntent(intent);
+        ModelLoadQueue.Request previousRequest = productRequest;
+        if (isArFragmentMode && selectProduct(intent)) {
+            if (previousRequest != null) {
+                // Taps waiting on the previous product drop their anchors.
+                modelLoadQueue.cancel(previousRequest);
+            }
+            requestProduct();
+        }
+    }
 
-                            if (throwable != null) {
-                                DemoUtils.displayError(this, "Unable to load renderable", throwable);
-                                return null;
-                            }
+    /**
+    * 배치할 상품 변경
+    * */
+    private boolean selectProduct(Intent intent){
+        String asset = intent.getStringExtra(Data.EXTRA_PRODUCT_ASSET);
+        if(asset == null || asset.equals(productAsset)){
+            return false;
+        }
+        productAsset = asset;
+        // Counts as a prefetch hit if the catalog already warmed the model.
+        PrefetchStats.getInstance().recordUse(asset, modelLoadQueue.isCached(asset));
+        return true;
+    }
 
-                            try {
-                                solarControlsRenderable = solarControlsStage.get();
+    /**
+    * 배치할 상품 모델 로드
+    * */
+    private void requestProduct(){
+        String asset = productAsset;
+        productRequest = requestModel(
+                asset, ModelLoadQueue.Priority.VISIBLE, r -> productRenderables.put(asset, r));
+    }
 
-                                // Everything finished loading successfully.
-                                hasFinishedLoading = true;
+    /**
+    * 상품 이름/가격은 서버에서 받아서 카드에 표시
+    * */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    private void bindProductInfo(View solarControlsView, String asset){
+        Product product = Product.forModelAsset(asset);
+        if(product == null){
+            return;
+        }
+        TextView tvName = solarControlsView.findViewById(R.id.tv_name);
+        TextView tv = solarControlsView.findViewById(R.id.tv);
+        tvName.setText(product.name);
+        tv.setText(product.price);
 
-                            } catch (InterruptedException | ExecutionException ex) {
-                                DemoUtils.displayError(this, "Unable to load renderable", ex);
-                            }
+        ProductMetadataClient metadataClient = ProductMetadataClient.getInstance();
+        if (!metadataClient.isEnabled()) {
+            return;
+        }
+        metadataClient
+                .get(product.id)
+                .whenComplete((metadata, throwable) -> {
+                    if (throwable != null) {
+                        Log.w(TAG, "No metadata for " + product.id, throwable);
+                        return;
+                    }
+                    solarControlsView.post(() -> {
+                        tvName.setText(metadata.name);
+                        tv.setText(metadata.getFormattedPrice());
+                    });
+                });
+    }
 
-                            return null;
-                        });
+    /**
+    * 모델 로드 요청 (이미 로드된 경우 null)
+    * */
+    private ModelLoadQueue.Request requestModel(
+            String asset, ModelLoadQueue.Priority priority, Consumer<ModelRenderable> onReady) {
+        if (loadingCoordinator.isReady(asset)) {
+            return null;
+        }
+        ModelLoadQueue.Request request = modelLoadQueue.request(asset, priority);
+        loadingCoordinator.register(asset, request.getFuture(), onReady);
+        return request;
+    }
 
+    /**
+    * 에셋별 로딩 상태
+    * */
+    private void setLoadingCoordinatorListeners(){
+        loadingCoordinator.setOnErrorListener(
+                (key, throwable) -> DemoUtils.displayError(this, "Unable to load " + key, throwable));
+        loadingCoordinator.setOnProgressListener(
+                (completed, total) -> Log.d(TAG, "Loaded " + completed + "/" + total + " assets"));
     }
 
     private void setOnTapArPlaneListener(){
         arFragment.setOnTapArPlaneListener(
                 ((hitResult, plane, motionEvent) -> {
-                    if(mercuryRenderable==null){
-                        return;
+                    // The hit is only valid now, but the node joins the scene once loaded.
+                    Anchor anchor = hitResult.createAnchor();
+
+                    String asset = productAsset;
+                    if(!loadingCoordinator.isReady(asset)){
+                        // Still queued or loading; the tapped item goes first.
+                        modelLoadQueue.prioritize(asset, ModelLoadQueue.Priority.TAPPED);
                     }
+                    loadingCoordinator.whenReady(
+                            () -> placeProduct(anchor, asset),
+                            anchor::detach,
+                            asset,
+                            KEY_SOLAR_CONTROLS);
+                })
+        );
+    }
 
-                    Anchor anchor = hitResult.createAnchor();
-                    AnchorNode anchorNode = new AnchorNode(anchor);
-                    anchorNode.setParent(arFragment.getArSceneView().getScene());
+    private void placeProduct(Anchor anchor, String asset){
+        if(anchor.getTrackingState() == TrackingState.STOPPED){
+            // Lost while the model was loading.
+            return;
+        }
+        AnchorNode anchorNode = new AnchorNode(anchor);
+        anchorNode.setParent(arFragment.getArSceneView().getScene());
 
-                    TransformableNode mercury = new TransformableNode(arFragment.getTransformationSystem());
-                    mercury.setParent(anchorNode);
-                    mercury.setLocalScale(new Vector3(0.5f, 0.5f, 0.5f));
-                    mercury.setRenderable(mercuryRenderable);
-                    mercury.select();
+        TransformableNode product = new TransformableNode(arFragment.getTransformationSystem());
+        product.setParent(anchorNode);
+        product.setLocalScale(new Vector3(0.5f, 0.5f, 0.5f));
+        product.setRenderable(productRenderables.get(asset));
+        product.select();
 
-                    Node infoCard = new Node();
-                    infoCard.setParent(anchorNode);
-                    infoCard.setRenderable(solarControlsRenderable);
-                    infoCard.setLocalScale(new Vector3(0.7f, 0.7f, 0.7f));
-                    infoCard.setLocalPosition(new Vector3(0.0f, 0.6f, 0.0f));
+        Node infoCard = new Node();
+        infoCard.setParent(anchorNode);
+        infoCard.setRenderable(solarControlsRenderable);
+        infoCard.setLocalScale(new Vector3(0.7f, 0.7f, 0.7f));
+        infoCard.setLocalPosition(new Vector3(0.0f, 0.6f, 0.0f));
+        billboardManager.register(infoCard);
 
-                    View solarControlsView = solarControlsRenderable.getView();
+        View solarControlsView = solarControlsRenderable.getView();
 
-                    TextView tv = solarControlsView.findViewById(R.id.tv);
-//                    SeekBar sb = solarControlsView.findViewById(R.id.sb);
+        TextView tv = solarControlsView.findViewById(R.id.tv);
+        bindProductInfo(solarControlsView, asset);
+//        SeekBar sb = solarControlsView.findViewById(R.id.sb);
 //
-//                    sb.setProgress(1000);
-//                    sb.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
-//                        @Override
-//                        public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
-//                            tv.setText(progress+"원");
-//                        }
+//        sb.setProgress(1000);
+//        sb.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+//            @Override
+//            public void onProgressChanged(SeekBar seekBar, int progress, boolean fromUser) {
+//                tv.setText(progress+"원");
+//            }
 //
-//                        @Override
-//                        public void onStartTrackingTouch(SeekBar seekBar) {
+//            @Override
+//            public void onStartTrackingTouch(SeekBar seekBar) {
 //
-//                        }
+//            }
 //
-//                        @Override
-//                        public void onStopTrackingTouch(SeekBar seekBar) {
+//            @Override
+//            public void onStopTrackingTouch(SeekBar seekBar) {
 //
-//                        }
-//                    });
-                })
-        );
+//            }
+//        });
     }
 
     private void openCameraForSharing(){
 
-        Session sharedSession = arFragment.getArSceneView().getSession();
+        Session sharedSession = arSceneView.getSession();
 
         sharedCamera = sharedSession.getSharedCamera();
 
         cameraId = sharedSession.getCameraConfig().getCameraId();
 
-        Size desiredCpuImageSize = sharedSession.getCameraConfig().getImageSize();
+        cameraConfigSelection = CameraConfigs.forCurrentConfig(sharedSession, cameraBudget());
+        Log.i(TAG, "Camera " + cameraConfigSelection);
         cpuImageReader = ImageReader.newInstance(
-                desiredCpuImageSize.getWidth(),
-                desiredCpuImageSize.getHeight(),
+                cameraConfigSelection.getImageWidth(),
+                cameraConfigSelection.getImageHeight(),
                 ImageFormat.YUV_420_888,
-                2
+                cameraConfigSelection.getReaderDepth()
         );
+        frameStats.onCameraRestarted();
         cpuImageReader.setOnImageAvailableListener(this, backgroundHandler);
 
         sharedCamera.setAppSurfaces(cameraId, Arrays.asList(cpuImageReader.getSurface()));
 
+        arSceneView.getScene().addOnUpdateListener(cameraPoseListener);
+
 //        try{
 //            CameraDevice.StateCallback wrappedCallback =
 //                    sharedCamera.createARDeviceStateCallback(camera);
@@ -349,6 +538,72 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
 
     }
 
+    /**
+    * 카메라 설정 선택 기준 (CPU 이미지 처리 예산)
+    * */
+    private CameraConfigSelector.Budget cameraBudget(){
+        DisplayMetrics displayMetrics = getResources().getDisplayMetrics();
+        return new CameraConfigSelector.Budget(
+                Data.CPU_IMAGE_MIN_WIDTH,
+                Data.CPU_IMAGE_MIN_HEIGHT,
+                (long) displayMetrics.widthPixels * displayMetrics.heightPixels,
+                CPU_FRAME_BUDGET_NANOS,
+                Data.CPU_NANOS_PER_PIXEL,
+                TimeUnit.SECONDS.toNanos(1) / Data.CAMERA_FPS);
+    }
+
+    /**
+    * CPU 이미지에 붙일 카메라 포즈
+    * */
+    private void updateCameraPose(FrameTime frameTime){
+        latestCameraPose = getTrackedPose(arSceneView.getArFrame());
+    }
+
+    @Nullable
+    private static Pose getTrackedPose(@Nullable Frame frame){
+        boolean tracking = frame != null
+                && frame.getCamera().getTrackingState() == TrackingState.TRACKING;
+        return tracking ? frame.getCamera().getPose() : null;
+    }
+
+    /**
+    * ArFragment 모드의 CPU 이미지 (공유 카메라 대신 ARCore 프레임에서 받음)
+    * */
+    private void acquireCameraImage(FrameTime frameTime){
+        Frame frame = arFragment.getArSceneView().getArFrame();
+        Handler handler = backgroundHandler;
+        if (frame == null || handler == null || frame.getTimestamp() == lastCameraImageTimestamp) {
+            return;
+        }
+        lastCameraImageTimestamp = frame.getTimestamp();
+        if (!cameraImageInFlight.compareAndSet(false, true)) {
+            // Still busy with the previous image. This one is never acquired, so FrameStats counts
+            // it as skipped from the timestamp gap, like acquireLatestImage() does.
+            return;
+        }
+
+        long acquireNanos = System.nanoTime();
+        Image image;
+        try {
+            image = frame.acquireCameraImage();
+        } catch (NotYetAvailableException e) {
+            cameraImageInFlight.set(false);
+            return;
+        }
+        Pose cameraPose = getTrackedPose(frame);
+        boolean posted = handler.post(() -> {
+            try {
+                processCameraImage(image, cameraPose, acquireNanos);
+            } finally {
+                cameraImageInFlight.set(false);
+            }
+        });
+        if (!posted) {
+            image.close();
+            cameraImageInFlight.set(false);
+        }
+    }
+
     /**
     * backgroundHandler관리
     * */
@@ -376,77 +631,30 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
     * */
     private void createRenderables(){
 
-          // Build all the planet models.
-          CompletableFuture<ModelRenderable> sunStage =
-                  ModelRenderable.builder().setSource(this, Uri.parse("Sol.sfb")).build();
-          CompletableFuture<ModelRenderable> mercuryStage =
-                  ModelRenderable.builder().setSource(this, Uri.parse("Mercury.sfb")).build();
-          CompletableFuture<ModelRenderable> venusStage =
-                  ModelRenderable.builder().setSource(this, Uri.parse("Venus.sfb")).build();
-          CompletableFuture<ModelRenderable> earthStage =
-                  ModelRenderable.builder().setSource(this, Uri.parse("Earth.sfb")).build();
-          CompletableFuture<ModelRenderable> lunaStage =
-                  ModelRenderable.builder().setSource(this, Uri.parse("Luna.sfb")).build();
-          CompletableFuture<ModelRenderable> marsStage =
-                  ModelRenderable.builder().setSource(this, Uri.parse("Mars.sfb")).build();
-          CompletableFuture<ModelRenderable> jupiterStage =
-                  ModelRenderable.builder().setSource(this, Uri.parse("Jupiter.sfb")).build();
-          CompletableFuture<ModelRenderable> saturnStage =
-                  ModelRenderable.builder().setSource(this, Uri.parse("Saturn.sfb")).build();
-          CompletableFuture<ModelRenderable> uranusStage =
-                  ModelRenderable.builder().setSource(this, Uri.parse("Uranus.sfb")).build();
-          CompletableFuture<ModelRenderable> neptuneStage =
-                  ModelRenderable.builder().setSource(this, Uri.parse("Neptune.sfb")).build();
+          // Only the sun is placed right away; the other planets are fetched speculatively once it is
+          // loaded. Assets that are already cached are handed out immediately.
+          requestModel(ASSET_SOL, ModelLoadQueue.Priority.VISIBLE, r -> sunRenderable = r);
+          requestModel(ASSET_MERCURY, ModelLoadQueue.Priority.PREFETCH, r -> mercuryRenderable = r);
+          requestModel("Venus.sfb", ModelLoadQueue.Priority.PREFETCH, r -> venusRenderable = r);
+          requestModel("Earth.sfb", ModelLoadQueue.Priority.PREFETCH, r -> earthRenderable = r);
+          requestModel("Luna.sfb", ModelLoadQueue.Priority.PREFETCH, r -> lunaRenderable = r);
+          requestModel("Mars.sfb", ModelLoadQueue.Priority.PREFETCH, r -> marsRenderable = r);
+          requestModel("Jupiter.sfb", ModelLoadQueue.Priority.PREFETCH, r -> jupiterRenderable = r);
+          requestModel("Saturn.sfb", ModelLoadQueue.Priority.PREFETCH, r -> saturnRenderable = r);
+          requestModel("Uranus.sfb", ModelLoadQueue.Priority.PREFETCH, r -> uranusRenderable = r);
+          requestModel("Neptune.sfb", ModelLoadQueue.Priority.PREFETCH, r -> neptuneRenderable = r);
 
           //2D View
-          CompletableFuture<ViewRenderable> solarControlsStage
-                  =  ViewRenderable.builder().setView(this, R.layout.solar_controls).build();
-
-          CompletableFuture.allOf(
-                  sunStage,
-                  mercuryStage,
-                  venusStage,
-                  earthStage,
-                  lunaStage,
-                  marsStage,
-                  jupiterStage,
-                  saturnStage,
-                  uranusStage,
-                  neptuneStage,
-                  solarControlsStage)
-                  .handle(
-                          (notUsed, throwable) -> {
-                              // When you build a Renderable, Sceneform loads its resources in the background while
-                              // returning a CompletableFuture. Call handle(), thenAccept(), or check isDone()
-                              // before calling get().
-
-                              if (throwable != null) {
-                                  DemoUtils.displayError(this, "Unable to load renderable", throwable);
-                                  return null;
-                              }
-
-                              try {
-                                  sunRenderable = sunStage.get();
-                                  mercuryRenderable = mercuryStage.get();
-                                  venusRenderable = venusStage.get();
-                                  earthRenderable = earthStage.get();
-                                  lunaRenderable = lunaStage.get();
-                                  marsRenderable = marsStage.get();
-                                  jupiterRenderable = jupiterStage.get();
-                                  saturnRenderable = saturnStage.get();
-                                  uranusRenderable = uranusStage.get();
-                                  neptuneRenderable = neptuneStage.get();
-                                  solarControlsRenderable = solarControlsStage.get();
-
-                                  // Everything finished loading successfully.
-                                  hasFinishedLoading = true;
-
-                              } catch (InterruptedException | ExecutionException ex) {
-                                  DemoUtils.displayError(this, "Unable to load renderable", ex);
-                              }
-
-                              return null;
-                          });
+          loadingCoordinator.register(
+                  KEY_SOLAR_CONTROLS,
+                  AssetLoadMetrics.getInstance().track(
+                          KEY_SOLAR_CONTROLS,
+                          0,
+                          () -> ViewRenderable.builder().setView(this, R.layout.solar_controls).build()),
+                  r -> {
+                      solarControlsRenderable = r;
+                      bindProductImage(r.getView());
+                  });
 
     }
 
@@ -531,6 +739,16 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
     @Override
     protected void onResume() {
         super.onResume();
+        rotationScheduler.resume();
+        startBackgroundThread();
+        if (isArFragmentMode) {
+            // ArFragment owns the session and doesn't share its camera, so there is no
+            // ImageReader; its frames' CPU images go through the same chain instead.
+            frameStats.onCameraRestarted();
+            lastCameraImageTimestamp = -1;
+            arFragment.getArSceneView().getScene().addOnUpdateListener(cameraImageListener);
+            return;
+        }
         if (arSceneView == null) {
           return;
         }
@@ -544,6 +762,8 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
                     installRequested = DemoUtils.hasCameraPermission(this);
                     return;
                 } else {
+                    // The config can only change before the session is first resumed.
+                    Log.i(TAG, "Camera " + CameraConfigs.apply(session, cameraBudget()));
                     arSceneView.setupSession(session);
                 }
             } catch (UnavailableException e) {
@@ -563,8 +783,6 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
             showLoadingMessage();
         }
 
-        startBackgroundThread();
-
         openCameraForSharing();
 
 
@@ -573,21 +791,128 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
     @Override
     public void onPause() {
         super.onPause();
+        rotationScheduler.pause();
+        if (isArFragmentMode) {
+            arFragment.getArSceneView().getScene().removeOnUpdateListener(cameraImageListener);
+        }
         if (arSceneView != null) {
+          arSceneView.getScene().removeOnUpdateListener(cameraPoseListener);
           arSceneView.pause();
         }
 
         stopBackgroundThread();
+
+        if (BuildConfig.DEBUG) {
+            Log.d(TAG, "CPU images: " + frameStats);
+            Log.d(TAG, "Camera " + (isArFragmentMode
+                    ? arFragment.getCameraConfigSelection() : cameraConfigSelection));
+            Log.d(TAG, "Camera still: " + motionDetector.isStill()
+                    + ", luma change " + motionDetector.getDifference());
+        }
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
+        modelLoadQueue.cancelAll();
+        closeFrameRecorder();
+
+        if (BuildConfig.DEBUG) {
+            dumpAssetLoadMetrics();
+        }
         if (arSceneView != null) {
           arSceneView.destroy();
         }
     }
 
+    /**
+    * 카메라 프레임 녹화 종료
+    * */
+    private void closeFrameRecorder(){
+        if (frameRecorder == null) {
+            return;
+        }
+        try {
+            frameRecorder.close();
+            Log.d(TAG, frameRecorder.getFrameCount() + " camera frames recorded to "
+                    + frameRecorder.getFile());
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to close camera frame recording", e);
+        }
+        if (frameRecorder.getError() != null) {
+            Log.w(TAG, "Camera frame recording failed", frameRecorder.getError());
+        }
+    }
+
+    /**
+    * 화면에 보이는 장면(카메라 영상과 배치한 모델)을 복사해서 저장, 복사할 수 없으면 카메라 영상만 저장
+    * */
+    private void requestSceneSnapshot(){
+        ArSceneView sceneView = isArFragmentMode ? arFragment.getArSceneView() : arSceneView;
+        Handler handler = backgroundHandler;
+        if (sceneView == null || handler == null
+                || sceneView.getWidth() == 0 || sceneView.getHeight() == 0) {
+            cameraSnapshot.request(this::saveSnapshot);
+            return;
+        }
+        Bitmap scene = Bitmap.createBitmap(
+                sceneView.getWidth(), sceneView.getHeight(), Bitmap.Config.ARGB_8888);
+        PixelCopy.request(sceneView, scene, result -> {
+            if (result == PixelCopy.SUCCESS) {
+                saveSnapshot(scene);
+            } else {
+                Log.w(TAG, "Unable to copy the scene (" + result + "), saving the camera image");
+                scene.recycle();
+                cameraSnapshot.request(this::saveSnapshot);
+            }
+        }, handler);
+    }
+
+    /**
+    * 방 사진 저장 (카메라 스레드를 막지 않도록 다른 스레드에서 압축)
+    * */
+    private void saveSnapshot(Bitmap snapshot){
+        CompletableFuture.runAsync(() -> {
+            File dir = getExternalFilesDir(Environment.DIRECTORY_PICTURES);
+            if (dir == null) {
+                Log.w(TAG, "Unable to save snapshot: external storage unavailable");
+                snapshot.recycle();
+                return;
+            }
+            File file =
+                    new File(dir, Data.FILE_SNAPSHOT_PREFIX + System.currentTimeMillis() + ".jpg");
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                snapshot.compress(Bitmap.CompressFormat.JPEG, Data.SNAPSHOT_JPEG_QUALITY, out);
+                runOnUiThread(
+                        () -> Toast.makeText(this, file.getPath(), Toast.LENGTH_SHORT).show());
+            } catch (IOException e) {
+                Log.w(TAG, "Unable to save snapshot", e);
+            } finally {
+                snapshot.recycle();
+            }
+        });
+    }
+
+    /**
+    * 에셋 로딩 측정값 저장
+    * */
+    private void dumpAssetLoadMetrics(){
+        File file = new File(getFilesDir(), Data.FILE_ASSET_LOAD_METRICS);
+        try {
+            AssetLoadMetrics.getInstance().dumpTo(file);
+            Log.d(TAG, "Asset load metrics written to " + file);
+            Log.d(TAG, "Bitmap subsampling saved "
+                    + BitmapDecoder.getInstance().getSavedBytes() / 1024 + " KB");
+            ImageCache imageCache = ImageCache.getInstance(this);
+            Log.d(TAG, "Image cache hits " + imageCache.getHitCount()
+                    + ", misses " + imageCache.getMissCount()
+                    + ", evictions " + imageCache.getEvictionCount());
+            Log.d(TAG, "Catalog " + PrefetchStats.getInstance());
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write asset load metrics", e);
+        }
+    }
+
     @Override
     public void onRequestPermissionsResult( int requestCode, @NonNull String[] permissions, @NonNull int[] results) {
         if (!DemoUtils.hasCameraPermission(this)) {
@@ -623,8 +948,8 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
     * 탭 되었을때
     * */
     private void onSingleTap(MotionEvent tap) {
-        if (!hasFinishedLoading) {
-            // We can't do anything yet.
+        if (!loadingCoordinator.areReady(ASSET_SOL, KEY_SOLAR_CONTROLS)) {
+            // What we place hasn't loaded yet.
             return;
         }
 
@@ -648,8 +973,7 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
                     Anchor anchor = hit.createAnchor();
                     AnchorNode anchorNode = new AnchorNode(anchor);
                     anchorNode.setParent(arSceneView.getScene());
-                    Node chair = createChair();
-                    anchorNode.addChild(chair);
+                    createChair(anchorNode);
                     return true;
                 }
             }
@@ -658,15 +982,17 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
         return false;
     }
 
-    private Node createChair(){
+    private void createChair(Node parent){
 
+        // Attached first, so the info card below is in the scene when it is registered.
         Node base = new Node();
+        base.setParent(parent);
 
         Node sun = new Node();
         sun.setParent(base);
         sun.setLocalPosition(new Vector3(0.0f, 0.5f, 0.0f));
 
-        Node sunVisual = new Node();
+        LodNode sunVisual = new LodNode(LOD_COVERAGE_THRESHOLDS);
 //        Node sunVisual = new TransformableNode(transformationSystem);
         sunVisual.setParent(sun);
 
@@ -683,7 +1009,8 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
 //                            return null;
 //                        }
 //                );
-        sunVisual.setRenderable(sunRenderable);
+        sunVisual.setLevel(0, sunRenderable);
+        requestLodLevels(sunVisual, ASSET_SOL);
         sunVisual.setLocalScale(new Vector3(0.5f, 0.5f, 0.5f));
 
 
@@ -692,6 +1019,7 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
         infoCard.setRenderable(solarControlsRenderable);
         infoCard.setLocalScale(new Vector3(0.5f, 0.5f, 0.5f));
         infoCard.setLocalPosition(new Vector3(0.0f, 0.25f, 0.0f));
+        billboardManager.register(infoCard);
 
         View solarControlsView = solarControlsRenderable.getView();
 
@@ -725,7 +1053,28 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
 
 
 
-        return base;
+    }
+
+    /**
+    * 멀리 있을 때 쓸 단순화된 모델 로드
+    * */
+    @SuppressWarnings({"AndroidApiChecker", "FutureReturnValueIgnored"})
+    private void requestLodLevels(LodNode node, String asset){
+        for (int level = 1; level < LOD_COVERAGE_THRESHOLDS.length; level++) {
+            int lodLevel = level;
+            modelLoadQueue
+                    .request("lod" + level + "/" + asset, ModelLoadQueue.Priority.PREFETCH)
+                    .getFuture()
+                    .handle(
+                            (renderable, throwable) -> {
+                                if (throwable != null) {
+                                    Log.w(TAG, "No level " + lodLevel + " for " + asset, throwable);
+                                } else {
+                                    node.setLevel(lodLevel, renderable);
+                                }
+                                return null;
+                            });
+        }
     }
 
     /**
@@ -733,22 +1082,21 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
      * */
     @Override
     public void onImageAvailable(ImageReader reader) {
+        long acquireNanos = System.nanoTime();
         Image image = reader.acquireLatestImage();
         if(image == null) {
             Log.w(TAG, "onImageAvailable: Skipping null Image.");
             return;
         }
-
-        image.close();
-        cpuImagesProcessed++;
+        processCameraImage(image, latestCameraPose, acquireNanos);
 
         // Reduce the screen update to once every two seconds with 30fps if running as automated test.
-//        if (!automatorRun.get() || (automatorRun.get() && cpuImagesProcessed % 50 == 0)) {
+//        if (!automatorRun.get() || (automatorRun.get() && frameStats.getProcessedCount() % 50 == 0)) {
 //            runOnUiThread(
 //                    () ->
 //                            statusTextView.setText(
 //                                    "CPU images processed: "
-//                                            + cpuImagesProcessed
+//                                            + frameStats.getProcessedCount()
 //                                            + "\n\nMode: "
 //                                            + (arMode ? "AR" : "non-AR")
 //                                            + " \nARCore active: "
@@ -758,6 +1106,28 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
 //        }
     }
 
+    /**
+     * CPU 이미지 분석 (backgroundHandler에서 호출, 끝나면 이미지를 닫음)
+     * */
+    private void processCameraImage(Image image, @Nullable Pose cameraPose, long acquireNanos) {
+        frameStats.onAcquired(image.getTimestamp());
+        if(!frameDropPolicy.shouldProcess(image.getTimestamp())){
+            image.close();
+            frameStats.onDropped();
+            return;
+        }
+
+        try {
+            // Processors read the planes in place; the image is closed once they are all done.
+            frameProcessorChain.process(CameraFrames.fromImage(image, cameraPose));
+        } finally {
+            image.close();
+        }
+        long latencyNanos = System.nanoTime() - acquireNanos;
+        frameDropPolicy.onProcessed(latencyNanos);
+        frameStats.onProcessed(latencyNanos);
+    }
+
     /**
      * Creates the transformation system used by this fragment. Can be overridden to create a custom
      * transformation system.
@@ -794,26 +1164,6 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
     }
 
 
-    public Bitmap getBitmapFromURL(String src) {
-        HttpURLConnection connection = null;
-        try {
-            URL url = new URL(src);
-            connection = (HttpURLConnection) url.openConnection();
-            connection.setDoInput(true);
-            connection.connect();
-            InputStream input = connection.getInputStream();
-            Bitmap myBitmap = BitmapFactory.decodeStream(input);
-            return myBitmap;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return null;
-        } finally {
-            if (connection != null)
-                connection.disconnect();
-        }
-    }
-
-
 
 //  private Node createSolarSystem() {
 //    Node base = new Node();
@@ -903,14 +1253,21 @@ public class SolarActivity extends AppCompatActivity implements ImageReader.OnIm
     // Orbit is a rotating node with no renderable positioned at the sun.
     // The planet is positioned relative to the orbit so that it appears to rotate around the sun.
     // This is done instead of making the sun rotate so each planet can orbit at its own speed.
-    RotatingNode orbit = new RotatingNode(solarSettings, true, false, 0);
+    RotatingNode orbit = new RotatingNode(rotationScheduler, true, false, 0);
     orbit.setDegreesPerSecond(orbitDegreesPerSecond);
     orbit.setParent(parent);
 
     // Create the planet and position it relative to the sun.
     Planet planet =
         new Planet(
-            this, name, planetScale, orbitDegreesPerSecond, axisTilt, renderable, solarSettings);
+            this,
+            name,
+            planetScale,
+            orbitDegreesPerSecond,
+            axisTilt,
+            renderable,
+            rotationScheduler,
+            billboardManager);
     planet.setParent(orbit);
     planet.setLocalPosition(new Vector3(auFromParent * AU_TO_METERS, 0.0f, 0.0f));
 
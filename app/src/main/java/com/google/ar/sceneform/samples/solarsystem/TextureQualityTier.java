@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * Texture resolution tiers generated by the {@code generateTextureTiers} Gradle task.
+ *
+ * <p>{@link #FULL} is the original .sfb in the assets root; the others live under
+ * {@code assets/<tier>/} with textures scaled down by {@link #getDivisor()} on each side.
+ *
+ * <p>Mesh levels of detail from {@code lod.gradle} live under {@code assets/lod<n>/} and carry the
+ * textures of the tier with ordinal n. They are requested by that path and resolved here too.
+ */
+public enum TextureQualityTier {
+    FULL("", 1),
+    HALF("half", 2),
+    QUARTER("quarter", 4);
+
+    private static final String TAG = TextureQualityTier.class.getSimpleName();
+
+    // Per-app heap limits in MB below which a smaller tier is used. Without largeHeap, current
+    // phones report 192 to 512, budget ones 96 to 128. Models that still don't fit the cache are
+    // stepped down further by resolveWithinBudget.
+    private static final int QUARTER_BELOW_MEMORY_CLASS = 128;
+    private static final int HALF_BELOW_MEMORY_CLASS = 256;
+
+    private static final String LOD_DIRECTORY = "lod";
+
+    private final String directory;
+    private final int divisor;
+
+    TextureQualityTier(String directory, int divisor) {
+        this.directory = directory;
+        this.divisor = divisor;
+    }
+
+    public int getDivisor() {
+        return divisor;
+    }
+
+    /** Picks a tier from the heap limit the device gives this app. */
+    public static TextureQualityTier select(Context context) {
+        ActivityManager activityManager =
+                (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memoryClass = activityManager.getMemoryClass();
+
+        TextureQualityTier tier;
+        if (activityManager.isLowRamDevice() || memoryClass < QUARTER_BELOW_MEMORY_CLASS) {
+            tier = QUARTER;
+        } else if (memoryClass < HALF_BELOW_MEMORY_CLASS) {
+            tier = HALF;
+        } else {
+            tier = FULL;
+        }
+        Log.d(TAG, "Memory class " + memoryClass + "MB, using " + tier + " textures");
+        return tier;
+    }
+
+    /**
+     * Returns the asset path of {@code asset} in this tier, or the full tier path if this tier
+     * wasn't packaged for it according to the {@link AssetIndex}. A level of detail such as
+     * {@code "lod1/Sol.sfb"} is swapped for a coarser packaged level if its textures are larger
+     * than this tier's.
+     */
+    public String resolve(Context context, String asset) {
+        int lodLevel = getLodLevel(asset);
+        if (lodLevel > 0) {
+            return resolveLod(AssetIndex.getInstance(context), asset, lodLevel);
+        }
+        if (this == FULL) {
+            return asset;
+        }
+        String tiered = directory + "/" + asset;
+        return AssetIndex.getInstance(context).contains(tiered) ? tiered : asset;
+    }
+
+    /**
+     * Like {@link #resolve}, but steps down to smaller packaged tiers until the loaded model fits
+     * in {@code maxBytes}, as judged by the full model's {@link ModelBudget}. Returns null if no
+     * packaged variant fits. Levels of detail step to coarser packaged levels instead. Assets
+     * missing from the index can't be judged and are resolved as usual.
+     */
+    @Nullable
+    public String resolveWithinBudget(Context context, String asset, long maxBytes) {
+        AssetIndex index = AssetIndex.getInstance(context);
+        int lodLevel = getLodLevel(asset);
+        if (lodLevel > 0) {
+            return resolveLodWithinBudget(index, asset, lodLevel, maxBytes);
+        }
+
+        AssetIndex.Entry entry = index.get(asset);
+        if (entry == null) {
+            return resolve(context, asset);
+        }
+
+        TextureQualityTier[] tiers = values();
+        int[] divisors = new int[tiers.length - ordinal()];
+        int count = 0;
+        for (int i = ordinal(); i < tiers.length; i++) {
+            if (entry.hasTier(i)) {
+                divisors[count++] = tiers[i].divisor;
+            }
+        }
+
+        int divisor = entry.toBudget().fitTextureDivisor(maxBytes, Arrays.copyOf(divisors, count));
+        for (TextureQualityTier tier : tiers) {
+            if (tier.divisor == divisor) {
+                return tier.resolve(context, asset);
+            }
+        }
+        return null;
+    }
+
+    /** The level of a path such as {@code "lod1/Sol.sfb"}, or 0 for any other asset. */
+    static int getLodLevel(String asset) {
+        int slash = asset.indexOf('/');
+        if (!asset.startsWith(LOD_DIRECTORY) || slash <= LOD_DIRECTORY.length()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(asset.substring(LOD_DIRECTORY.length(), slash));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static String lodPath(int level, String lodAsset) {
+        return LOD_DIRECTORY + level + lodAsset.substring(lodAsset.indexOf('/'));
+    }
+
+    private String resolveLod(AssetIndex index, String asset, int level) {
+        // Level n has the textures of the tier with ordinal n.
+        for (int coarser = Math.max(level, ordinal()); coarser > level; coarser--) {
+            String path = lodPath(coarser, asset);
+            if (index.contains(path)) {
+                return path;
+            }
+        }
+        return asset;
+    }
+
+    @Nullable
+    private String resolveLodWithinBudget(
+            AssetIndex index, String asset, int level, long maxBytes) {
+        String resolved = resolveLod(index, asset, level);
+        AssetIndex.Entry entry = index.get(resolved);
+        if (entry == null) {
+            return resolved;
+        }
+
+        // Coarser levels have both fewer vertices and smaller textures.
+        for (int coarser = getLodLevel(resolved); coarser <= entry.getLodLevels(); coarser++) {
+            String path = lodPath(coarser, asset);
+            AssetIndex.Entry candidate = index.get(path);
+            if (candidate != null && candidate.toBudget().getTotalBytes() <= maxBytes) {
+                return path;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Analyses an image plane in row bands on a {@link ForkJoinPool}.
+ *
+ * <p>The plane is split in halves until bands are at most {@code maxBandRows} rows, each band is
+ * analysed on its own, and results are merged pairwise up the same tree. The tree depends only on
+ * the plane height, so results are identical from run to run even when {@link BandTask#merge} is
+ * not commutative, such as floating point sums.
+ *
+ * <p>Bands read the shared buffer with absolute gets only, so no copies or duplicates are needed.
+ * Plain Java.
+ */
+public class TiledPlaneExecutor {
+
+    /** Analysis of one row band, and how two adjacent bands' results combine. */
+    public interface BandTask<R> {
+        /** Analyses rows {@code [rowStart, rowEnd)}. Must not change the buffer's position. */
+        R analyze(
+                ByteBuffer buffer,
+                int rowStride,
+                int pixelStride,
+                int width,
+                int rowStart,
+                int rowEnd);
+
+        /** Combines the results of the band above ({@code upper}) and the one below it. */
+        R merge(R upper, R lower);
+    }
+
+    private final ForkJoinPool pool;
+    private final int maxBandRows;
+
+    public TiledPlaneExecutor(ForkJoinPool pool, int maxBandRows) {
+        if (maxBandRows < 1) {
+            throw new IllegalArgumentException("maxBandRows must be at least 1");
+        }
+        this.pool = pool;
+        this.maxBandRows = maxBandRows;
+    }
+
+    /** Runs {@code task} over a {@code width} x {@code height} plane and merges the results. */
+    public <R> R execute(CameraFrame.Plane plane, int width, int height, BandTask<R> task) {
+        return pool.invoke(new Band<>(plane, width, 0, height, task));
+    }
+
+    private class Band<R> extends RecursiveTask<R> {
+        private final CameraFrame.Plane plane;
+        private final int width;
+        private final int rowStart;
+        private final int rowEnd;
+        private final BandTask<R> task;
+
+        Band(CameraFrame.Plane plane, int width, int rowStart, int rowEnd, BandTask<R> task) {
+            this.plane = plane;
+            this.width = width;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.task = task;
+        }
+
+        @Override
+        protected R compute() {
+            if (rowEnd - rowStart <= maxBandRows) {
+                return task.analyze(
+                        plane.getBuffer(),
+                        plane.getRowStride(),
+                        plane.getPixelStride(),
+                        width,
+                        rowStart,
+                        rowEnd);
+            }
+            int middle = (rowStart + rowEnd) >>> 1;
+            Band<R> upper = new Band<>(plane, width, rowStart, middle, task);
+            Band<R> lower = new Band<>(plane, width, middle, rowEnd, task);
+            upper.fork();
+            R lowerResult = lower.compute();
+            return task.merge(upper.join(), lowerResult);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+
+/**
+ * Orientation of something turning a full circle around a tilted axis, for {@link RotatingNode}.
+ *
+ * <p>Uses Sceneform's math types only, no node or scene, so it runs on the JVM.
+ */
+class TurntableRotation {
+  private static final int KEYFRAME_COUNT = 4;
+
+  private final boolean clockwise;
+  // Half-angle sine and cosine of the axis tilt around X, computed once.
+  private final float tiltSin;
+  private final float tiltCos;
+  // Orientations around a full turn of the tilted axis, computed once.
+  private final Quaternion[] keyframes;
+  private final Quaternion scratchRotation = new Quaternion();
+  private RotatingNode.RotationMode rotationMode = RotatingNode.RotationMode.ANALYTIC;
+  private float degreesPerSecond = 90.0f;
+  // Fraction of a full turn, from 0 to 1. A double, so small per-frame steps don't drift.
+  private double phase;
+  private Quaternion rotation;
+
+  TurntableRotation(boolean clockwise, float axisTiltDeg) {
+    this.clockwise = clockwise;
+    double halfTilt = Math.toRadians(axisTiltDeg) / 2;
+    this.tiltSin = (float) Math.sin(halfTilt);
+    this.tiltCos = (float) Math.cos(halfTilt);
+    this.keyframes = createKeyframes(clockwise, axisTiltDeg);
+    this.rotation = keyframes[0];
+  }
+
+  void setRotationMode(RotatingNode.RotationMode rotationMode) {
+    this.rotationMode = rotationMode;
+  }
+
+  void setDegreesPerSecond(float degreesPerSecond) {
+    this.degreesPerSecond = degreesPerSecond;
+  }
+
+  /** Fraction of a full turn, from 0 to 1. */
+  double getPhase() {
+    return phase;
+  }
+
+  /** Jumps to {@code turns} of a full turn. */
+  void setPhase(double turns) {
+    phase = turns - Math.floor(turns);
+    update();
+  }
+
+  /** Turns by {@code scaledSeconds} worth of rotation. Returns false if nothing changed. */
+  boolean advance(float scaledSeconds) {
+    if (scaledSeconds == 0.0f) {
+      return false;
+    }
+    phase += (double) scaledSeconds * degreesPerSecond / 360.0;
+    phase -= Math.floor(phase);
+    update();
+    return true;
+  }
+
+  /**
+   * The current orientation. In {@link RotatingNode.RotationMode#ANALYTIC} mode it is overwritten
+   * by the next change; copy it to keep it.
+   */
+  Quaternion getRotation() {
+    return rotation;
+  }
+
+  private void update() {
+    if (rotationMode == RotatingNode.RotationMode.ANALYTIC) {
+      rotation = tiltedYaw(phase);
+      return;
+    }
+    float position = (float) phase * (KEYFRAME_COUNT - 1);
+    int segment = Math.min((int) position, KEYFRAME_COUNT - 2);
+    rotation = Quaternion.slerp(keyframes[segment], keyframes[segment + 1], position - segment);
+  }
+
+  /**
+   * tilt(X) * yaw(Y) at {@code turns} of a full turn. With only one non-zero vector component in
+   * each factor, the product reduces to four multiplications.
+   */
+  private Quaternion tiltedYaw(double turns) {
+    double halfYaw = (clockwise ? -turns : turns) * Math.PI;
+    float yawSin = (float) Math.sin(halfYaw);
+    float yawCos = (float) Math.cos(halfYaw);
+    scratchRotation.set(tiltSin * yawCos, tiltCos * yawSin, tiltSin * yawSin, tiltCos * yawCos);
+    return scratchRotation;
+  }
+
+  /** Returns the orientations that make a full circle. */
+  private static Quaternion[] createKeyframes(boolean clockwise, float axisTiltDeg) {
+    Quaternion[] orientations = new Quaternion[KEYFRAME_COUNT];
+    // Rotation to apply first, to tilt its axis.
+    Quaternion baseOrientation = Quaternion.axisAngle(new Vector3(1.0f, 0f, 0.0f), axisTiltDeg);
+    for (int i = 0; i < orientations.length; i++) {
+      float angle = i * 360.0f / (orientations.length - 1);
+      if (clockwise) {
+        angle = 360 - angle;
+      }
+      Quaternion orientation = Quaternion.axisAngle(new Vector3(0.0f, 1.0f, 0.0f), angle);
+      orientations[i] = Quaternion.multiply(baseOrientation, orientation);
+    }
+    return orientations;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Converts YUV_420_888 frames to ARGB pixels, in row bands on a {@link ForkJoinPool}.
+ *
+ * <p>Chroma is read through each plane's own pixel stride, so planar (I420, pixel stride 1) and
+ * semi-planar (NV12/NV21, pixel stride 2) layouts go through the same code. Conversion is BT.601
+ * full range, like {@link FloorColorSampler#yuvToArgb}, in 16.16 fixed point.
+ *
+ * <p>Frames can be downscaled by a power of two on the way, by point sampling, so a preview-sized
+ * image costs a fraction of a full conversion. The output array is kept and reused as long as it is
+ * large enough, so repeated conversions don't allocate.
+ *
+ * <p>Plain Java. Not thread-safe; one conversion at a time.
+ */
+public class YuvToRgbConverter {
+
+    // BT.601 full range coefficients, scaled by 2^16.
+    private static final int CR_TO_R = 91881;
+    private static final int CB_TO_G = 22554;
+    private static final int CR_TO_G = 46802;
+    private static final int CB_TO_B = 116130;
+    private static final int HALF = 1 << 15;
+
+    private final ForkJoinPool pool;
+    private final int maxBandRows;
+
+    private int[] pixels = new int[0];
+    private int outputWidth;
+    private int outputHeight;
+
+    public YuvToRgbConverter(ForkJoinPool pool, int maxBandRows) {
+        if (maxBandRows < 1) {
+            throw new IllegalArgumentException("maxBandRows must be at least 1");
+        }
+        this.pool = pool;
+        this.maxBandRows = maxBandRows;
+    }
+
+    /**
+     * Converts {@code frame}, scaled down by {@code 2^scaleShift} on each side.
+     *
+     * @return the ARGB pixels, row-major with a stride of {@link #getOutputWidth}. Overwritten by
+     *     the next conversion; may be longer than {@code width * height}.
+     */
+    public int[] convert(CameraFrame frame, int scaleShift) {
+        if (scaleShift < 0) {
+            throw new IllegalArgumentException("scaleShift must not be negative");
+        }
+        outputWidth = frame.getWidth() >> scaleShift;
+        outputHeight = frame.getHeight() >> scaleShift;
+        int size = outputWidth * outputHeight;
+        if (pixels.length < size) {
+            pixels = new int[size];
+        }
+        pool.invoke(new Band(frame, scaleShift, 0, outputHeight));
+        return pixels;
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    /** Converts output rows {@code [rowStart, rowEnd)} into {@code out}. */
+    static void convertRows(
+            CameraFrame frame, int scaleShift, int[] out, int outWidth, int rowStart, int rowEnd) {
+        CameraFrame.Plane yPlane = frame.getPlane(CameraFrame.PLANE_Y);
+        CameraFrame.Plane uPlane = frame.getPlane(CameraFrame.PLANE_U);
+        CameraFrame.Plane vPlane = frame.getPlane(CameraFrame.PLANE_V);
+        ByteBuffer yBuffer = yPlane.getBuffer();
+        ByteBuffer uBuffer = uPlane.getBuffer();
+        ByteBuffer vBuffer = vPlane.getBuffer();
+        int yRowStride = yPlane.getRowStride();
+        int yPixelStride = yPlane.getPixelStride();
+        int uRowStride = uPlane.getRowStride();
+        int uPixelStride = uPlane.getPixelStride();
+        int vRowStride = vPlane.getRowStride();
+        int vPixelStride = vPlane.getPixelStride();
+
+        for (int row = rowStart; row < rowEnd; row++) {
+            int sourceRow = row << scaleShift;
+            int yOffset = sourceRow * yRowStride;
+            int uOffset = (sourceRow >> 1) * uRowStride;
+            int vOffset = (sourceRow >> 1) * vRowStride;
+            int outOffset = row * outWidth;
+            for (int col = 0; col < outWidth; col++) {
+                int sourceCol = col << scaleShift;
+                int chromaCol = sourceCol >> 1;
+                int y = yBuffer.get(yOffset + sourceCol * yPixelStride) & 0xff;
+                int cb = (uBuffer.get(uOffset + chromaCol * uPixelStride) & 0xff) - 128;
+                int cr = (vBuffer.get(vOffset + chromaCol * vPixelStride) & 0xff) - 128;
+                int r = y + ((CR_TO_R * cr + HALF) >> 16);
+                int g = y - ((CB_TO_G * cb + CR_TO_G * cr + HALF) >> 16);
+                int b = y + ((CB_TO_B * cb + HALF) >> 16);
+                r = r < 0 ? 0 : (r > 255 ? 255 : r);
+                g = g < 0 ? 0 : (g > 255 ? 255 : g);
+                b = b < 0 ? 0 : (b > 255 ? 255 : b);
+                out[outOffset + col] = 0xff000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+    }
+
+    private class Band extends RecursiveAction {
+        private final CameraFrame frame;
+        private final int scaleShift;
+        private final int rowStart;
+        private final int rowEnd;
+
+        Band(CameraFrame frame, int scaleShift, int rowStart, int rowEnd) {
+            this.frame = frame;
+            this.scaleShift = scaleShift;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+        }
+
+        @Override
+        protected void compute() {
+            if (rowEnd - rowStart <= maxBandRows) {
+                convertRows(frame, scaleShift, pixels, outputWidth, rowStart, rowEnd);
+                return;
+            }
+            int middle = (rowStart + rowEnd) >>> 1;
+            invokeAll(
+                    new Band(frame, scaleShift, rowStart, middle),
+                    new Band(frame, scaleShift, middle, rowEnd));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+
+/** Heap bytes allocated by the current thread, from the HotSpot thread MXBean. */
+final class Allocations {
+
+    private Allocations() {}
+
+    /** Skips the test on JVMs that don't count allocations per thread. */
+    static void assumeSupported() {
+        Assume.assumeTrue(
+                "Per-thread allocation counting unavailable",
+                ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+                        && bean().isThreadAllocatedMemorySupported());
+        bean().setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Bytes allocated by {@code ops} calls of {@code op} on this thread, less what measuring alone
+     * allocates.
+     */
+    static long perRun(int ops, Benchmarks.Op op) throws Exception {
+        long overhead = allocated(0, op);
+        return allocated(ops, op) - overhead;
+    }
+
+    private static long allocated(int ops, Benchmarks.Op op) throws Exception {
+        long thread = Thread.currentThread().getId();
+        long before = bean().getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ops; i++) {
+            op.run();
+        }
+        return bean().getThreadAllocatedBytes(thread) - before;
+    }
+
+    private static com.sun.management.ThreadMXBean bean() {
+        return (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    }
+}
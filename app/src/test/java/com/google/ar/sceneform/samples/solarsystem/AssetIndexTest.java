@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/** Reads back manifests written by the same writer generateAssetManifest uses. */
+public class AssetIndexTest {
+
+    @Test
+    public void parse_readsWhatTheWriterWrote() throws IOException {
+        AssetManifestWriter writer = new AssetManifestWriter();
+        writer.add("Earth.sfb", "Earth", 1000, 0x0123456789abcdefL, 400, 6000, 0b111, 2,
+                Arrays.asList("Earth_Albedo.png", "Earth_Normal.png"));
+        writer.add("half/Earth.sfb", "Earth", 600, -1L, 400, 1500, 0b111, 2,
+                Arrays.asList("Earth_Albedo.png", "Earth_Normal.png"));
+        writer.add("lod1/Sol.sfb", "Sol", 300, 42, 100, 0, 0b001, 1, Collections.emptyList());
+
+        AssetIndex index = AssetIndex.parse(write(writer));
+
+        assertEquals(3, index.getEntries().size());
+        AssetIndex.Entry earth = index.get("Earth.sfb");
+        assertEquals("Earth.sfb", earth.path);
+        assertEquals("Earth", earth.modelId);
+        assertEquals(1000, earth.byteSize);
+        assertEquals(0x0123456789abcdefL, earth.contentHash);
+        assertEquals(400, earth.geometryBytes);
+        assertEquals(6000, earth.textureBytes);
+        assertEquals(Arrays.asList("Earth_Albedo.png", "Earth_Normal.png"), earth.textures);
+        assertTrue(earth.hasTier(0));
+        assertTrue(earth.hasTier(2));
+        assertEquals(2, earth.getLodLevels());
+        assertEquals(6400, earth.toBudget().getTotalBytes());
+
+        assertEquals(-1L, index.get("half/Earth.sfb").contentHash);
+
+        AssetIndex.Entry sol = index.get("lod1/Sol.sfb");
+        assertTrue(sol.hasTier(0));
+        assertFalse(sol.hasTier(1));
+        assertTrue(sol.textures.isEmpty());
+    }
+
+    @Test
+    public void get_returnsNullForMissingKey() throws IOException {
+        AssetManifestWriter writer = new AssetManifestWriter();
+        writer.add("Mars.sfb", "Mars", 10, 0, 0, 0, 1, 0, Collections.emptyList());
+
+        AssetIndex index = AssetIndex.parse(write(writer));
+
+        assertTrue(index.contains("Mars.sfb"));
+        assertFalse(index.contains("quarter/Mars.sfb"));
+        assertNull(index.get("quarter/Mars.sfb"));
+        assertNull(index.get("Mars"));
+    }
+
+    @Test
+    public void parse_readsEmptyManifest() throws IOException {
+        AssetIndex index = AssetIndex.parse(write(new AssetManifestWriter()));
+
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void parse_keepsNonAsciiNames() throws IOException {
+        AssetManifestWriter writer = new AssetManifestWriter();
+        writer.add("의자/Chair.sfb", "의자", 1, 0, 0, 0, 1, 0, Collections.singletonList("천.png"));
+
+        AssetIndex.Entry entry = AssetIndex.parse(write(writer)).get("의자/Chair.sfb");
+
+        assertEquals("의자", entry.modelId);
+        assertEquals("천.png", entry.textures.get(0));
+    }
+
+    @Test
+    public void parse_rejectsOtherFiles() {
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putInt(0x504b0304).putInt(AssetManifestWriter.VERSION).putInt(0).flip();
+
+        try {
+            AssetIndex.parse(buffer);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void parse_rejectsOtherVersions() {
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putInt(AssetManifestWriter.MAGIC).putInt(AssetManifestWriter.VERSION + 1).putInt(0);
+        buffer.flip();
+
+        try {
+            AssetIndex.parse(buffer);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    private static ByteBuffer write(AssetManifestWriter writer) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writer.writeTo(output);
+        return ByteBuffer.wrap(output.toByteArray());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AssetLoadMetricsTest {
+
+    private static final long MS = 1_000_000L;
+
+    private long now;
+    private AssetLoadMetrics metrics;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        metrics = new AssetLoadMetrics(() -> now);
+    }
+
+    @Test
+    public void resolvedLoad_keepsQueueWaitAndDecode() {
+        metrics.submitted("Sol.sfb");
+        now = 30 * MS;
+        metrics.resolved("Sol.sfb", "half/Sol.sfb");
+        metrics.started("half/Sol.sfb", 4096);
+        now = 80 * MS;
+        metrics.finished("half/Sol.sfb", false);
+
+        List<AssetLoadMetrics.Record> records = metrics.snapshot();
+        assertEquals(1, records.size());
+        AssetLoadMetrics.Record record = records.get(0);
+        assertEquals("Sol.sfb", record.id);
+        assertEquals("half/Sol.sfb", record.path);
+        assertEquals(30 * MS, record.getQueueWaitNanos());
+        assertEquals(50 * MS, record.getDecodeNanos());
+        assertEquals(4096, record.sourceBytes);
+        assertTrue(record.isFinished());
+    }
+
+    @Test
+    public void resolvedOntoOpenPath_dropsTheDuplicate() {
+        metrics.started("lod1/Sol.sfb", 100);
+        metrics.submitted("Sol.sfb");
+        metrics.resolved("Sol.sfb", "lod1/Sol.sfb");
+        metrics.finished("lod1/Sol.sfb", false);
+
+        List<AssetLoadMetrics.Record> records = metrics.snapshot();
+        assertEquals(1, records.size());
+        assertEquals("lod1/Sol.sfb", records.get(0).id);
+        assertTrue(records.get(0).isFinished());
+    }
+
+    @Test
+    public void dropped_forgetsUnstartedLoad() {
+        metrics.submitted("Mars.sfb");
+        metrics.dropped("Mars.sfb");
+
+        assertTrue(metrics.snapshot().isEmpty());
+    }
+
+    @Test
+    public void track_recordsFakeLoader() {
+        CompletableFuture<String> load = new CompletableFuture<>();
+        now = 5 * MS;
+        CompletableFuture<String> tracked = metrics.track("card", 0, () -> load);
+
+        now = 12 * MS;
+        load.complete("view");
+
+        AssetLoadMetrics.Record record = metrics.snapshot().get(0);
+        assertEquals("view", tracked.join());
+        assertEquals(0, record.getQueueWaitNanos());
+        assertEquals(7 * MS, record.getDecodeNanos());
+        assertFalse(record.failed);
+        assertEquals(Thread.currentThread().getName(), record.threadName);
+    }
+
+    @Test
+    public void track_marksFailedLoad() {
+        CompletableFuture<String> load = new CompletableFuture<>();
+        metrics.track("card", 0, () -> load);
+
+        load.completeExceptionally(new IllegalStateException("broken"));
+
+        assertTrue(metrics.snapshot().get(0).failed);
+    }
+
+    @Test
+    public void cacheHit_hasNoQueueWaitOrDecode() {
+        now = 9 * MS;
+        metrics.cacheHit("Earth.sfb");
+
+        AssetLoadMetrics.Record record = metrics.snapshot().get(0);
+        assertTrue(record.cacheHit);
+        assertEquals(0, record.getQueueWaitNanos());
+        assertEquals(0, record.getDecodeNanos());
+    }
+
+    @Test
+    public void unstartedLoad_reportsNotReached() {
+        metrics.submitted("Luna.sfb");
+
+        AssetLoadMetrics.Record record = metrics.snapshot().get(0);
+        assertEquals(-1, record.getQueueWaitNanos());
+        assertEquals(-1, record.getDecodeNanos());
+        assertFalse(record.isFinished());
+    }
+
+    @Test
+    public void records_keepOnlyTheMostRecent() {
+        for (int i = 0; i < AssetLoadMetrics.MAX_RECORDS + 10; i++) {
+            metrics.cacheHit("asset" + i);
+        }
+
+        List<AssetLoadMetrics.Record> records = metrics.snapshot();
+        assertEquals(AssetLoadMetrics.MAX_RECORDS, records.size());
+        assertEquals("asset10", records.get(0).id);
+    }
+
+    @Test
+    public void dump_writesCsvInMilliseconds() throws Exception {
+        metrics.submitted("Sol.sfb");
+        now = 2 * MS;
+        metrics.resolved("Sol.sfb", "half/Sol.sfb");
+        metrics.started("half/Sol.sfb", 10);
+        now = 5 * MS;
+        metrics.finished("half/Sol.sfb", false);
+
+        StringWriter writer = new StringWriter();
+        metrics.dump(writer);
+
+        String[] lines = writer.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].startsWith("Sol.sfb,half/Sol.sfb,2.00,3.00,10,false,false,"));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.Assume;
+
+/**
+ * Shared plumbing for the JVM microbenchmarks under src/test.
+ *
+ * <p>They are plain JUnit classes named {@code *Benchmark} that skip themselves unless Gradle runs
+ * with {@code -Pbenchmark}, which also shows their output:
+ *
+ * <pre>./gradlew :app:testDebugUnitTest -Pbenchmark --tests '*Benchmark'</pre>
+ *
+ * <p>Each measurement warms up first and reports the median of several rounds, which is enough to
+ * compare implementations on one machine; absolute numbers on a desktop JVM don't carry over to a
+ * phone.
+ */
+final class Benchmarks {
+
+    private static final int ROUNDS = 5;
+
+    /** One benchmarked operation. */
+    interface Op {
+        void run() throws Exception;
+    }
+
+    private Benchmarks() {}
+
+    static void assumeEnabled() {
+        Assume.assumeTrue("Run with -Pbenchmark", Boolean.getBoolean("benchmark"));
+    }
+
+    /** Median nanoseconds per call of {@code op} over {@code opsPerRound} calls per round. */
+    static double nanosPerOp(int warmupOps, int opsPerRound, Op op) throws Exception {
+        for (int i = 0; i < warmupOps; i++) {
+            op.run();
+        }
+        long[] rounds = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < opsPerRound; i++) {
+                op.run();
+            }
+            rounds[round] = System.nanoTime() - start;
+        }
+        Arrays.sort(rounds);
+        return (double) rounds[ROUNDS / 2] / opsPerRound;
+    }
+
+    static void report(String name, double nanosPerOp) {
+        System.out.printf(Locale.US, "%-56s %12.2f us/op%n", name, nanosPerOp / 1000);
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.ar.sceneform.math.Quaternion;
+import com.google.ar.sceneform.math.Vector3;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BillboardManagerTest {
+
+    private static final float TOLERANCE = 1e-4f;
+
+    @Test
+    public void matchesLookRotationWithoutParent() {
+        Random random = new Random(1);
+        Quaternion rotation = new Quaternion();
+        for (int i = 0; i < 1000; i++) {
+            Vector3 direction = randomDirection(random);
+
+            assertTrue(
+                    BillboardManager.lookRotation(
+                            null, direction.x, direction.y, direction.z, rotation));
+
+            assertSameRotation(Quaternion.lookRotation(direction, Vector3.up()), rotation);
+        }
+    }
+
+    @Test
+    public void compensatesForParentRotationScaleAndTranslation() {
+        Random random = new Random(2);
+        Quaternion local = new Quaternion();
+        for (int i = 0; i < 1000; i++) {
+            Quaternion parent =
+                    Quaternion.axisAngle(randomDirection(random), random.nextFloat() * 360f);
+            float scale = 0.1f + random.nextFloat() * 3f;
+            Vector3 direction = randomDirection(random);
+
+            assertTrue(
+                    BillboardManager.lookRotation(
+                            worldMatrix(parent, scale, 1f, -2f, 3f),
+                            direction.x,
+                            direction.y,
+                            direction.z,
+                            local));
+
+            // The card's world rotation is the parent's composed with the local one.
+            assertSameRotation(
+                    Quaternion.lookRotation(direction, Vector3.up()),
+                    Quaternion.multiply(parent, local));
+        }
+    }
+
+    @Test
+    public void pointsForwardAtTheCameraAndKeepsUpUp() {
+        Quaternion rotation = new Quaternion();
+        BillboardManager.lookRotation(null, 3f, 1f, -4f, rotation);
+
+        float[] forward = rotate(rotation, 0f, 0f, 1f);
+        float length = (float) Math.sqrt(26);
+        assertEquals(3f / length, forward[0], TOLERANCE);
+        assertEquals(1f / length, forward[1], TOLERANCE);
+        assertEquals(-4f / length, forward[2], TOLERANCE);
+        // Right stays level and up leans towards world up.
+        assertEquals(0f, rotate(rotation, 1f, 0f, 0f)[1], TOLERANCE);
+        assertTrue(rotate(rotation, 0f, 1f, 0f)[1] > 0f);
+    }
+
+    @Test
+    public void rejectsDegenerateDirections() {
+        Quaternion rotation = new Quaternion(0.1f, 0.2f, 0.3f, 0.9f);
+
+        assertFalse(BillboardManager.lookRotation(null, 0f, 0f, 0f, rotation));
+        assertFalse(BillboardManager.lookRotation(null, 0f, 2f, 0f, rotation));
+        assertFalse(BillboardManager.lookRotation(null, 0f, -2f, 0f, rotation));
+        assertEquals(0.1f, rotation.x, 0f);
+    }
+
+    @Test
+    public void allocatesNothingAfterWarmUp() throws Exception {
+        Allocations.assumeSupported();
+        float[] parent =
+                worldMatrix(Quaternion.axisAngle(new Vector3(0f, 1f, 0f), 30f), 2f, 0f, 0f, 0f);
+        Quaternion rotation = new Quaternion();
+        float[] direction = {0.5f, 0.2f, -1f};
+        Benchmarks.Op face =
+                () -> {
+                    BillboardManager.lookRotation(
+                            parent, direction[0], direction[1], direction[2], rotation);
+                    direction[0] = -direction[0];
+                };
+        for (int i = 0; i < 20_000; i++) {
+            face.run();
+        }
+
+        assertEquals(0, Allocations.perRun(1000, face));
+    }
+
+    @Test
+    public void turnsAgainOnlyOnceCameraOrCardHasMoved() {
+        BillboardManager.Facing facing = new BillboardManager.Facing();
+        float[] card = translation(0f, 0f, 0f);
+        Quaternion rotation = new Quaternion();
+
+        assertTrue(facing.update(translation(1f, 0f, 1f), card, null, rotation));
+        assertSameRotation(
+                Quaternion.lookRotation(new Vector3(1f, 0f, 1f), Vector3.up()), rotation);
+        assertFalse(facing.update(translation(1f, 0f, 1f), card, null, rotation));
+        assertFalse(facing.update(translation(1.002f, 0f, 1f), card, null, rotation));
+        float[] camera = translation(1.01f, 0f, 1f);
+        assertTrue(facing.update(camera, card, null, rotation));
+        float[] movedCard = translation(0f, 0f, 0.01f);
+        assertTrue(facing.update(camera, movedCard, null, rotation));
+        assertFalse(facing.update(camera, movedCard, null, rotation));
+
+        facing.reset();
+        assertTrue(facing.update(camera, movedCard, null, rotation));
+    }
+
+    @Test
+    public void turnsAgainWhenOnlyTheParentHasTurned() {
+        BillboardManager.Facing facing = new BillboardManager.Facing();
+        float[] camera = translation(0f, 0f, 2f);
+        float[] card = translation(0f, 0f, 0f);
+        Vector3 up = new Vector3(0f, 1f, 0f);
+        Quaternion local = new Quaternion();
+
+        float[] parent = worldMatrix(Quaternion.axisAngle(up, 0f), 1f, 0f, 0f, 0f);
+        assertTrue(facing.update(camera, card, parent, local));
+        // The product is spun in place: the camera and the card haven't moved.
+        Quaternion spun = Quaternion.axisAngle(up, 10f);
+        assertTrue(facing.update(camera, card, worldMatrix(spun, 1f, 0f, 0f, 0f), local));
+        assertSameRotation(
+                Quaternion.lookRotation(new Vector3(0f, 0f, 2f), Vector3.up()),
+                Quaternion.multiply(spun, local));
+        assertFalse(facing.update(camera, card, worldMatrix(spun, 1f, 0f, 0f, 0f), local));
+    }
+
+    @Test
+    public void updateAllocatesNothingAfterWarmUp() throws Exception {
+        Allocations.assumeSupported();
+        BillboardManager.Facing[] cards = new BillboardManager.Facing[8];
+        float[][] cardMatrices = new float[cards.length][];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = new BillboardManager.Facing();
+            cardMatrices[i] = translation(i * 0.3f, 0f, 0f);
+        }
+        float[] parent =
+                worldMatrix(Quaternion.axisAngle(new Vector3(0f, 1f, 0f), 30f), 2f, 0f, 0f, 0f);
+        float[] camera = translation(0f, 1f, 2f);
+        Quaternion rotation = new Quaternion();
+        int[] frame = {0};
+        // One frame of onUpdate: the camera moves every other frame, so cards are turned on one
+        // and skipped on the next.
+        Benchmarks.Op update =
+                () -> {
+                    camera[12] = (frame[0]++ / 2 % 2) * 0.1f;
+                    for (int i = 0; i < cards.length; i++) {
+                        cards[i].update(camera, cardMatrices[i], parent, rotation);
+                    }
+                };
+        for (int i = 0; i < 20_000; i++) {
+            update.run();
+        }
+
+        assertEquals(0, Allocations.perRun(1000, update));
+    }
+
+    private static Vector3 randomDirection(Random random) {
+        while (true) {
+            Vector3 v =
+                    new Vector3(
+                            (float) random.nextGaussian(),
+                            (float) random.nextGaussian(),
+                            (float) random.nextGaussian());
+            float length = v.length();
+            // Stay clear of straight up and down, where the rotation is undefined.
+            if (length > 0.1f && Math.abs(v.y) / length < 0.99f) {
+                return v;
+            }
+        }
+    }
+
+    private static float[] translation(float tx, float ty, float tz) {
+        return new float[] {1f, 0f, 0f, 0f, 0f, 1f, 0f, 0f, 0f, 0f, 1f, 0f, tx, ty, tz, 1f};
+    }
+
+    /** Column-major world matrix of a rotated, uniformly scaled and translated parent. */
+    private static float[] worldMatrix(Quaternion q, float scale, float tx, float ty, float tz) {
+        float[] x = rotate(q, scale, 0f, 0f);
+        float[] y = rotate(q, 0f, scale, 0f);
+        float[] z = rotate(q, 0f, 0f, scale);
+        return new float[] {
+            x[0], x[1], x[2], 0f, y[0], y[1], y[2], 0f, z[0], z[1], z[2], 0f, tx, ty, tz, 1f
+        };
+    }
+
+    private static float[] rotate(Quaternion q, float vx, float vy, float vz) {
+        // v + 2w(q x v) + 2(q x (q x v))
+        float cx = q.y * vz - q.z * vy;
+        float cy = q.z * vx - q.x * vz;
+        float cz = q.x * vy - q.y * vx;
+        return new float[] {
+            vx + 2 * (q.w * cx + q.y * cz - q.z * cy),
+            vy + 2 * (q.w * cy + q.z * cx - q.x * cz),
+            vz + 2 * (q.w * cz + q.x * cy - q.y * cx)
+        };
+    }
+
+    /** Equal as rotations: q and -q turn vectors the same way. */
+    private static void assertSameRotation(Quaternion expected, Quaternion actual) {
+        float dot =
+                expected.x * actual.x
+                        + expected.y * actual.y
+                        + expected.z * actual.z
+                        + expected.w * actual.w;
+        assertEquals(1f, Math.abs(dot), TOLERANCE);
+    }
+}
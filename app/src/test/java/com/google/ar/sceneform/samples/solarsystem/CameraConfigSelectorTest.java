@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class CameraConfigSelectorTest {
+
+    private static final long FRAME_INTERVAL = TimeUnit.SECONDS.toNanos(1) / 30;
+    private static final long DISPLAY_PIXELS = 1080L * 2160;
+
+    // Texture and CPU image sizes of a typical back camera.
+    private static final List<CameraConfigSelector.Option> CONFIGS =
+            options(
+                    new int[] {1920, 1080, 640, 480},
+                    new int[] {1280, 720, 640, 480},
+                    new int[] {1920, 1080, 1280, 720},
+                    new int[] {1920, 1080, 1920, 1080},
+                    new int[] {3840, 2160, 1920, 1080});
+
+    @Test
+    public void largestImageWithinBudget() {
+        // 10 ms at 10 ns per pixel affords a million pixels.
+        CameraConfigSelector.Selection selection =
+                CameraConfigSelector.select(CONFIGS, budget(640, 480, 10, 10));
+
+        assertEquals(2, selection.getOption().getIndex());
+        assertEquals(1280, selection.getImageWidth());
+        assertTrue(selection.isWithinBudget());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(9216), selection.getEstimatedNanosPerFrame());
+    }
+
+    @Test
+    public void budgetChangesTheImage() {
+        assertEquals(640, select(budget(640, 480, 4, 10)).getImageWidth());
+        assertEquals(1280, select(budget(640, 480, 10, 10)).getImageWidth());
+        assertEquals(1920, select(budget(640, 480, 30, 10)).getImageWidth());
+    }
+
+    @Test
+    public void smallestUsableImageWhenNoneFits() {
+        CameraConfigSelector.Selection selection = select(budget(640, 480, 1, 10));
+
+        assertEquals(640, selection.getImageWidth());
+        assertFalse(selection.isWithinBudget());
+        assertTrue(selection.toString().endsWith("(over budget)"));
+    }
+
+    @Test
+    public void neverPicksAnImageTooSmallForTheAnalyses() {
+        CameraConfigSelector.Selection selection = select(budget(1280, 720, 10, 10));
+
+        assertEquals(1280, selection.getImageWidth());
+        assertEquals(720, selection.getImageHeight());
+    }
+
+    @Test
+    public void minimumSizeIgnoresOrientation() {
+        List<CameraConfigSelector.Option> portrait =
+                options(new int[] {1080, 1920, 480, 640}, new int[] {1080, 1920, 240, 320});
+
+        CameraConfigSelector.Selection selection =
+                CameraConfigSelector.select(portrait, budget(640, 480, 10, 10));
+
+        assertEquals(480, selection.getImageWidth());
+        assertEquals(640, selection.getImageHeight());
+    }
+
+    @Test
+    public void largestImageWhenNoneIsLargeEnough() {
+        List<CameraConfigSelector.Option> small =
+                options(new int[] {1280, 720, 320, 240}, new int[] {1280, 720, 160, 120});
+
+        assertEquals(320, CameraConfigSelector.select(small, budget(640, 480, 10, 10))
+                .getImageWidth());
+    }
+
+    @Test
+    public void largestTextureUpToTheDisplay() {
+        // Both 1920x1080 textures come with 640x480 images here, and 4K exceeds the display.
+        List<CameraConfigSelector.Option> configs =
+                options(
+                        new int[] {1280, 720, 640, 480},
+                        new int[] {1920, 1080, 640, 480},
+                        new int[] {3840, 2160, 640, 480});
+
+        assertEquals(1920, CameraConfigSelector.select(configs, budget(640, 480, 10, 10))
+                .getTextureWidth());
+    }
+
+    @Test
+    public void smallestTextureWhenAllExceedTheDisplay() {
+        List<CameraConfigSelector.Option> configs =
+                options(new int[] {3840, 2160, 640, 480}, new int[] {2560, 1440, 640, 480});
+        CameraConfigSelector.Budget budget =
+                new CameraConfigSelector.Budget(
+                        640, 480, 1280 * 720, TimeUnit.MILLISECONDS.toNanos(10), 10,
+                        FRAME_INTERVAL);
+
+        assertEquals(2560, CameraConfigSelector.select(configs, budget).getTextureWidth());
+    }
+
+    @Test
+    public void readerHoldsFramesArrivingDuringProcessing() {
+        assertEquals(2, CameraConfigSelector.readerDepth(FRAME_INTERVAL / 2, FRAME_INTERVAL));
+        assertEquals(2, CameraConfigSelector.readerDepth(FRAME_INTERVAL, FRAME_INTERVAL));
+        assertEquals(3, CameraConfigSelector.readerDepth(FRAME_INTERVAL + 1, FRAME_INTERVAL));
+        assertEquals(4, CameraConfigSelector.readerDepth(FRAME_INTERVAL * 10, FRAME_INTERVAL));
+        assertEquals(2, CameraConfigSelector.readerDepth(FRAME_INTERVAL, 0));
+    }
+
+    @Test
+    public void selectionReportsTheReaderDepth() {
+        // 1920x1080 at 20 ns per pixel is over 41 ms, more than one 33 ms frame.
+        CameraConfigSelector.Selection selection =
+                CameraConfigSelector.select(
+                        options(new int[] {1920, 1080, 1920, 1080}), budget(640, 480, 50, 20));
+
+        assertEquals(3, selection.getReaderDepth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoConfigs() {
+        CameraConfigSelector.select(
+                Collections.<CameraConfigSelector.Option>emptyList(), budget(640, 480, 10, 10));
+    }
+
+    private static CameraConfigSelector.Selection select(CameraConfigSelector.Budget budget) {
+        return CameraConfigSelector.select(CONFIGS, budget);
+    }
+
+    private static CameraConfigSelector.Budget budget(
+            int minWidth, int minHeight, long budgetMillis, double nanosPerPixel) {
+        return new CameraConfigSelector.Budget(
+                minWidth,
+                minHeight,
+                DISPLAY_PIXELS,
+                TimeUnit.MILLISECONDS.toNanos(budgetMillis),
+                nanosPerPixel,
+                FRAME_INTERVAL);
+    }
+
+    /** Each config as {texture width, texture height, image width, image height}. */
+    private static List<CameraConfigSelector.Option> options(int[]... configs) {
+        List<CameraConfigSelector.Option> options = new ArrayList<>();
+        for (int[] config : configs) {
+            options.add(
+                    new CameraConfigSelector.Option(
+                            options.size(), config[0], config[1], config[2], config[3]));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DiskCacheTest {
+
+    private static final long LIMIT = 100;
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+    private DiskCache cache;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("cache");
+        cache = new DiskCache(directory, LIMIT);
+    }
+
+    @Test
+    public void put_storesBodyAndEtag() throws IOException {
+        DiskCache.Entry put = cache.put("a", body("hello"), "\"v1\"");
+
+        DiskCache.Entry entry = cache.get("a");
+        assertNotNull(entry);
+        assertEquals(put.contentHash, entry.contentHash);
+        assertEquals("\"v1\"", entry.etag);
+        assertArrayEquals(bytes("hello"), Files.readAllBytes(entry.file.toPath()));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void put_storesSameContentOnce() throws IOException {
+        DiskCache.Entry first = cache.put("a", body("same"), null);
+        DiskCache.Entry second = cache.put("b", body("same"), null);
+
+        assertEquals(first.file, second.file);
+        assertEquals(4, cache.size());
+        assertNull(cache.get("b").etag);
+    }
+
+    @Test
+    public void put_replacesEntryForKey() throws IOException {
+        cache.put("a", body("old"), "\"v1\"");
+        cache.put("a", body("new"), "\"v2\"");
+
+        DiskCache.Entry entry = cache.get("a");
+        assertEquals("\"v2\"", entry.etag);
+        assertArrayEquals(bytes("new"), Files.readAllBytes(entry.file.toPath()));
+    }
+
+    @Test
+    public void failedPut_leavesPreviousEntryAndNoTempFiles() throws IOException {
+        cache.put("a", body("old"), "\"v1\"");
+        InputStream broken = new SequenceInputStream(body("partial"), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        try {
+            cache.put("a", broken, "\"v2\"");
+            fail();
+        } catch (IOException expected) {
+        }
+
+        DiskCache.Entry entry = cache.get("a");
+        assertEquals("\"v1\"", entry.etag);
+        assertArrayEquals(bytes("old"), Files.readAllBytes(entry.file.toPath()));
+        assertEquals(0, new File(directory, "tmp").list().length);
+        assertEquals(1, new File(directory, "blobs").list().length);
+    }
+
+    @Test
+    public void shortBody_isNotStored() throws IOException {
+        try {
+            cache.put("a", body("trunc"), null, 10);
+            fail();
+        } catch (IOException expected) {
+        }
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0, new File(directory, "tmp").list().length);
+    }
+
+    @Test
+    public void constructor_deletesLeftoverTempFiles() throws IOException {
+        File leftover = new File(new File(directory, "tmp"), "123-0.tmp");
+        try (FileOutputStream out = new FileOutputStream(leftover)) {
+            out.write(bytes("partial"));
+        }
+
+        new DiskCache(directory, LIMIT);
+
+        assertFalse(leftover.exists());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedFirst() throws IOException {
+        DiskCache.Entry a = cache.put("a", body(40, 'a'), null);
+        DiskCache.Entry b = cache.put("b", body(40, 'b'), null);
+        a.file.setLastModified(2_000_000_000_000L);
+        b.file.setLastModified(1_000_000_000_000L);
+
+        cache.put("c", body(40, 'c'), null);
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(80, cache.size());
+    }
+
+    @Test
+    public void put_neverEvictsTheBodyItJustStored() throws IOException {
+        DiskCache.Entry a = cache.put("a", body(40, 'a'), null);
+        // Older than everything else, as with a coarse file system clock.
+        a.file.setLastModified(3_000_000_000_000L);
+
+        DiskCache.Entry big = cache.put("big", body(150, 'x'), null);
+
+        assertTrue(big.file.exists());
+        assertNotNull(cache.get("big"));
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void trimToSize_evictsDownToBytes() throws IOException {
+        cache.put("a", body(30, 'a'), null).file.setLastModified(1_000_000_000_000L);
+        cache.put("b", body(30, 'b'), null).file.setLastModified(2_000_000_000_000L);
+
+        cache.trimToSize(30);
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        cache.trimToSize(0);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void remove_forgetsKeyOnly() throws IOException {
+        cache.put("a", body("shared"), null);
+        cache.put("b", body("shared"), null);
+
+        cache.remove("a");
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+    }
+
+    private static InputStream body(String text) {
+        return new ByteArrayInputStream(bytes(text));
+    }
+
+    private static InputStream body(int length, char fill) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, (byte) fill);
+        return new ByteArrayInputStream(data);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
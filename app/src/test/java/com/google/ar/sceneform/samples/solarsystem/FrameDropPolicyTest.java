@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class FrameDropPolicyTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void latestWins_processesEveryFrame() {
+        FrameDropPolicy policy = FrameDropPolicy.latestWins();
+        policy.onProcessed(1000 * MS);
+
+        assertEquals("11111", decisions(policy, 5));
+    }
+
+    @Test
+    public void everyNth_processesOneFrameInN() {
+        assertEquals("100100100", decisions(FrameDropPolicy.everyNth(3), 9));
+        assertEquals("1111", decisions(FrameDropPolicy.everyNth(1), 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void everyNth_rejectsZero() {
+        FrameDropPolicy.everyNth(0);
+    }
+
+    @Test
+    public void timeBudget_processesEverythingWithinBudget() {
+        FrameDropPolicy policy = FrameDropPolicy.timeBudget(10 * MS);
+
+        StringBuilder decisions = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            boolean process = policy.shouldProcess(i);
+            decisions.append(process ? '1' : '0');
+            policy.onProcessed(10 * MS);
+        }
+
+        assertEquals("11111", decisions.toString());
+    }
+
+    @Test
+    public void timeBudget_paysOverrunsBackWithDroppedFrames() {
+        FrameDropPolicy policy = FrameDropPolicy.timeBudget(10 * MS);
+
+        assertEquals("1", decisions(policy, 1));
+        // 25 ms over a 10 ms budget: 15 ms of debt, paid back over two dropped frames.
+        policy.onProcessed(25 * MS);
+
+        assertEquals("0011", decisions(policy, 4));
+    }
+
+    @Test
+    public void timeBudget_doesNotSaveUpUnusedBudget() {
+        FrameDropPolicy policy = FrameDropPolicy.timeBudget(10 * MS);
+        for (int i = 0; i < 10; i++) {
+            policy.shouldProcess(i);
+            policy.onProcessed(1 * MS);
+        }
+
+        policy.shouldProcess(10);
+        policy.onProcessed(21 * MS);
+
+        assertEquals("0011", decisions(policy, 4));
+    }
+
+    /** Asks the policy about {@code frames} frames, 1 for processed and 0 for dropped. */
+    private static String decisions(FrameDropPolicy policy, int frames) {
+        StringBuilder decisions = new StringBuilder();
+        for (int i = 0; i < frames; i++) {
+            decisions.append(policy.shouldProcess(i * 33 * MS) ? '1' : '0');
+        }
+        return decisions.toString();
+    }
+}
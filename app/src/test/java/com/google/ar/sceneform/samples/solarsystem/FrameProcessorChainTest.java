@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class FrameProcessorChainTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static class CountingProcessor implements FrameProcessor {
+        final float rate;
+        final boolean pausesWhenStill;
+        int count;
+
+        CountingProcessor(float rate, boolean pausesWhenStill) {
+            this.rate = rate;
+            this.pausesWhenStill = pausesWhenStill;
+        }
+
+        @Override
+        public void process(CameraFrame frame) {
+            count++;
+        }
+
+        @Override
+        public float getTargetRate() {
+            return rate;
+        }
+
+        @Override
+        public boolean pausesWhenStill() {
+            return pausesWhenStill;
+        }
+    }
+
+    private static CameraFrame frame(long timestampNanos) {
+        return new CameraFrame(4, 4, timestampNanos, null, null);
+    }
+
+    @Test
+    public void targetRateSkipsFramesInBetween() {
+        FrameProcessorChain chain = new FrameProcessorChain();
+        CountingProcessor everyFrame = new CountingProcessor(0f, false);
+        CountingProcessor tenPerSecond = new CountingProcessor(10f, false);
+        chain.add(everyFrame);
+        chain.add(tenPerSecond);
+
+        // 30 fps for one second, timestamps rounded up to whole nanoseconds.
+        for (int i = 0; i < 30; i++) {
+            chain.process(frame((i * 1_000_000_000L + 29) / 30));
+        }
+
+        assertEquals(30, everyFrame.count);
+        assertEquals(10, tenPerSecond.count);
+    }
+
+    @Test
+    public void stillSignalPausesOnlyProcessorsThatAskForIt() {
+        FrameProcessorChain chain = new FrameProcessorChain();
+        CountingProcessor detector = new CountingProcessor(0f, false);
+        CountingProcessor analysis = new CountingProcessor(0f, true);
+        chain.add(detector);
+        chain.add(analysis);
+        boolean[] still = {false};
+        chain.setStillSignal(() -> still[0]);
+
+        assertEquals(2, chain.process(frame(0)));
+        still[0] = true;
+        assertEquals(1, chain.process(frame(33 * MS)));
+        assertEquals(1, chain.process(frame(66 * MS)));
+        still[0] = false;
+        assertEquals(2, chain.process(frame(100 * MS)));
+
+        assertEquals(4, detector.count);
+        assertEquals(2, analysis.count);
+    }
+
+    @Test
+    public void stillSignalSetByEarlierProcessorCountsForSameFrame() {
+        FrameProcessorChain chain = new FrameProcessorChain();
+        boolean[] still = {false};
+        chain.add(frame -> still[0] = frame.getTimestampNanos() >= 33 * MS);
+        CountingProcessor analysis = new CountingProcessor(0f, true);
+        chain.add(analysis);
+        chain.setStillSignal(() -> still[0]);
+
+        chain.process(frame(0));
+        chain.process(frame(33 * MS));
+
+        assertEquals(1, analysis.count);
+    }
+
+    @Test
+    public void pausedProcessorRunsOnFirstFrameAfterMotion() {
+        FrameProcessorChain chain = new FrameProcessorChain();
+        CountingProcessor analysis = new CountingProcessor(2f, true);
+        chain.add(analysis);
+        boolean[] still = {false};
+        chain.setStillSignal(() -> still[0]);
+
+        chain.process(frame(0));
+        still[0] = true;
+        chain.process(frame(600 * MS));
+        still[0] = false;
+        chain.process(frame(700 * MS));
+
+        // Due since 500 ms; the skipped frame didn't restart its interval.
+        assertEquals(2, analysis.count);
+    }
+}
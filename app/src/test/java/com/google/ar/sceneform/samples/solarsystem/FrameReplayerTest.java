@@ -0,0 +1,187 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FrameReplayerTest {
+
+    private static final int WIDTH = 32;
+    private static final int HEIGHT = 24;
+    private static final int SLOTS = 4;
+    private static final long FRAME_NANOS = 33_333_333L;
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    /** Frame {@code n}: its own pixels and timestamp, and a pose on every other frame. */
+    private static CameraFrame frame(int n) {
+        TestFrames.Pattern luma = (x, y) -> (x * 3 + y * 5 + n * 17) & 0xff;
+        TestFrames.Pattern chroma = (x, y) -> (x + y * 7 + n * 29) & 0xff;
+        CameraFrame yuv =
+                TestFrames.yuvFrame(
+                        WIDTH, HEIGHT, TestFrames.ChromaLayout.NV21, 8, luma, chroma, luma);
+        CameraFrame.Plane[] planes = {
+            yuv.getPlane(CameraFrame.PLANE_Y),
+            yuv.getPlane(CameraFrame.PLANE_U),
+            yuv.getPlane(CameraFrame.PLANE_V)
+        };
+        float[] pose = n % 2 == 0 ? new float[] {n, 1, 2, 0, 0, 0, 1} : null;
+        return new CameraFrame(WIDTH, HEIGHT, n * FRAME_NANOS, planes, pose);
+    }
+
+    private File record(int frames) throws IOException {
+        File file = folder.newFile();
+        try (FrameRecorder recorder = new FrameRecorder(file, SLOTS, 0f)) {
+            for (int n = 0; n < frames; n++) {
+                recorder.process(frame(n));
+            }
+            assertNull(recorder.getError());
+        }
+        return file;
+    }
+
+    private static void assertSameFrame(CameraFrame expected, CameraFrame actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getTimestampNanos(), actual.getTimestampNanos());
+        assertArrayEquals(expected.getPose(), actual.getPose(), 0f);
+        for (int i = 0; i < FrameRecorder.PLANE_COUNT; i++) {
+            CameraFrame.Plane want = expected.getPlane(i);
+            CameraFrame.Plane got = actual.getPlane(i);
+            assertEquals(want.getRowStride(), got.getRowStride());
+            assertEquals(want.getPixelStride(), got.getPixelStride());
+            assertEquals(want.getBuffer(), got.getBuffer());
+        }
+    }
+
+    private static long slotOffset(RandomAccessFile raf, long sequence) throws IOException {
+        raf.seek(FrameRecorder.HEADER_SLOT_BYTES);
+        return FrameRecorder.HEADER_BYTES + (sequence % SLOTS) * raf.readInt();
+    }
+
+    /** The recorder stopping mid-write: slot sequence cleared and data partly overwritten. */
+    private static void tearSlot(File file, long sequence) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long slotOffset = slotOffset(raf, sequence);
+            raf.seek(slotOffset + FrameRecorder.SLOT_SEQUENCE);
+            raf.writeLong(0);
+            raf.seek(slotOffset + FrameRecorder.SLOT_HEADER_BYTES);
+            raf.write(new byte[WIDTH]);
+        }
+    }
+
+    @Test
+    public void replaysWhatWasRecorded() throws IOException {
+        File file = record(3);
+
+        try (FrameReplayer replayer = new FrameReplayer(file)) {
+            assertEquals(WIDTH, replayer.getWidth());
+            assertEquals(HEIGHT, replayer.getHeight());
+            assertEquals(3, replayer.getFrameCount());
+            assertEquals(0, replayer.getTornCount());
+            for (int i = 0; i < 3; i++) {
+                assertSameFrame(frame(i), replayer.getFrame(i));
+            }
+        }
+    }
+
+    @Test
+    public void wrappedRingReplaysLastSlotsOldestFirst() throws IOException {
+        File file = record(SLOTS + 3);
+
+        try (FrameReplayer replayer = new FrameReplayer(file)) {
+            assertEquals(SLOTS, replayer.getFrameCount());
+            for (int i = 0; i < SLOTS; i++) {
+                assertSameFrame(frame(3 + i), replayer.getFrame(i));
+            }
+        }
+    }
+
+    @Test
+    public void tornSlotIsSkipped() throws IOException {
+        File file = record(SLOTS + 2);
+        // The next write would reuse the oldest slot, frame 2, and stop before the header count.
+        tearSlot(file, SLOTS + 2);
+
+        try (FrameReplayer replayer = new FrameReplayer(file)) {
+            assertEquals(SLOTS - 1, replayer.getFrameCount());
+            assertEquals(1, replayer.getTornCount());
+            for (int i = 0; i < SLOTS - 1; i++) {
+                assertSameFrame(frame(3 + i), replayer.getFrame(i));
+            }
+        }
+    }
+
+    @Test
+    public void slotFromAnEarlierLapIsSkipped() throws IOException {
+        File file = record(SLOTS + 2);
+        // The header counted one more frame than was written: that slot still holds frame 2.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(FrameRecorder.HEADER_FRAME_COUNT);
+            raf.writeLong(SLOTS + 3);
+        }
+
+        try (FrameReplayer replayer = new FrameReplayer(file)) {
+            assertEquals(SLOTS - 1, replayer.getFrameCount());
+            assertEquals(1, replayer.getTornCount());
+            assertSameFrame(frame(3), replayer.getFrame(0));
+            assertSameFrame(frame(5), replayer.getFrame(2));
+        }
+    }
+
+    @Test
+    public void truncatedFileDropsSlotsPastTheEnd() throws IOException {
+        File file = record(3);
+        // Cut off in the middle of frame 2's planes, as an interrupted pull would.
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(slotOffset(raf, 2) + FrameRecorder.SLOT_HEADER_BYTES + WIDTH);
+        }
+
+        try (FrameReplayer replayer = new FrameReplayer(file)) {
+            assertEquals(2, replayer.getFrameCount());
+            assertEquals(1, replayer.getTornCount());
+            assertSameFrame(frame(1), replayer.getFrame(1));
+        }
+    }
+
+    @Test
+    public void replayRunsEveryCompleteFrameThroughTheChain() throws IOException,
+            InterruptedException {
+        File file = record(SLOTS + 1);
+        tearSlot(file, SLOTS + 1);
+        FrameProcessorChain chain = new FrameProcessorChain();
+        long[] timestamps = new long[SLOTS];
+        int[] count = {0};
+        chain.add(frame -> timestamps[count[0]++] = frame.getTimestampNanos());
+
+        try (FrameReplayer replayer = new FrameReplayer(file)) {
+            replayer.replay(chain, false, null);
+        }
+
+        assertEquals(SLOTS - 1, count[0]);
+        assertEquals(2 * FRAME_NANOS, timestamps[0]);
+        assertEquals(SLOTS * FRAME_NANOS, timestamps[SLOTS - 2]);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FrameStatsTest {
+
+    private static final long MS = 1_000_000L;
+    private static final long US = 1_000L;
+    // 30 fps.
+    private static final long INTERVAL = 33 * MS;
+
+    private FrameStats stats;
+
+    @Before
+    public void setUp() {
+        stats = new FrameStats();
+    }
+
+    @Test
+    public void latency_bucketsArePowersOfTwoMicros() {
+        assertEquals(0, stats.getLatencyPercentileMicros(50));
+
+        stats.onProcessed(500);
+        assertEquals(2, stats.getLatencyPercentileMicros(100));
+
+        stats = new FrameStats();
+        stats.onProcessed(3 * US);
+        assertEquals(4, stats.getLatencyPercentileMicros(100));
+
+        stats = new FrameStats();
+        stats.onProcessed(1024 * US);
+        assertEquals(2048, stats.getLatencyPercentileMicros(100));
+
+        stats = new FrameStats();
+        stats.onProcessed(1023 * US);
+        assertEquals(1024, stats.getLatencyPercentileMicros(100));
+    }
+
+    @Test
+    public void latency_lastBucketIsOpenEnded() {
+        stats.onProcessed(60_000 * MS);
+
+        assertEquals(1L << 24, stats.getLatencyPercentileMicros(100));
+    }
+
+    @Test
+    public void latency_percentilesPickTheBucketOfTheirRank() {
+        for (int i = 0; i < 98; i++) {
+            stats.onProcessed(5 * MS);
+        }
+        stats.onProcessed(50 * MS);
+        stats.onProcessed(50 * MS);
+
+        // 5 ms is in [4096, 8192) us, 50 ms in [32768, 65536) us.
+        assertEquals(8192, stats.getLatencyPercentileMicros(50));
+        assertEquals(8192, stats.getLatencyPercentileMicros(98));
+        assertEquals(65536, stats.getLatencyPercentileMicros(99));
+        assertEquals(100, stats.getProcessedCount());
+    }
+
+    @Test
+    public void skipped_isInferredFromTimestampGaps() {
+        long t = 1000 * MS;
+        stats.onAcquired(t);
+        stats.onAcquired(t += INTERVAL);
+        // Two frames missed.
+        stats.onAcquired(t += 3 * INTERVAL);
+        // One frame missed, with a little jitter.
+        stats.onAcquired(t += 2 * INTERVAL + 4 * MS);
+        stats.onAcquired(t += INTERVAL - 3 * MS);
+
+        assertEquals(5, stats.getAcquiredCount());
+        assertEquals(3, stats.getSkippedCount());
+    }
+
+    @Test
+    public void skipped_learnsTheIntervalFromTheShortestGap() {
+        long t = 0;
+        stats.onAcquired(t);
+        // Looks like the interval until a shorter gap shows up.
+        stats.onAcquired(t += 2 * INTERVAL);
+        stats.onAcquired(t += INTERVAL);
+        stats.onAcquired(t += 2 * INTERVAL);
+
+        assertEquals(1, stats.getSkippedCount());
+    }
+
+    @Test
+    public void skipped_ignoresGapsAcrossCameraRestartsAndReorderedTimestamps() {
+        stats.onAcquired(0);
+        stats.onAcquired(INTERVAL);
+        stats.onCameraRestarted();
+        stats.onAcquired(100 * INTERVAL);
+        stats.onAcquired(99 * INTERVAL);
+        stats.onAcquired(100 * INTERVAL);
+
+        assertEquals(0, stats.getSkippedCount());
+    }
+
+    @Test
+    public void overruns_countFramesSlowerThanTheInterval() {
+        stats.onAcquired(0);
+        stats.onAcquired(INTERVAL);
+
+        stats.onProcessed(INTERVAL);
+        stats.onProcessed(INTERVAL + 1);
+        stats.onDropped();
+
+        assertEquals(1, stats.getOverrunCount());
+        assertEquals(1, stats.getDroppedCount());
+    }
+
+    @Test
+    public void overruns_needAKnownInterval() {
+        stats.onProcessed(1000 * MS);
+
+        assertEquals(0, stats.getOverrunCount());
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentCallbacks2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ImageMemoryCacheTest {
+
+    private static final int MAX_BYTES = 1000;
+
+    /** Stands in for a bitmap: only its size and identity matter. */
+    private static final class Image {
+        final String name;
+        final int bytes;
+
+        Image(String name, int bytes) {
+            this.name = name;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private List<Image> recycled;
+    private ImageMemoryCache<Image> cache;
+
+    @Before
+    public void setUp() {
+        recycled = new ArrayList<>();
+        cache = new ImageMemoryCache<>(MAX_BYTES, image -> image.bytes, recycled::add);
+    }
+
+    @Test
+    public void size_countsBytesOfCachedValues() {
+        cache.put("a", new Image("a", 300));
+        cache.put("b", new Image("b", 200));
+
+        assertEquals(500, cache.size());
+        assertEquals(MAX_BYTES, cache.maxSize());
+    }
+
+    @Test
+    public void put_replacingKeyAccountsForTheNewSize() {
+        Image old = cache.put("a", new Image("old", 300));
+        cache.release(old);
+
+        cache.put("a", new Image("new", 100));
+
+        assertEquals(100, cache.size());
+        assertEquals(Collections.singletonList(old), recycled);
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    public void put_sameValueAgainKeepsTheSize() {
+        Image a = cache.put("a", new Image("a", 300));
+        cache.put("a", a);
+
+        assertEquals(300, cache.size());
+        assertTrue(recycled.isEmpty());
+    }
+
+    @Test
+    public void counters_trackHitsMissesAndEvictions() {
+        cache.release(cache.put("a", new Image("a", 600)));
+        cache.release(cache.acquire("a"));
+        assertNull(cache.acquire("b"));
+        cache.release(cache.put("b", new Image("b", 600)));
+
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.evictionCount());
+        assertFalse(cache.contains("a"));
+    }
+
+    @Test
+    public void eviction_startsAtTheLeastRecentlyUsed() {
+        cache.release(cache.put("a", new Image("a", 400)));
+        cache.release(cache.put("b", new Image("b", 400)));
+        cache.release(cache.acquire("a"));
+
+        cache.release(cache.put("c", new Image("c", 400)));
+
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertEquals("[b]", recycled.toString());
+    }
+
+    @Test
+    public void evictedValue_isRecycledOnlyAfterItsLastRelease() {
+        Image a = cache.put("a", new Image("a", 600));
+        Image again = cache.acquire("a");
+
+        // A concurrent load evicts it before the first caller shows it.
+        cache.release(cache.put("b", new Image("b", 600)));
+        assertTrue(recycled.isEmpty());
+        cache.release(a);
+        assertTrue(recycled.isEmpty());
+        cache.release(again);
+
+        assertEquals(Collections.singletonList(a), recycled);
+        assertFalse(cache.isReferenced(a));
+    }
+
+    @Test
+    public void put_keepsAValueOverTheLimitUntilReleased() {
+        Image big = cache.put("big", new Image("big", 2000));
+
+        assertFalse(cache.contains("big"));
+        assertEquals(0, cache.size());
+        assertTrue(recycled.isEmpty());
+        cache.release(big);
+        assertEquals(Collections.singletonList(big), recycled);
+    }
+
+    @Test
+    public void release_ignoresUnknownValues() {
+        cache.release(new Image("stranger", 1));
+
+        assertTrue(recycled.isEmpty());
+    }
+
+    @Test
+    public void trimMemory_keepsValuesWhileRunningOrHidden() {
+        fill();
+
+        for (int level : new int[] {
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE,
+                ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN}) {
+            assertEquals(ImageMemoryCache.TrimAction.SPARES, cache.trimMemory(level));
+            assertEquals(1000, cache.size());
+        }
+    }
+
+    @Test
+    public void trimMemory_halvesWhenLowOrInBackground() {
+        for (int level : new int[] {
+                ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW,
+                ComponentCallbacks2.TRIM_MEMORY_BACKGROUND}) {
+            fill();
+
+            assertEquals(ImageMemoryCache.TrimAction.SPARES, cache.trimMemory(level));
+            assertEquals(500, cache.size());
+            assertTrue(cache.contains("d"));
+            assertFalse(cache.contains("a"));
+        }
+    }
+
+    @Test
+    public void trimMemory_evictsAllWhenCritical() {
+        fill();
+
+        assertEquals(
+                ImageMemoryCache.TrimAction.SPARES,
+                cache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL));
+        assertEquals(0, cache.size());
+        assertEquals(4, recycled.size());
+    }
+
+    @Test
+    public void trimMemory_alsoFreesDiskNearTheKillList() {
+        for (int level : new int[] {
+                ComponentCallbacks2.TRIM_MEMORY_MODERATE,
+                ComponentCallbacks2.TRIM_MEMORY_COMPLETE}) {
+            fill();
+
+            assertEquals(ImageMemoryCache.TrimAction.SPARES_AND_DISK, cache.trimMemory(level));
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void trimMemory_ignoresUnknownLowLevels() {
+        fill();
+
+        assertEquals(ImageMemoryCache.TrimAction.NONE, cache.trimMemory(1));
+        assertEquals(1000, cache.size());
+    }
+
+    /** Caches four unreferenced 250 byte values, a to d, oldest first. */
+    private void fill() {
+        for (String name : Arrays.asList("a", "b", "c", "d")) {
+            cache.release(cache.put(name, new Image(name, 250)));
+        }
+    }
+}
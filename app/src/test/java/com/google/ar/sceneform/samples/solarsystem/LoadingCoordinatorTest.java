@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LoadingCoordinatorTest {
+
+    private LoadingCoordinator coordinator;
+    private List<String> events;
+
+    @Before
+    public void setUp() {
+        coordinator = new LoadingCoordinator();
+        events = new ArrayList<>();
+    }
+
+    @Test
+    public void whenReady_runsActionOnceAllKeysLoad() {
+        CompletableFuture<String> model = register("model");
+        CompletableFuture<String> card = register("card");
+        whenReady("model", "card");
+
+        model.complete("m");
+        assertTrue(events.isEmpty());
+        card.complete("c");
+
+        assertEquals(Arrays.asList("ready"), events);
+    }
+
+    @Test
+    public void whenReady_abandonsOnFailure() {
+        CompletableFuture<String> model = register("model");
+        register("card").complete("c");
+        whenReady("model", "card");
+
+        model.completeExceptionally(new IllegalStateException("broken"));
+
+        assertEquals(Arrays.asList("abandoned"), events);
+    }
+
+    @Test
+    public void whenReady_abandonsOnCancel() {
+        CompletableFuture<String> model = register("model");
+        whenReady("model");
+
+        model.cancel(false);
+
+        assertEquals(Arrays.asList("abandoned"), events);
+        assertEquals(0, coordinator.getTotalCount());
+    }
+
+    @Test
+    public void whenReady_abandonsImmediatelyAfterFailure() {
+        register("model").completeExceptionally(new IllegalStateException("broken"));
+
+        whenReady("model");
+
+        assertEquals(Arrays.asList("abandoned"), events);
+    }
+
+    @Test
+    public void whenReady_keepsWaitersOfOtherKeys() {
+        CompletableFuture<String> model = register("model");
+        CompletableFuture<String> other = register("other");
+        whenReady("model");
+
+        other.cancel(false);
+        assertTrue(events.isEmpty());
+        model.complete("m");
+
+        assertEquals(Arrays.asList("ready"), events);
+    }
+
+    @Test
+    public void cancel_ignoredOnceKeyIsRegisteredAgain() {
+        CompletableFuture<String> first = register("model");
+        CompletableFuture<String> second = register("model");
+        whenReady("model");
+
+        first.cancel(false);
+        assertTrue(events.isEmpty());
+        second.complete("m");
+
+        assertEquals(Arrays.asList("ready"), events);
+    }
+
+    private CompletableFuture<String> register(String key) {
+        CompletableFuture<String> stage = new CompletableFuture<>();
+        coordinator.register(key, stage, result -> { });
+        return stage;
+    }
+
+    private void whenReady(String... keys) {
+        coordinator.whenReady(() -> events.add("ready"), () -> events.add("abandoned"), keys);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Building {@link MotionDetector}'s pyramid (3 levels from 1/8 scale) at camera image sizes, with
+ * a packed Y plane and a padded one with a pixel stride of 2, and the bytes allocated per build.
+ */
+public class LuminancePyramidBenchmark {
+
+    private static final int[][] SIZES = {{640, 480}, {1280, 720}, {1920, 1080}};
+    private static final int WARMUP = 200;
+    private static final int OPS = 200;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+        Allocations.assumeSupported();
+    }
+
+    @Test
+    public void build() throws Exception {
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+            measure(width, height, TestFrames.plane(width, height, TestFrames.GRADIENT), "packed");
+            measure(
+                    width,
+                    height,
+                    TestFrames.plane(width, height, width * 2 + 64, 2, TestFrames.GRADIENT),
+                    "pixel stride 2");
+        }
+    }
+
+    private static void measure(int width, int height, CameraFrame.Plane plane, String layout)
+            throws Exception {
+        LuminancePyramid pyramid = new LuminancePyramid(3, 3);
+        Benchmarks.Op build = () -> pyramid.build(plane, width, height);
+        String name = "luminance pyramid " + width + "x" + height + ", " + layout;
+        Benchmarks.report(name, Benchmarks.nanosPerOp(WARMUP, OPS, build));
+        System.out.println(name + ": " + Allocations.perRun(OPS, build) / OPS + " bytes/op");
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.junit.Test;
+
+public class LuminancePyramidTest {
+
+    private static final int WIDTH = 130;
+    private static final int HEIGHT = 98;
+
+    @Test
+    public void levelsAreBoxFilteredAndHalved() {
+        LuminancePyramid pyramid = new LuminancePyramid(3, 2);
+        pyramid.build(TestFrames.plane(WIDTH, HEIGHT, TestFrames.GRADIENT), WIDTH, HEIGHT);
+
+        // Odd trailing rows and columns are dropped at every level.
+        assertEquals(32, pyramid.getWidth(0));
+        assertEquals(24, pyramid.getHeight(0));
+        assertEquals(16, pyramid.getWidth(1));
+        assertEquals(12, pyramid.getHeight(1));
+        assertEquals(8, pyramid.getWidth(2));
+        assertEquals(6, pyramid.getHeight(2));
+
+        for (int y = 0; y < pyramid.getHeight(0); y++) {
+            for (int x = 0; x < pyramid.getWidth(0); x++) {
+                int sum = 0;
+                for (int by = 0; by < 4; by++) {
+                    for (int bx = 0; bx < 4; bx++) {
+                        sum += TestFrames.GRADIENT.at(x * 4 + bx, y * 4 + by);
+                    }
+                }
+                assertEquals((sum + 8) / 16, pyramid.get(0, x, y));
+            }
+        }
+        for (int level = 1; level < 3; level++) {
+            for (int y = 0; y < pyramid.getHeight(level); y++) {
+                for (int x = 0; x < pyramid.getWidth(level); x++) {
+                    int sum = pyramid.get(level - 1, x * 2, y * 2)
+                            + pyramid.get(level - 1, x * 2 + 1, y * 2)
+                            + pyramid.get(level - 1, x * 2, y * 2 + 1)
+                            + pyramid.get(level - 1, x * 2 + 1, y * 2 + 1);
+                    assertEquals((sum + 2) / 4, pyramid.get(level, x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void paddedRowsAndPixelStrideMatchPackedPlane() {
+        LuminancePyramid packed = new LuminancePyramid(3, 1);
+        packed.build(TestFrames.plane(WIDTH, HEIGHT, TestFrames.GRADIENT), WIDTH, HEIGHT);
+
+        for (int pixelStride : new int[] {1, 2}) {
+            int rowStride = WIDTH * pixelStride + 24;
+            LuminancePyramid padded = new LuminancePyramid(3, 1);
+            padded.build(
+                    TestFrames.plane(WIDTH, HEIGHT, rowStride, pixelStride, TestFrames.GRADIENT),
+                    WIDTH,
+                    HEIGHT);
+            for (int level = 0; level < 3; level++) {
+                assertArrayEquals(
+                        "pixel stride " + pixelStride + ", level " + level,
+                        packed.getLevel(level),
+                        padded.getLevel(level));
+            }
+        }
+    }
+
+    @Test
+    public void baseShiftZeroCopiesThePlane() {
+        LuminancePyramid pyramid = new LuminancePyramid(1, 0);
+        pyramid.build(TestFrames.plane(8, 4, 20, 2, TestFrames.GRADIENT), 8, 4);
+
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 8; x++) {
+                assertEquals(TestFrames.GRADIENT.at(x, y), pyramid.get(0, x, y));
+            }
+        }
+    }
+
+    @Test
+    public void reusesLevelsUntilTheSizeChanges() {
+        LuminancePyramid pyramid = new LuminancePyramid(2, 1);
+        pyramid.build(TestFrames.plane(WIDTH, HEIGHT, TestFrames.GRADIENT), WIDTH, HEIGHT);
+        byte[] base = pyramid.getLevel(0);
+
+        pyramid.build(TestFrames.plane(WIDTH, HEIGHT, (x, y) -> 7), WIDTH, HEIGHT);
+        assertEquals(base, pyramid.getLevel(0));
+        assertEquals(7f, pyramid.getMean(0), 0f);
+
+        pyramid.build(TestFrames.plane(64, 48, TestFrames.GRADIENT), 64, 48);
+        assertNotSame(base, pyramid.getLevel(0));
+        assertEquals(32, pyramid.getWidth(0));
+    }
+
+    @Test
+    public void buildAllocatesNothingAfterWarmUp() throws Exception {
+        Allocations.assumeSupported();
+        LuminancePyramid pyramid = new LuminancePyramid(3, 3);
+        CameraFrame.Plane plane =
+                TestFrames.plane(640, 480, 640 * 2 + 64, 2, TestFrames.GRADIENT);
+        Benchmarks.Op build = () -> pyramid.build(plane, 640, 480);
+        for (int i = 0; i < 200; i++) {
+            build.run();
+        }
+
+        assertEquals(0, Allocations.perRun(100, build));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoLevels() {
+        new LuminancePyramid(0, 1);
+    }
+}
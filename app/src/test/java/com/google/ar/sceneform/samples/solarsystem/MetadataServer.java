@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for the product metadata backend that {@link ProductMetadataClient} talks to.
+ *
+ * <p>Answers {@code POST {"ids":[...]}} with a chunked JSON array, flushing after every object so
+ * the client can be seen parsing incrementally. Latency, per-object delay and failures can be set
+ * per test, and every batch it receives is recorded.
+ */
+final class MetadataServer implements Closeable {
+
+    private static final String PATH = "/v1/products/batch";
+
+    static {
+        // Without this every flushed object waits out the loopback delayed ACK, about 40 ms.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, ProductMetadata> products = new ConcurrentHashMap<>();
+    private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    private volatile int status = 200;
+    private volatile long latencyMs;
+    private volatile long delayPerObjectMs;
+    private volatile CountDownLatch holdAfterFirstObject;
+
+    MetadataServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+    }
+
+    MetadataServer add(String id, String name, long price) {
+        products.put(id, new ProductMetadata(id, name, price));
+        return this;
+    }
+
+    /** Answers every batch with {@code status} and no body unless it is 200. */
+    void setStatus(int status) {
+        this.status = status;
+    }
+
+    /** Delay before the response headers, like a network round trip. */
+    void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    /** Delay before each object, like a backend that looks products up one by one. */
+    void setDelayPerObjectMs(long delayPerObjectMs) {
+        this.delayPerObjectMs = delayPerObjectMs;
+    }
+
+    /** Stops each response after its first object until {@code latch} opens. */
+    void holdAfterFirstObject(CountDownLatch latch) {
+        this.holdAfterFirstObject = latch;
+    }
+
+    /** The ids of every batch received so far, in order. */
+    List<List<String>> getBatches() {
+        synchronized (batches) {
+            return new ArrayList<>(batches);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            List<String> ids = readIds(exchange);
+            batches.add(ids);
+            sleep(latencyMs);
+            if (status != 200) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            // Length 0 means chunked, so every flush reaches the client.
+            exchange.sendResponseHeaders(200, 0);
+            JsonWriter writer =
+                    new JsonWriter(
+                            new OutputStreamWriter(
+                                    exchange.getResponseBody(), StandardCharsets.UTF_8));
+            writer.beginArray();
+            boolean first = true;
+            for (String id : ids) {
+                ProductMetadata product = products.get(id);
+                if (product == null) {
+                    continue;
+                }
+                if (!first && holdAfterFirstObject != null) {
+                    holdAfterFirstObject.await(10, TimeUnit.SECONDS);
+                }
+                sleep(delayPerObjectMs);
+                writer.beginObject()
+                        .name("id").value(product.id)
+                        .name("name").value(product.name)
+                        .name("price").value(product.price)
+                        .endObject();
+                writer.flush();
+                first = false;
+            }
+            writer.endArray();
+            writer.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static List<String> readIds(HttpExchange exchange) throws IOException {
+        List<String> ids = new ArrayList<>();
+        JsonReader reader =
+                new JsonReader(
+                        new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("ids")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    ids.add(reader.nextString());
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return ids;
+    }
+
+    private static void sleep(long ms) throws InterruptedException {
+        if (ms > 0) {
+            Thread.sleep(ms);
+        }
+    }
+}
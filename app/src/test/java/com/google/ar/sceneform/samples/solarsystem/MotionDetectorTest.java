@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MotionDetectorTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+
+    @Test
+    public void stillAfterSeveralUnchangedFrames() {
+        MotionDetector detector = new MotionDetector();
+        CameraFrame frame = frame(TestFrames.GRADIENT);
+
+        detector.process(frame);
+        for (int i = 0; i < 3; i++) {
+            detector.process(frame);
+            assertFalse(detector.isStill());
+        }
+        detector.process(frame);
+
+        assertTrue(detector.isStill());
+        assertEquals(0f, detector.getDifference(), 0f);
+    }
+
+    @Test
+    public void movementResetsStill() {
+        MotionDetector detector = new MotionDetector();
+        CameraFrame frame = frame(TestFrames.GRADIENT);
+        for (int i = 0; i < 5; i++) {
+            detector.process(frame);
+        }
+
+        detector.process(frame((x, y) -> TestFrames.GRADIENT.at(x + 40, y)));
+
+        assertFalse(detector.isStill());
+        assertTrue(detector.getDifference() > 3f);
+    }
+
+    @Test
+    public void processAllocatesNothingAfterWarmUp() throws Exception {
+        Allocations.assumeSupported();
+        MotionDetector detector = new MotionDetector();
+        CameraFrame[] frames = {
+            frame(TestFrames.GRADIENT), frame((x, y) -> TestFrames.GRADIENT.at(x + 8, y))
+        };
+        int[] next = new int[1];
+        Benchmarks.Op process = () -> detector.process(frames[next[0]++ & 1]);
+        for (int i = 0; i < 200; i++) {
+            process.run();
+        }
+
+        assertEquals(0, Allocations.perRun(100, process));
+    }
+
+    /** A frame with a padded, interleaved Y plane as some camera HALs deliver. */
+    private static CameraFrame frame(TestFrames.Pattern pattern) {
+        CameraFrame.Plane y = TestFrames.plane(WIDTH, HEIGHT, WIDTH * 2 + 64, 2, pattern);
+        return new CameraFrame(WIDTH, HEIGHT, 0, new CameraFrame.Plane[] {y}, null);
+    }
+}
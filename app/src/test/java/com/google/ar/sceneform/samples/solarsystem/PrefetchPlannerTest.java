@@ -0,0 +1,189 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrefetchPlannerTest {
+
+    private static final long BUDGET = 1000;
+
+    private PrefetchStats stats;
+    private PrefetchPlanner planner;
+
+    @Before
+    public void setUp() {
+        stats = new PrefetchStats();
+        planner = new PrefetchPlanner(stats, BUDGET);
+    }
+
+    @Test
+    public void window_looksAheadWhenScrollingDown() {
+        PrefetchPlanner.Window window = PrefetchPlanner.window(10, 14, 25, 100);
+
+        assertEquals(10 - PrefetchPlanner.LOOKBEHIND_ROWS, window.from);
+        assertEquals(14 + PrefetchPlanner.LOOKAHEAD_ROWS, window.to);
+    }
+
+    @Test
+    public void window_looksAheadWhenScrollingUp() {
+        PrefetchPlanner.Window window = PrefetchPlanner.window(10, 14, -25, 100);
+
+        assertEquals(10 - PrefetchPlanner.LOOKAHEAD_ROWS, window.from);
+        assertEquals(14 + PrefetchPlanner.LOOKBEHIND_ROWS, window.to);
+    }
+
+    @Test
+    public void window_staysInsideTheList() {
+        PrefetchPlanner.Window top = PrefetchPlanner.window(0, 3, -25, 6);
+        PrefetchPlanner.Window bottom = PrefetchPlanner.window(2, 5, 25, 6);
+
+        assertEquals(0, top.from);
+        assertEquals(4, top.to);
+        assertEquals(1, bottom.from);
+        assertEquals(5, bottom.to);
+    }
+
+    @Test
+    public void window_isNullWithoutVisibleRows() {
+        assertNull(PrefetchPlanner.window(-1, -1, 0, 10));
+        assertNull(PrefetchPlanner.window(0, 0, 0, 0));
+    }
+
+    @Test
+    public void outside_listsLoadsThatScrolledAway() {
+        PrefetchPlanner.Reservation above = planner.reserve("a.sfb", 2, 10);
+        PrefetchPlanner.Reservation inside = planner.reserve("b.sfb", 8, 10);
+        PrefetchPlanner.Reservation below = planner.reserve("c.sfb", 20, 10);
+
+        List<PrefetchPlanner.Reservation> outside =
+                planner.outside(PrefetchPlanner.window(6, 10, 25, 100));
+
+        assertEquals(2, outside.size());
+        assertTrue(outside.contains(above));
+        assertTrue(outside.contains(below));
+        assertFalse(outside.contains(inside));
+    }
+
+    @Test
+    public void outside_ignoresFinishedLoads() {
+        PrefetchPlanner.Reservation done = planner.reserve("a.sfb", 2, 10);
+        planner.finish(done, true);
+
+        assertTrue(planner.outside(PrefetchPlanner.window(50, 60, 25, 100)).isEmpty());
+    }
+
+    @Test
+    public void reserve_refusesWhatExceedsTheBudget() {
+        assertNotNull(planner.reserve("a.sfb", 0, 600));
+
+        assertNull(planner.reserve("b.sfb", 1, 401));
+        assertNotNull(planner.reserve("c.sfb", 2, 400));
+        assertEquals(1000, planner.getReservedBytes());
+    }
+
+    @Test
+    public void finish_chargesLoadedAndRefundsTheReservation() {
+        PrefetchPlanner.Reservation reservation = planner.reserve("a.sfb", 0, 600);
+
+        planner.finish(reservation, true);
+
+        assertEquals(0, planner.getReservedBytes());
+        assertEquals(600, stats.getPrefetchedBytes());
+        assertNull(planner.getReservation("a.sfb"));
+        // Spent bytes still count against the budget.
+        assertNull(planner.reserve("b.sfb", 1, 401));
+    }
+
+    @Test
+    public void finish_refundsCancelledWithoutCharging() {
+        PrefetchPlanner.Reservation reservation = planner.reserve("a.sfb", 0, 600);
+
+        planner.finish(reservation, false);
+
+        assertEquals(0, planner.getReservedBytes());
+        assertEquals(0, stats.getPrefetchedBytes());
+        assertNotNull(planner.reserve("b.sfb", 1, 1000));
+    }
+
+    @Test
+    public void finish_twiceRefundsOnce() {
+        PrefetchPlanner.Reservation first = planner.reserve("a.sfb", 0, 300);
+        planner.reserve("b.sfb", 1, 300);
+
+        planner.finish(first, false);
+        planner.finish(first, false);
+
+        assertEquals(300, planner.getReservedBytes());
+    }
+
+    @Test
+    public void finish_ofAnOldReservationKeepsTheNewOne() {
+        PrefetchPlanner.Reservation old = planner.reserve("a.sfb", 0, 300);
+        planner.finish(old, false);
+        PrefetchPlanner.Reservation renewed = planner.reserve("a.sfb", 0, 300);
+
+        planner.finish(old, false);
+
+        assertSame(renewed, planner.getReservation("a.sfb"));
+        assertEquals(300, planner.getReservedBytes());
+    }
+
+    @Test
+    public void throttle_followsDeviceState() {
+        List<PrefetchPlanner.Throttle> throttles = new ArrayList<>();
+        throttles.add(PrefetchPlanner.throttle(false, 80, 100, false, true, false));
+        throttles.add(PrefetchPlanner.throttle(true, 80, 100, true, true, false));
+        throttles.add(PrefetchPlanner.throttle(false, 19, 100, false, true, false));
+        throttles.add(PrefetchPlanner.throttle(false, 19, 100, true, true, false));
+        throttles.add(PrefetchPlanner.throttle(false, -1, -1, false, true, false));
+        throttles.add(PrefetchPlanner.throttle(false, 80, 100, false, true, true));
+        throttles.add(PrefetchPlanner.throttle(false, 80, 100, false, false, false));
+
+        assertEquals(
+                Arrays.asList(
+                        PrefetchPlanner.Throttle.FULL,
+                        PrefetchPlanner.Throttle.PAUSED,
+                        PrefetchPlanner.Throttle.PAUSED,
+                        PrefetchPlanner.Throttle.FULL,
+                        PrefetchPlanner.Throttle.FULL,
+                        PrefetchPlanner.Throttle.LOCAL_ONLY,
+                        PrefetchPlanner.Throttle.LOCAL_ONLY),
+                throttles);
+    }
+
+    @Test
+    public void allows_remoteModelsOnlyAtFull() {
+        String remote = "https://example.com/chair.sfb";
+
+        assertTrue(PrefetchPlanner.allows(PrefetchPlanner.Throttle.FULL, remote));
+        assertFalse(PrefetchPlanner.allows(PrefetchPlanner.Throttle.LOCAL_ONLY, remote));
+        assertTrue(PrefetchPlanner.allows(PrefetchPlanner.Throttle.LOCAL_ONLY, "Earth.sfb"));
+        assertFalse(PrefetchPlanner.allows(PrefetchPlanner.Throttle.PAUSED, "Earth.sfb"));
+    }
+}
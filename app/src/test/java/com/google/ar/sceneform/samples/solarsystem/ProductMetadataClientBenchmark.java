@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Latency of filling a screen of cards from {@link MetadataServer} with a simulated round trip and
+ * per-product backend cost: one batched request, with time to the first card and to the last, and
+ * one request per product for comparison.
+ */
+public class ProductMetadataClientBenchmark {
+
+    private static final int CARDS = 12;
+    private static final long ROUND_TRIP_MS = 20;
+    private static final long PER_OBJECT_MS = 2;
+    private static final int WARMUP = 3;
+    private static final int RUNS = 5;
+
+    private MetadataServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        Benchmarks.assumeEnabled();
+        server = new MetadataServer();
+        for (int i = 0; i < CARDS; i++) {
+            server.add("product" + i, "상품 " + i, 1000 * i);
+        }
+        server.setLatencyMs(ROUND_TRIP_MS);
+        server.setDelayPerObjectMs(PER_OBJECT_MS);
+    }
+
+    @After
+    public void tearDown() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void batchedScreenOfCards() throws Exception {
+        long[] firstCard = new long[1];
+        double all =
+                Benchmarks.nanosPerOp(
+                        WARMUP,
+                        RUNS,
+                        () -> {
+                            // A fresh client each run, so nothing comes from its cache.
+                            ProductMetadataClient client =
+                                    new ProductMetadataClient(server.getEndpoint());
+                            long start = System.nanoTime();
+                            List<CompletableFuture<ProductMetadata>> cards = new ArrayList<>();
+                            for (int i = 0; i < CARDS; i++) {
+                                cards.add(client.get("product" + i));
+                            }
+                            cards.get(0).get(10, TimeUnit.SECONDS);
+                            firstCard[0] = System.nanoTime() - start;
+                            CompletableFuture.allOf(cards.toArray(new CompletableFuture[0]))
+                                    .get(10, TimeUnit.SECONDS);
+                        });
+        Benchmarks.report("metadata batched, first of " + CARDS + " cards, last run", firstCard[0]);
+        Benchmarks.report("metadata batched, all " + CARDS + " cards", all);
+    }
+
+    @Test
+    public void oneRequestPerCard() throws Exception {
+        double all =
+                Benchmarks.nanosPerOp(
+                        WARMUP,
+                        RUNS,
+                        () -> {
+                            ProductMetadataClient client =
+                                    new ProductMetadataClient(server.getEndpoint());
+                            // Waiting for each lookup keeps them in separate batch windows.
+                            for (int i = 0; i < CARDS; i++) {
+                                client.get("product" + i).get(10, TimeUnit.SECONDS);
+                            }
+                        });
+        Benchmarks.report("metadata one request per card, all " + CARDS + " cards", all);
+    }
+}
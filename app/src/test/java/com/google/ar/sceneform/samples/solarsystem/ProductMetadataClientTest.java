@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProductMetadataClientTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private MetadataServer server;
+    private ProductMetadataClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server =
+                new MetadataServer()
+                        .add("gray_sofa", "회색 소파", 320000)
+                        .add("red_sofa", "빨간 소파", 280000)
+                        .add("zebra_bed", "얼룩말 침대", 990000);
+        client = new ProductMetadataClient(server.getEndpoint(), 100, 400);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void lookupsInOneWindowShareOneRequest() throws Exception {
+        CompletableFuture<ProductMetadata> gray = client.get("gray_sofa");
+        CompletableFuture<ProductMetadata> red = client.get("red_sofa");
+        CompletableFuture<ProductMetadata> grayAgain = client.get("gray_sofa");
+
+        assertEquals("회색 소파", await(gray).name);
+        assertEquals(280000, await(red).price);
+        assertEquals("회색 소파", await(grayAgain).name);
+        assertEquals(
+                Collections.singletonList(Arrays.asList("gray_sofa", "red_sofa")),
+                server.getBatches());
+    }
+
+    @Test
+    public void lookupCompletesBeforeTheRestOfTheBatchArrives() throws Exception {
+        CountDownLatch rest = new CountDownLatch(1);
+        server.holdAfterFirstObject(rest);
+
+        CompletableFuture<ProductMetadata> first = client.get("gray_sofa");
+        CompletableFuture<ProductMetadata> second = client.get("red_sofa");
+
+        assertEquals("gray_sofa", await(first).id);
+        assertFalse(second.isDone());
+        rest.countDown();
+        assertEquals("red_sofa", await(second).id);
+    }
+
+    @Test
+    public void cachedLookupsDontHitTheServer() throws Exception {
+        await(client.get("zebra_bed"));
+
+        CompletableFuture<ProductMetadata> cached = client.get("zebra_bed");
+
+        assertTrue(cached.isDone());
+        assertEquals(1, server.getBatches().size());
+    }
+
+    @Test
+    public void missingIdsFailOnlyTheirOwnLookup() throws Exception {
+        CompletableFuture<ProductMetadata> known = client.get("red_sofa");
+        CompletableFuture<ProductMetadata> unknown = client.get("blue_chair");
+
+        assertEquals("red_sofa", await(known).id);
+        assertFailure(unknown, IOException.class, "No metadata for blue_chair");
+    }
+
+    @Test
+    public void failedBatchBacksOffBeforeTryingAgain() throws Exception {
+        server.setStatus(500);
+        assertFailure(client.get("gray_sofa"), IOException.class, "HTTP 500");
+
+        // Within the back-off the lookup fails without a request.
+        assertFailure(client.get("red_sofa"), IOException.class, "Backing off after 1");
+        assertEquals(1, server.getBatches().size());
+
+        server.setStatus(200);
+        Thread.sleep(150);
+        assertEquals("red_sofa", await(client.get("red_sofa")).id);
+        assertEquals(2, server.getBatches().size());
+    }
+
+    @Test
+    public void backOffDoublesWithEachFailure() throws Exception {
+        server.setStatus(503);
+        assertFailure(client.get("gray_sofa"), IOException.class, "HTTP 503");
+        Thread.sleep(150);
+        assertFailure(client.get("gray_sofa"), IOException.class, "HTTP 503");
+
+        // The second back-off is 200 ms, so 150 ms later it still holds.
+        Thread.sleep(150);
+        assertFailure(client.get("gray_sofa"), IOException.class, "Backing off after 2");
+        assertEquals(2, server.getBatches().size());
+    }
+
+    @Test
+    public void withoutEndpointLookupsFailImmediately() throws Exception {
+        for (String endpoint : new String[] {null, ""}) {
+            ProductMetadataClient disabled = new ProductMetadataClient(endpoint);
+
+            assertFalse(disabled.isEnabled());
+            CompletableFuture<ProductMetadata> lookup = disabled.get("gray_sofa");
+            assertTrue(lookup.isDone());
+            assertFailure(lookup, IllegalStateException.class, "No product metadata endpoint");
+        }
+        assertTrue(server.getBatches().isEmpty());
+    }
+
+    private static ProductMetadata await(CompletableFuture<ProductMetadata> future)
+            throws Exception {
+        return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void assertFailure(
+            CompletableFuture<ProductMetadata> future, Class<?> type, String messagePrefix)
+            throws Exception {
+        try {
+            await(future);
+            fail("Expected " + type.getSimpleName());
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().toString(), type.isInstance(e.getCause()));
+            String message = e.getCause().getMessage();
+            assertTrue(message, message.startsWith(messagePrefix));
+        }
+    }
+}
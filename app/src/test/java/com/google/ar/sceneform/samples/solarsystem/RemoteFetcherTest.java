@@ -0,0 +1,267 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** Runs {@link RemoteFetcher} against a local HTTP server serving fixed bodies with ETags. */
+public class RemoteFetcherTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService executor;
+    private DiskCache diskCache;
+    private RemoteFetcher fetcher;
+
+    private final Map<String, byte[]> bodies = new ConcurrentHashMap<>();
+    private final Map<String, String> etags = new ConcurrentHashMap<>();
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private volatile int status = 200;
+    // Sends only half the body and closes, like a dropped connection.
+    private volatile boolean truncate;
+
+    @Before
+    public void setUp() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        executor = Executors.newFixedThreadPool(2);
+        diskCache = new DiskCache(folder.newFolder("cache"), 1024);
+        fetcher = new RemoteFetcher(diskCache, executor);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void ok_downloadsIntoTheCache() throws Exception {
+        serve("/chair.png", "chair", "\"c1\"");
+
+        File file = fetch("/chair.png");
+
+        assertArrayEquals(bytes("chair"), Files.readAllBytes(file.toPath()));
+        assertEquals("\"c1\"", diskCache.get(url("/chair.png")).etag);
+        assertEquals(Collections.singletonList("GET /chair.png -"), requests);
+    }
+
+    @Test
+    public void notModified_reusesTheCachedFile() throws Exception {
+        serve("/chair.png", "chair", "\"c1\"");
+        File first = fetch("/chair.png");
+
+        File second = fetch("/chair.png");
+
+        assertEquals(first, second);
+        assertEquals("GET /chair.png \"c1\"", requests.get(1));
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void changedEtag_replacesTheCachedBody() throws Exception {
+        serve("/chair.png", "chair", "\"c1\"");
+        fetch("/chair.png");
+        serve("/chair.png", "chair v2", "\"c2\"");
+
+        File file = fetch("/chair.png");
+
+        assertArrayEquals(bytes("chair v2"), Files.readAllBytes(file.toPath()));
+        assertEquals("\"c2\"", diskCache.get(url("/chair.png")).etag);
+    }
+
+    @Test
+    public void withoutEtag_downloadsAgain() throws Exception {
+        serve("/chair.png", "chair", null);
+        fetch("/chair.png");
+
+        fetch("/chair.png");
+
+        assertEquals("GET /chair.png -", requests.get(1));
+    }
+
+    @Test
+    public void offline_fallsBackToTheCachedCopy() throws Exception {
+        serve("/chair.png", "chair", "\"c1\"");
+        File cached = fetch("/chair.png");
+        String url = url("/chair.png");
+        server.stop(0);
+
+        File file = fetcher.fetchBlocking(url);
+
+        assertEquals(cached, file);
+    }
+
+    @Test
+    public void serverError_fallsBackToTheCachedCopy() throws Exception {
+        serve("/chair.png", "chair", "\"c1\"");
+        File cached = fetch("/chair.png");
+        status = 500;
+
+        assertEquals(cached, fetch("/chair.png"));
+    }
+
+    @Test
+    public void offlineWithoutCopy_fails() throws Exception {
+        String url = url("/chair.png");
+        server.stop(0);
+
+        try {
+            fetcher.fetchBlocking(url);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void notFound_fails() {
+        try {
+            fetcher.fetchBlocking(url("/missing.png"));
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("404"));
+        }
+    }
+
+    @Test
+    public void truncatedBody_leavesNothingBehind() throws Exception {
+        serve("/model.sfb", "0123456789abcdef", "\"m1\"");
+        truncate = true;
+
+        try {
+            fetcher.fetchBlocking(url("/model.sfb"));
+            fail();
+        } catch (IOException expected) {
+        }
+
+        assertNull(diskCache.get(url("/model.sfb")));
+        assertEquals(0, diskCache.size());
+    }
+
+    @Test
+    public void download_evictsOlderBodiesButKeepsItsOwn() throws Exception {
+        serve("/a.sfb", repeat('a', 600), "\"a\"");
+        serve("/b.sfb", repeat('b', 600), "\"b\"");
+        File a = fetch("/a.sfb");
+        // Newer than the next download, as with a coarse file system clock.
+        a.setLastModified(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+
+        File b = fetch("/b.sfb");
+
+        assertTrue(b.exists());
+        assertNull(diskCache.get(url("/a.sfb")));
+        assertEquals(600, diskCache.size());
+    }
+
+    private File fetch(String path) throws Exception {
+        return fetcher.fetch(url(path)).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void serve(String path, String body, String etag) {
+        bodies.put(path, bytes(body));
+        if (etag != null) {
+            etags.put(path, etag);
+        } else {
+            etags.remove(path);
+        }
+    }
+
+    private String url(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            requests.add(exchange.getRequestMethod() + " " + path + " "
+                    + (ifNoneMatch != null ? ifNoneMatch : "-"));
+
+            byte[] body = bodies.get(path);
+            String etag = etags.get(path);
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (status != 200) {
+                exchange.sendResponseHeaders(status, -1);
+                return;
+            }
+            if (etag != null && etag.equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            if (etag != null) {
+                exchange.getResponseHeaders().set("ETag", etag);
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body, 0, truncate ? body.length / 2 : body.length);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import com.google.ar.sceneform.math.Quaternion;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * One frame of {@link RotationAnimationScheduler} over 10, 100 and 1000 turntables in each
+ * {@link RotatingNode.RotationMode}: the scheduler loop, the phase math and the orientation, copied
+ * out as {@code Node.setLocalRotation} does.
+ *
+ * <p>Nodes themselves need a running Sceneform scene, so each turntable stands in for one.
+ */
+public class RotationAnimationSchedulerBenchmark {
+
+    private static final int[] COUNTS = {10, 100, 1000};
+    private static final float FRAME_SECONDS = 1f / 60;
+    private static final int WARMUP = 2_000;
+    private static final int FRAMES = 2_000;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void frame() throws Exception {
+        for (RotatingNode.RotationMode mode : RotatingNode.RotationMode.values()) {
+            for (int count : COUNTS) {
+                RotationAnimationScheduler scheduler =
+                        new RotationAnimationScheduler(new SolarSettings());
+                for (int i = 0; i < count; i++) {
+                    scheduler.add(new Turntable(mode, i % 3 == 0, i * 7.5f % 30));
+                }
+                Benchmarks.report(
+                        "rotation frame, " + count + " nodes, " + mode,
+                        Benchmarks.nanosPerOp(
+                                WARMUP, FRAMES, () -> scheduler.advance(FRAME_SECONDS)));
+            }
+        }
+    }
+
+    /** A {@link RotatingNode} without the node. */
+    private static class Turntable implements RotationAnimationScheduler.Target {
+        private final TurntableRotation rotation;
+        private final boolean orbit;
+        private final Quaternion localRotation = new Quaternion();
+
+        Turntable(RotatingNode.RotationMode mode, boolean orbit, float axisTiltDeg) {
+            this.rotation = new TurntableRotation(!orbit, axisTiltDeg);
+            this.orbit = orbit;
+            rotation.setRotationMode(mode);
+        }
+
+        @Override
+        public boolean isOrbit() {
+            return orbit;
+        }
+
+        @Override
+        public void advance(float scaledSeconds) {
+            if (rotation.advance(scaledSeconds)) {
+                localRotation.set(rotation.getRotation());
+            }
+        }
+    }
+}
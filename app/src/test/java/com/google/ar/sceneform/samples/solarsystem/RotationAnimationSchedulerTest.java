@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RotationAnimationSchedulerTest {
+
+    private final SolarSettings settings = new SolarSettings();
+    private final RotationAnimationScheduler scheduler = new RotationAnimationScheduler(settings);
+
+    @Test
+    public void appliesTheSpeedSettingOfEachKind() {
+        RecordingTarget orbit = new RecordingTarget(true);
+        RecordingTarget spin = new RecordingTarget(false);
+        scheduler.add(orbit);
+        scheduler.add(spin);
+        settings.setOrbitSpeedMultiplier(2f);
+        settings.setRotationSpeedMultiplier(0.5f);
+
+        scheduler.advance(0.1f);
+
+        assertEquals(0.2f, orbit.seconds, 1e-6f);
+        assertEquals(0.05f, spin.seconds, 1e-6f);
+    }
+
+    @Test
+    public void pauseFreezesAndResumeDoesNotJump() {
+        RecordingTarget target = new RecordingTarget(false);
+        scheduler.add(target);
+        scheduler.advance(0.1f);
+
+        scheduler.pause();
+        scheduler.advance(5f);
+        assertTrue(scheduler.isPaused());
+        assertEquals(0.1f, target.seconds, 1e-6f);
+
+        scheduler.resume();
+        scheduler.advance(0.1f);
+        assertEquals(0.2f, target.seconds, 1e-6f);
+    }
+
+    @Test
+    public void addsEachTargetOnceAndStopsAfterRemove() {
+        RecordingTarget target = new RecordingTarget(false);
+        scheduler.add(target);
+        scheduler.add(target);
+        assertEquals(1, scheduler.getNodeCount());
+
+        scheduler.advance(0.1f);
+        scheduler.remove(target);
+        scheduler.advance(0.1f);
+
+        assertEquals(1, target.calls);
+        assertEquals(0, scheduler.getNodeCount());
+    }
+
+    @Test
+    public void turntablePhaseFollowsSpeedAndWraps() {
+        TurntableRotation rotation = new TurntableRotation(false, 0f);
+
+        assertTrue(rotation.advance(1f));
+        assertEquals(0.25, rotation.getPhase(), 1e-9);
+        rotation.setDegreesPerSecond(360f);
+        rotation.advance(2.5f);
+        assertEquals(0.75, rotation.getPhase(), 1e-9);
+        assertFalse(rotation.advance(0f));
+    }
+
+    @Test
+    public void turntablePhaseDoesNotDriftOverManyFrames() {
+        TurntableRotation rotation = new TurntableRotation(false, 23.4f);
+
+        // A minute at 60 fps and 90 degrees per second is exactly 15 turns.
+        for (int frame = 0; frame < 3600; frame++) {
+            rotation.advance(1f / 60);
+        }
+
+        double offset = Math.min(rotation.getPhase(), 1 - rotation.getPhase());
+        assertEquals(0, offset, 1e-6);
+    }
+
+    private static class RecordingTarget implements RotationAnimationScheduler.Target {
+        final boolean orbit;
+        float seconds;
+        int calls;
+
+        RecordingTarget(boolean orbit) {
+            this.orbit = orbit;
+        }
+
+        @Override
+        public boolean isOrbit() {
+            return orbit;
+        }
+
+        @Override
+        public void advance(float scaledSeconds) {
+            seconds += scaledSeconds;
+            calls++;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private ExecutorService executor;
+    private ExecutorService callers;
+    private SingleFlight<String, Object> singleFlight;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        callers = Executors.newFixedThreadPool(CALLERS);
+        singleFlight = new SingleFlight<>(executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoad() throws Exception {
+        Object result = new Object();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<Object>> futures =
+                executeConcurrently(
+                        "key",
+                        () -> {
+                            loads.incrementAndGet();
+                            release.await();
+                            return result;
+                        });
+        release.countDown();
+
+        for (CompletableFuture<Object> future : futures) {
+            assertSame(result, future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void concurrentCallersShareOneFailure() throws Exception {
+        IOException failure = new IOException("offline");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<Object>> futures =
+                executeConcurrently(
+                        "key",
+                        () -> {
+                            loads.incrementAndGet();
+                            release.await();
+                            throw failure;
+                        });
+        release.countDown();
+
+        for (CompletableFuture<Object> future : futures) {
+            try {
+                future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertSame(failure, e.getCause());
+            }
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    @Test
+    public void keysLoadIndependently() throws Exception {
+        CompletableFuture<Object> a = singleFlight.execute("a", () -> "A");
+        CompletableFuture<Object> b = singleFlight.execute("b", () -> "B");
+
+        assertEquals("A", a.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals("B", b.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void finishedKeyLoadsAgain() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute("key", loads::incrementAndGet).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        singleFlight.execute("key", loads::incrementAndGet).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void cancellingOneCallerKeepsTheLoadForTheOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> cancelled =
+                singleFlight.execute(
+                        "key",
+                        () -> {
+                            release.await();
+                            return "done";
+                        });
+        CompletableFuture<Object> kept = singleFlight.execute("key", () -> "second load");
+
+        cancelled.cancel(true);
+        release.countDown();
+
+        assertEquals("done", kept.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancellingTheLastCallerInterruptsTheLoad() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Object> future =
+                singleFlight.execute(
+                        "key",
+                        () -> {
+                            started.countDown();
+                            try {
+                                new CountDownLatch(1).await();
+                            } catch (InterruptedException e) {
+                                interrupted.countDown();
+                            }
+                            return null;
+                        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        future.cancel(true);
+
+        assertTrue(interrupted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(0, singleFlight.getInFlightCount());
+    }
+
+    /** Calls {@link SingleFlight#execute} from {@link #CALLERS} threads at once. */
+    private List<CompletableFuture<Object>> executeConcurrently(
+            String key, Callable<Object> task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CompletableFuture<Object>>> submitted = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            submitted.add(
+                    callers.submit(
+                            () -> {
+                                start.await();
+                                return singleFlight.execute(key, task);
+                            }));
+        }
+        start.countDown();
+
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (Future<CompletableFuture<Object>> future : submitted) {
+            futures.add(future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        return futures;
+    }
+}
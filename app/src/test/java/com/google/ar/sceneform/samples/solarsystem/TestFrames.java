@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** Synthetic camera planes and frames for the frame processing tests and benchmarks. */
+final class TestFrames {
+
+    /** What row and pixel padding is filled with, so reading it shows up in results. */
+    static final byte PADDING = (byte) 0xee;
+
+    /** Sample value at a column and row. */
+    interface Pattern {
+        int at(int x, int y);
+    }
+
+    /** Smooth gradient with some texture, covering most of the 0 to 255 range. */
+    static final Pattern GRADIENT = (x, y) -> (x * 3 + y * 5 + ((x ^ y) & 15)) & 0xff;
+
+    /** How the chroma planes of a YUV_420_888 frame are laid out. */
+    enum ChromaLayout {
+        /** Separate U and V planes, pixel stride 1 (I420). */
+        PLANAR,
+        /** One interleaved plane, U first, pixel stride 2 (NV12). */
+        NV12,
+        /** One interleaved plane, V first, pixel stride 2 (NV21). */
+        NV21
+    }
+
+    private TestFrames() {}
+
+    /**
+     * A read-only {@code width} x {@code height} plane laid out like {@code Image.Plane}: rows
+     * {@code rowStride} bytes apart, samples {@code pixelStride} bytes apart, and the last row not
+     * padded.
+     */
+    static CameraFrame.Plane plane(
+            int width, int height, int rowStride, int pixelStride, Pattern pattern) {
+        byte[] bytes = new byte[rowStride * (height - 1) + (width - 1) * pixelStride + 1];
+        Arrays.fill(bytes, PADDING);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                bytes[y * rowStride + x * pixelStride] = (byte) pattern.at(x, y);
+            }
+        }
+        return new CameraFrame.Plane(
+                ByteBuffer.wrap(bytes).asReadOnlyBuffer(), rowStride, pixelStride);
+    }
+
+    /** A tightly packed plane. */
+    static CameraFrame.Plane plane(int width, int height, Pattern pattern) {
+        return plane(width, height, width, 1, pattern);
+    }
+
+    /**
+     * A YUV_420_888 frame with half-size chroma in {@code layout}, every row padded by
+     * {@code rowPadding} bytes.
+     */
+    static CameraFrame yuvFrame(
+            int width,
+            int height,
+            ChromaLayout layout,
+            int rowPadding,
+            Pattern y,
+            Pattern u,
+            Pattern v) {
+        CameraFrame.Plane yPlane = plane(width, height, width + rowPadding, 1, y);
+        int chromaWidth = width / 2;
+        int chromaHeight = height / 2;
+        CameraFrame.Plane uPlane;
+        CameraFrame.Plane vPlane;
+        if (layout == ChromaLayout.PLANAR) {
+            uPlane = plane(chromaWidth, chromaHeight, chromaWidth + rowPadding, 1, u);
+            vPlane = plane(chromaWidth, chromaHeight, chromaWidth + rowPadding, 1, v);
+        } else {
+            // Both planes view the same bytes, one sample apart, as camera HALs hand them out.
+            int rowStride = chromaWidth * 2 + rowPadding;
+            byte[] bytes = new byte[rowStride * (chromaHeight - 1) + chromaWidth * 2];
+            Arrays.fill(bytes, PADDING);
+            int uOffset = layout == ChromaLayout.NV12 ? 0 : 1;
+            int vOffset = 1 - uOffset;
+            for (int row = 0; row < chromaHeight; row++) {
+                for (int col = 0; col < chromaWidth; col++) {
+                    bytes[row * rowStride + col * 2 + uOffset] = (byte) u.at(col, row);
+                    bytes[row * rowStride + col * 2 + vOffset] = (byte) v.at(col, row);
+                }
+            }
+            uPlane = new CameraFrame.Plane(slice(bytes, uOffset), rowStride, 2);
+            vPlane = new CameraFrame.Plane(slice(bytes, vOffset), rowStride, 2);
+        }
+        return new CameraFrame(
+                width, height, 0, new CameraFrame.Plane[] {yPlane, uPlane, vPlane}, null);
+    }
+
+    private static ByteBuffer slice(byte[] bytes, int offset) {
+        return ByteBuffer.wrap(bytes, offset, bytes.length - offset).slice().asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Luma histogram of a full Y plane at camera image sizes: one pass on the calling thread, and in
+ * 64-row bands on the common fork-join pool as {@link LightingAnalyzer} runs it.
+ */
+public class TiledPlaneExecutorBenchmark {
+
+    private static final int[][] SIZES = {{640, 480}, {1280, 720}, {1920, 1080}};
+    private static final int WARMUP = 50;
+    private static final int OPS = 50;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @Test
+    public void histogram() throws Exception {
+        TiledPlaneExecutor tiled = new TiledPlaneExecutor(ForkJoinPool.commonPool(), 64);
+        for (int[] size : SIZES) {
+            int width = size[0];
+            int height = size[1];
+            CameraFrame.Plane plane = TestFrames.plane(width, height, TestFrames.GRADIENT);
+            String name = "luma histogram " + width + "x" + height;
+
+            Benchmarks.report(
+                    name + ", single pass",
+                    Benchmarks.nanosPerOp(
+                            WARMUP,
+                            OPS,
+                            () ->
+                                    LumaHistogram.TASK.analyze(
+                                            plane.getBuffer(),
+                                            plane.getRowStride(),
+                                            plane.getPixelStride(),
+                                            width,
+                                            0,
+                                            height)));
+            Benchmarks.report(
+                    name + ", " + ForkJoinPool.getCommonPoolParallelism() + " workers",
+                    Benchmarks.nanosPerOp(
+                            WARMUP,
+                            OPS,
+                            () -> tiled.execute(plane, width, height, LumaHistogram.TASK)));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TiledPlaneExecutorTest {
+
+    private static final int WIDTH = 160;
+    private static final int HEIGHT = 121;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void histogramMatchesSinglePass() {
+        CameraFrame.Plane plane = TestFrames.plane(WIDTH, HEIGHT, TestFrames.GRADIENT);
+        long[] expected = bins(singlePass(plane, WIDTH, HEIGHT));
+
+        for (int bandRows : new int[] {1, 7, 16, 64, HEIGHT - 1}) {
+            LumaHistogram tiled =
+                    new TiledPlaneExecutor(pool, bandRows)
+                            .execute(plane, WIDTH, HEIGHT, LumaHistogram.TASK);
+            assertArrayEquals("bands of " + bandRows, expected, bins(tiled));
+            assertEquals((long) WIDTH * HEIGHT, tiled.getCount());
+        }
+    }
+
+    @Test
+    public void readsPaddedRowsAndInterleavedPixels() {
+        CameraFrame.Plane packed = TestFrames.plane(WIDTH, HEIGHT, TestFrames.GRADIENT);
+        CameraFrame.Plane padded =
+                TestFrames.plane(WIDTH, HEIGHT, WIDTH * 2 + 32, 2, TestFrames.GRADIENT);
+        TiledPlaneExecutor executor = new TiledPlaneExecutor(pool, 8);
+
+        LumaHistogram expected = executor.execute(packed, WIDTH, HEIGHT, LumaHistogram.TASK);
+        LumaHistogram actual = executor.execute(padded, WIDTH, HEIGHT, LumaHistogram.TASK);
+
+        // Any padding read would land in the 0xee bin.
+        assertArrayEquals(bins(expected), bins(actual));
+    }
+
+    @Test
+    public void visitsEveryRowOnceInOrder() {
+        CameraFrame.Plane plane = TestFrames.plane(WIDTH, HEIGHT, TestFrames.GRADIENT);
+        List<Integer> rows =
+                new TiledPlaneExecutor(pool, 5).execute(plane, WIDTH, HEIGHT, new RowsTask());
+
+        assertEquals(HEIGHT, rows.size());
+        for (int row = 0; row < HEIGHT; row++) {
+            assertEquals(row, (int) rows.get(row));
+        }
+    }
+
+    @Test
+    public void floatingPointMergeIsDeterministic() {
+        CameraFrame.Plane plane = TestFrames.plane(WIDTH, HEIGHT, TestFrames.GRADIENT);
+        TiledPlaneExecutor executor = new TiledPlaneExecutor(pool, 3);
+        // Rounding makes this sum depend on the order of additions.
+        TiledPlaneExecutor.BandTask<Double> sum = new SumTask();
+
+        double first = executor.execute(plane, WIDTH, HEIGHT, sum);
+        for (int run = 0; run < 50; run++) {
+            assertEquals(
+                    Double.doubleToLongBits(first),
+                    Double.doubleToLongBits(executor.execute(plane, WIDTH, HEIGHT, sum)));
+        }
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            double sequential =
+                    new TiledPlaneExecutor(single, 3).execute(plane, WIDTH, HEIGHT, sum);
+            assertEquals(Double.doubleToLongBits(first), Double.doubleToLongBits(sequential));
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void lightingAnalyzerTiledMatchesHistogram() {
+        CameraFrame.Plane plane = TestFrames.plane(WIDTH, HEIGHT, TestFrames.GRADIENT);
+        CameraFrame frame =
+                new CameraFrame(WIDTH, HEIGHT, 0, new CameraFrame.Plane[] {plane}, null);
+        LightingAnalyzer analyzer = new LightingAnalyzer(new TiledPlaneExecutor(pool, 16));
+        analyzer.process(frame);
+
+        LumaHistogram histogram = singlePass(plane, WIDTH, HEIGHT);
+        assertEquals(histogram.getMean() / 255f, analyzer.getMeanLuma(), 1e-6f);
+        assertEquals(histogram.getFraction(0, 15), analyzer.getUnderexposedFraction(), 1e-6f);
+        assertEquals(histogram.getFraction(241, 255), analyzer.getOverexposedFraction(), 1e-6f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyBands() {
+        new TiledPlaneExecutor(pool, 0);
+    }
+
+    private static LumaHistogram singlePass(CameraFrame.Plane plane, int width, int height) {
+        return LumaHistogram.TASK.analyze(
+                plane.getBuffer(), plane.getRowStride(), plane.getPixelStride(), width, 0, height);
+    }
+
+    private static long[] bins(LumaHistogram histogram) {
+        long[] bins = new long[256];
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] = histogram.getBin(i);
+        }
+        return bins;
+    }
+
+    /** Lists the rows it saw, in band order. */
+    private static class RowsTask implements TiledPlaneExecutor.BandTask<List<Integer>> {
+        @Override
+        public List<Integer> analyze(
+                ByteBuffer buffer,
+                int rowStride,
+                int pixelStride,
+                int width,
+                int rowStart,
+                int rowEnd) {
+            List<Integer> rows = new ArrayList<>();
+            for (int row = rowStart; row < rowEnd; row++) {
+                rows.add(row);
+            }
+            return rows;
+        }
+
+        @Override
+        public List<Integer> merge(List<Integer> upper, List<Integer> lower) {
+            upper.addAll(lower);
+            return upper;
+        }
+    }
+
+    /** Sum of every sample scaled by an irrational factor. */
+    private static class SumTask implements TiledPlaneExecutor.BandTask<Double> {
+        @Override
+        public Double analyze(
+                ByteBuffer buffer,
+                int rowStride,
+                int pixelStride,
+                int width,
+                int rowStart,
+                int rowEnd) {
+            double sum = 0;
+            for (int row = rowStart; row < rowEnd; row++) {
+                for (int col = 0; col < width; col++) {
+                    sum += (buffer.get(row * rowStride + col * pixelStride) & 0xff) * Math.PI;
+                }
+            }
+            return sum;
+        }
+
+        @Override
+        public Double merge(Double upper, Double lower) {
+            return upper + lower;
+        }
+    }
+}
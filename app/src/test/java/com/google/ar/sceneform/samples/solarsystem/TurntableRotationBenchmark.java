@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * One frame's advance of a single tilted turntable: the closed-form orientation against the
+ * keyframe slerp the original property animation evaluated, with bytes allocated per frame.
+ */
+public class TurntableRotationBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int OPS = 200_000;
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+        Allocations.assumeSupported();
+    }
+
+    @Test
+    public void advance() throws Exception {
+        for (RotatingNode.RotationMode mode : RotatingNode.RotationMode.values()) {
+            TurntableRotation rotation = new TurntableRotation(false, 23.4f);
+            rotation.setRotationMode(mode);
+            Benchmarks.Op advance = () -> rotation.advance(1f / 60);
+            String name = "turntable advance, " + mode;
+            Benchmarks.report(name, Benchmarks.nanosPerOp(WARMUP, OPS, advance));
+            System.out.println(name + ": " + Allocations.perRun(OPS, advance) / OPS + " bytes/op");
+        }
+    }
+}
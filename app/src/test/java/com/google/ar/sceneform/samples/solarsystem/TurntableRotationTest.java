@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.ar.sceneform.math.Quaternion;
+
+import org.junit.Test;
+
+public class TurntableRotationTest {
+
+    private static final float TOLERANCE = 1e-5f;
+    // No tilt, Earth's and Uranus's.
+    private static final float[] TILTS = {0f, 23.4f, 97.8f};
+
+    @Test
+    public void analyticMatchesKeyframedAcrossATurn() {
+        for (boolean clockwise : new boolean[] {false, true}) {
+            for (float tilt : TILTS) {
+                TurntableRotation analytic =
+                        rotation(clockwise, tilt, RotatingNode.RotationMode.ANALYTIC);
+                TurntableRotation keyframed =
+                        rotation(clockwise, tilt, RotatingNode.RotationMode.KEYFRAMED);
+                for (int step = 0; step <= 200; step++) {
+                    double phase = step / 200.0;
+                    analytic.setPhase(phase);
+                    keyframed.setPhase(phase);
+                    assertSameRotation(
+                            (clockwise ? "clockwise" : "counter-clockwise")
+                                    + ", tilt " + tilt + ", phase " + phase,
+                            keyframed.getRotation(),
+                            analytic.getRotation());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void modesAgreeWhileAdvancing() {
+        TurntableRotation analytic = rotation(false, 23.4f, RotatingNode.RotationMode.ANALYTIC);
+        TurntableRotation keyframed = rotation(false, 23.4f, RotatingNode.RotationMode.KEYFRAMED);
+        analytic.setDegreesPerSecond(47f);
+        keyframed.setDegreesPerSecond(47f);
+
+        for (int frame = 0; frame < 600; frame++) {
+            analytic.advance(1f / 60);
+            keyframed.advance(1f / 60);
+            assertSameRotation("frame " + frame, keyframed.getRotation(), analytic.getRotation());
+        }
+    }
+
+    @Test
+    public void quarterTurnIsExact() {
+        TurntableRotation rotation = rotation(false, 0f, RotatingNode.RotationMode.ANALYTIC);
+        rotation.setPhase(0.25);
+
+        Quaternion q = rotation.getRotation();
+        float half = (float) Math.sqrt(0.5);
+        assertEquals(0f, q.x, TOLERANCE);
+        assertEquals(half, q.y, TOLERANCE);
+        assertEquals(0f, q.z, TOLERANCE);
+        assertEquals(half, q.w, TOLERANCE);
+    }
+
+    @Test
+    public void clockwiseTurnsTheOtherWay() {
+        TurntableRotation counterClockwise =
+                rotation(false, 0f, RotatingNode.RotationMode.ANALYTIC);
+        TurntableRotation clockwise = rotation(true, 0f, RotatingNode.RotationMode.ANALYTIC);
+        counterClockwise.setPhase(0.25);
+        clockwise.setPhase(0.25);
+
+        // +X turns to -Z one way and +Z the other, seen from above.
+        assertEquals(-1f, rotateX(counterClockwise.getRotation())[2], TOLERANCE);
+        assertEquals(1f, rotateX(clockwise.getRotation())[2], TOLERANCE);
+    }
+
+    @Test
+    public void analyticAdvanceAllocatesNothingAfterWarmUp() throws Exception {
+        Allocations.assumeSupported();
+        TurntableRotation rotation = rotation(false, 23.4f, RotatingNode.RotationMode.ANALYTIC);
+        Benchmarks.Op advance = () -> rotation.advance(1f / 60);
+        for (int i = 0; i < 20_000; i++) {
+            advance.run();
+        }
+
+        assertEquals(0, Allocations.perRun(1000, advance));
+    }
+
+    private static TurntableRotation rotation(
+            boolean clockwise, float tilt, RotatingNode.RotationMode mode) {
+        TurntableRotation rotation = new TurntableRotation(clockwise, tilt);
+        rotation.setRotationMode(mode);
+        return rotation;
+    }
+
+    /** Where the rotation takes +X. */
+    private static float[] rotateX(Quaternion q) {
+        return new float[] {
+            1 - 2 * (q.y * q.y + q.z * q.z),
+            2 * (q.x * q.y + q.z * q.w),
+            2 * (q.x * q.z - q.y * q.w)
+        };
+    }
+
+    /** Equal as rotations: q and -q turn vectors the same way. */
+    private static void assertSameRotation(
+            String message, Quaternion expected, Quaternion actual) {
+        float dot =
+                expected.x * actual.x
+                        + expected.y * actual.y
+                        + expected.z * actual.z
+                        + expected.w * actual.w;
+        assertEquals(message, 1f, Math.abs(dot), TOLERANCE);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * NV21 frame to ARGB at camera image sizes, at full size and downscaled by 4: the per-pixel
+ * floating point reference, {@link YuvToRgbConverter} on one worker, and on the common pool as
+ * {@link CameraSnapshot} runs it.
+ */
+public class YuvToRgbConverterBenchmark {
+
+    private static final int[][] SIZES = {{640, 480}, {1280, 720}, {1920, 1080}};
+    private static final int WARMUP = 20;
+    private static final int OPS = 20;
+
+    private final ForkJoinPool singleWorker = new ForkJoinPool(1);
+
+    @Before
+    public void setUp() {
+        Benchmarks.assumeEnabled();
+    }
+
+    @After
+    public void tearDown() {
+        singleWorker.shutdownNow();
+    }
+
+    @Test
+    public void convert() throws Exception {
+        YuvToRgbConverter single = new YuvToRgbConverter(singleWorker, 32);
+        YuvToRgbConverter parallel = new YuvToRgbConverter(ForkJoinPool.commonPool(), 32);
+        for (int[] size : SIZES) {
+            CameraFrame frame =
+                    TestFrames.yuvFrame(
+                            size[0],
+                            size[1],
+                            TestFrames.ChromaLayout.NV21,
+                            0,
+                            TestFrames.GRADIENT,
+                            (x, y) -> (x * 11 + y * 3) & 0xff,
+                            (x, y) -> (x * 5 + y * 13) & 0xff);
+            for (int scaleShift : new int[] {0, 2}) {
+                String name = "yuv to rgb " + size[0] + "x" + size[1] + " >>" + scaleShift;
+                Benchmarks.report(
+                        name + ", reference",
+                        Benchmarks.nanosPerOp(
+                                WARMUP, OPS, () -> YuvToRgbReference.convert(frame, scaleShift)));
+                Benchmarks.report(
+                        name + ", 1 worker",
+                        Benchmarks.nanosPerOp(
+                                WARMUP, OPS, () -> single.convert(frame, scaleShift)));
+                Benchmarks.report(
+                        name + ", " + ForkJoinPool.getCommonPoolParallelism() + " workers",
+                        Benchmarks.nanosPerOp(
+                                WARMUP, OPS, () -> parallel.convert(frame, scaleShift)));
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class YuvToRgbConverterTest {
+
+    private static final int WIDTH = 96;
+    private static final int HEIGHT = 70;
+
+    private static final TestFrames.Pattern Y = TestFrames.GRADIENT;
+    // Chroma sweeps the whole range so red and blue clip at both ends.
+    private static final TestFrames.Pattern U = (x, y) -> (x * 11 + y * 3) & 0xff;
+    private static final TestFrames.Pattern V = (x, y) -> (x * 5 + y * 13 + 64) & 0xff;
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void matchesReferenceForEveryChromaLayout() {
+        for (TestFrames.ChromaLayout layout : TestFrames.ChromaLayout.values()) {
+            for (int rowPadding : new int[] {0, 20}) {
+                CameraFrame frame =
+                        TestFrames.yuvFrame(WIDTH, HEIGHT, layout, rowPadding, Y, U, V);
+                for (int scaleShift = 0; scaleShift <= 2; scaleShift++) {
+                    YuvToRgbConverter converter = new YuvToRgbConverter(pool, 8);
+                    int[] pixels = converter.convert(frame, scaleShift);
+                    assertClose(
+                            layout + ", padding " + rowPadding + ", shift " + scaleShift,
+                            YuvToRgbReference.convert(frame, scaleShift),
+                            pixels,
+                            converter.getOutputWidth() * converter.getOutputHeight());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void layoutsGiveIdenticalPixels() {
+        YuvToRgbConverter converter = new YuvToRgbConverter(pool, 8);
+        int[] planar =
+                converter
+                        .convert(
+                                TestFrames.yuvFrame(
+                                        WIDTH, HEIGHT, TestFrames.ChromaLayout.PLANAR, 0, Y, U, V),
+                                0)
+                        .clone();
+        for (TestFrames.ChromaLayout layout : TestFrames.ChromaLayout.values()) {
+            int[] pixels =
+                    converter.convert(TestFrames.yuvFrame(WIDTH, HEIGHT, layout, 12, Y, U, V), 0);
+            for (int i = 0; i < WIDTH * HEIGHT; i++) {
+                assertEquals(layout + " pixel " + i, planar[i], pixels[i]);
+            }
+        }
+    }
+
+    @Test
+    public void neutralChromaIsGray() {
+        CameraFrame frame =
+                TestFrames.yuvFrame(
+                        WIDTH,
+                        HEIGHT,
+                        TestFrames.ChromaLayout.NV21,
+                        0,
+                        Y,
+                        (x, y) -> 128,
+                        (x, y) -> 128);
+        int[] pixels = new YuvToRgbConverter(pool, 8).convert(frame, 0);
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int luma = Y.at(x, y);
+                assertEquals(0xff000000 | luma << 16 | luma << 8 | luma, pixels[y * WIDTH + x]);
+            }
+        }
+    }
+
+    @Test
+    public void downscaleSamplesTheFullConversion() {
+        CameraFrame frame =
+                TestFrames.yuvFrame(WIDTH, HEIGHT, TestFrames.ChromaLayout.NV12, 4, Y, U, V);
+        YuvToRgbConverter converter = new YuvToRgbConverter(pool, 8);
+        int[] full = converter.convert(frame, 0).clone();
+
+        int[] half = converter.convert(frame, 1);
+
+        assertEquals(WIDTH / 2, converter.getOutputWidth());
+        assertEquals(HEIGHT / 2, converter.getOutputHeight());
+        for (int y = 0; y < HEIGHT / 2; y++) {
+            for (int x = 0; x < WIDTH / 2; x++) {
+                assertEquals(full[y * 2 * WIDTH + x * 2], half[y * (WIDTH / 2) + x]);
+            }
+        }
+    }
+
+    @Test
+    public void bandSizeDoesNotChangeTheResult() {
+        CameraFrame frame =
+                TestFrames.yuvFrame(WIDTH, HEIGHT, TestFrames.ChromaLayout.NV21, 0, Y, U, V);
+        int[] single = new YuvToRgbConverter(new ForkJoinPool(1), HEIGHT).convert(frame, 0);
+
+        for (int bandRows : new int[] {1, 3, 16}) {
+            int[] banded = new YuvToRgbConverter(pool, bandRows).convert(frame, 0);
+            for (int i = 0; i < WIDTH * HEIGHT; i++) {
+                assertEquals("bands of " + bandRows, single[i], banded[i]);
+            }
+        }
+    }
+
+    @Test
+    public void reusesOutputWhileLargeEnough() {
+        YuvToRgbConverter converter = new YuvToRgbConverter(pool, 8);
+        CameraFrame frame =
+                TestFrames.yuvFrame(WIDTH, HEIGHT, TestFrames.ChromaLayout.NV21, 0, Y, U, V);
+        int[] first = converter.convert(frame, 0);
+
+        assertSame(first, converter.convert(frame, 0));
+        assertSame(first, converter.convert(frame, 2));
+        CameraFrame larger =
+                TestFrames.yuvFrame(WIDTH * 2, HEIGHT, TestFrames.ChromaLayout.NV21, 0, Y, U, V);
+        assertNotSame(first, converter.convert(larger, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeScale() {
+        new YuvToRgbConverter(pool, 8)
+                .convert(
+                        TestFrames.yuvFrame(
+                                WIDTH, HEIGHT, TestFrames.ChromaLayout.PLANAR, 0, Y, U, V),
+                        -1);
+    }
+
+    /** Fixed point may round differently from the float reference by one step per channel. */
+    private static void assertClose(String message, int[] expected, int[] actual, int count) {
+        assertTrue(message, actual.length >= count);
+        for (int i = 0; i < count; i++) {
+            for (int shift = 0; shift <= 24; shift += 8) {
+                int e = expected[i] >>> shift & 0xff;
+                int a = actual[i] >>> shift & 0xff;
+                assertTrue(message + ", pixel " + i + ": " + e + " vs " + a, Math.abs(e - a) <= 1);
+            }
+        }
+    }
+}
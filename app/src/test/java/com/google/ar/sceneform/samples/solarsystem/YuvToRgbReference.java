@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+/**
+ * Straightforward YUV_420_888 to ARGB conversion, one pixel at a time in floating point, to check
+ * and compare {@link YuvToRgbConverter} against.
+ */
+final class YuvToRgbReference {
+
+    private YuvToRgbReference() {}
+
+    /** BT.601 full range, nearest chroma sample, point sampled by {@code 2^scaleShift}. */
+    static int[] convert(CameraFrame frame, int scaleShift) {
+        CameraFrame.Plane yPlane = frame.getPlane(CameraFrame.PLANE_Y);
+        CameraFrame.Plane uPlane = frame.getPlane(CameraFrame.PLANE_U);
+        CameraFrame.Plane vPlane = frame.getPlane(CameraFrame.PLANE_V);
+        int width = frame.getWidth() >> scaleShift;
+        int height = frame.getHeight() >> scaleShift;
+        int[] pixels = new int[width * height];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int x = col << scaleShift;
+                int y = row << scaleShift;
+                float luma = yPlane.get(x, y);
+                float cb = uPlane.get(x / 2, y / 2) - 128f;
+                float cr = vPlane.get(x / 2, y / 2) - 128f;
+                int r = clamp(Math.round(luma + 1.402f * cr));
+                int g = clamp(Math.round(luma - 0.344136f * cb - 0.714136f * cr));
+                int b = clamp(Math.round(luma + 1.772f * cb));
+                pixels[row * width + col] = 0xff000000 | (r << 16) | (g << 8) | b;
+            }
+        }
+        return pixels;
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
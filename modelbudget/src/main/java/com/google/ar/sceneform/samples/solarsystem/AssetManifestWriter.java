@@ -0,0 +1,133 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes {@code asset_manifest.bin}, the binary index of packaged models read by the app's
+ * {@code AssetIndex}. The layout is documented in {@code app/manifest.gradle}, which drives this
+ * writer at build time.
+ */
+public class AssetManifestWriter {
+
+    public static final int MAGIC = 0x41495831;
+    public static final int VERSION = 1;
+
+    private static final int MAX_STRING_BYTES = 0xffff;
+
+    private static class Entry {
+        final String path;
+        final String modelId;
+        final long byteSize;
+        final long contentHash;
+        final long geometryBytes;
+        final long textureBytes;
+        final int tierMask;
+        final int lodLevels;
+        final List<String> textures;
+
+        Entry(
+                String path,
+                String modelId,
+                long byteSize,
+                long contentHash,
+                long geometryBytes,
+                long textureBytes,
+                int tierMask,
+                int lodLevels,
+                List<String> textures) {
+            this.path = path;
+            this.modelId = modelId;
+            this.byteSize = byteSize;
+            this.contentHash = contentHash;
+            this.geometryBytes = geometryBytes;
+            this.textureBytes = textureBytes;
+            this.tierMask = tierMask;
+            this.lodLevels = lodLevels;
+            this.textures = new ArrayList<>(textures);
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /** Adds one packaged .sfb; entries are written in the order they are added. */
+    public void add(
+            String path,
+            String modelId,
+            long byteSize,
+            long contentHash,
+            long geometryBytes,
+            long textureBytes,
+            int tierMask,
+            int lodLevels,
+            List<String> textures) {
+        if (tierMask < 0 || tierMask > 0xff || lodLevels < 0 || lodLevels > 0xff) {
+            throw new IllegalArgumentException("Tier mask and LOD count must fit a byte: " + path);
+        }
+        if (textures.size() > 0xffff) {
+            throw new IllegalArgumentException("Too many textures: " + path);
+        }
+        entries.add(
+                new Entry(
+                        path,
+                        modelId,
+                        byteSize,
+                        contentHash,
+                        geometryBytes,
+                        textureBytes,
+                        tierMask,
+                        lodLevels,
+                        textures));
+    }
+
+    /** Writes the manifest. Doesn't close {@code output}. */
+    public void writeTo(OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Entry entry : entries) {
+            writeString(out, entry.path);
+            writeString(out, entry.modelId);
+            out.writeLong(entry.byteSize);
+            out.writeLong(entry.contentHash);
+            out.writeLong(entry.geometryBytes);
+            out.writeLong(entry.textureBytes);
+            out.writeByte(entry.tierMask);
+            out.writeByte(entry.lodLevels);
+            out.writeShort(entry.textures.size());
+            for (String texture : entry.textures) {
+                writeString(out, texture);
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IOException("String too long for the manifest: " + value);
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes a {@link ModelBudget} from a .gltf file and the .bin and .png files next to it, without
+ * loading the model.
+ *
+ * <p>Plain Java so it runs at build time and in JVM tests against the sampledata models. Index
+ * buffers are read through a memory map to find how many vertices each mesh actually references.
+ */
+public final class GltfInspector {
+
+    private static final int COMPONENT_BYTE = 5120;
+    private static final int COMPONENT_UNSIGNED_BYTE = 5121;
+    private static final int COMPONENT_SHORT = 5122;
+    private static final int COMPONENT_UNSIGNED_SHORT = 5123;
+    private static final int COMPONENT_UNSIGNED_INT = 5125;
+    private static final int COMPONENT_FLOAT = 5126;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private static final String[] MATERIAL_TEXTURES = {
+        "normalTexture", "occlusionTexture", "emissiveTexture"
+    };
+    private static final String[] PBR_TEXTURES = {"baseColorTexture", "metallicRoughnessTexture"};
+
+    private final File directory;
+    private final Map<String, Object> root;
+    private final List<MappedByteBuffer> buffers = new ArrayList<>();
+    private final Map<Integer, Long> imageBytes = new HashMap<>();
+    private final List<String> missingImages = new ArrayList<>();
+
+    private GltfInspector(File gltf) throws IOException {
+        this.directory = gltf.getAbsoluteFile().getParentFile();
+        String json = new String(Files.readAllBytes(gltf.toPath()), StandardCharsets.UTF_8);
+        this.root = asMap(SimpleJson.parse(json));
+    }
+
+    /** Inspects {@code gltf}, resolving buffers and images relative to its directory. */
+    public static ModelBudget inspect(File gltf) throws IOException {
+        GltfInspector inspector = new GltfInspector(gltf);
+        inspector.mapBuffers();
+
+        String name = gltf.getName().replaceFirst("\\.gltf$", "");
+        List<ModelBudget.MeshBudget> meshes = inspector.inspectMeshes();
+        List<ModelBudget.MaterialBudget> materials = inspector.inspectMaterials();
+
+        long geometryBytes = 0;
+        for (ModelBudget.MeshBudget mesh : meshes) {
+            geometryBytes += mesh.getTotalBytes();
+        }
+        long textureBytes = 0;
+        for (int i = 0; i < list(inspector.root, "images").size(); i++) {
+            textureBytes += inspector.imageBytes(i);
+        }
+        return new ModelBudget(
+                name, meshes, materials, geometryBytes, textureBytes, inspector.missingImages);
+    }
+
+    private void mapBuffers() throws IOException {
+        for (Object buffer : list(root, "buffers")) {
+            Map<String, Object> bufferObject = asMap(buffer);
+            Object uri = bufferObject.get("uri");
+            if (!(uri instanceof String) || ((String) uri).startsWith("data:")) {
+                throw new IOException("Only external buffers are supported");
+            }
+            File file = new File(directory, (String) uri);
+            long declared = number(bufferObject, "byteLength", 0);
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                    FileChannel channel = raf.getChannel()) {
+                if (channel.size() < declared) {
+                    throw new IOException(
+                            file + " is " + channel.size() + " bytes, expected " + declared);
+                }
+                // The mapping stays valid after the channel is closed.
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, declared);
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                buffers.add(mapped);
+            }
+        }
+    }
+
+    private List<ModelBudget.MeshBudget> inspectMeshes() {
+        List<ModelBudget.MeshBudget> meshes = new ArrayList<>();
+        List<Object> meshList = list(root, "meshes");
+        for (int m = 0; m < meshList.size(); m++) {
+            Map<String, Object> mesh = asMap(meshList.get(m));
+            Set<Integer> attributeAccessors = new HashSet<>();
+            Set<Integer> indexAccessors = new HashSet<>();
+            int vertexCount = 0;
+            int indexCount = 0;
+
+            for (Object primitiveObject : list(mesh, "primitives")) {
+                Map<String, Object> primitive = asMap(primitiveObject);
+                Map<String, Object> attributes = asMap(primitive.get("attributes"));
+                int primitiveVertices = 0;
+                for (Object accessor : attributes.values()) {
+                    int index = ((Number) accessor).intValue();
+                    attributeAccessors.add(index);
+                    primitiveVertices =
+                            (int) Math.max(primitiveVertices, number(accessor(index), "count", 0));
+                }
+
+                Object indices = primitive.get("indices");
+                if (indices != null) {
+                    int index = ((Number) indices).intValue();
+                    indexAccessors.add(index);
+                    indexCount += (int) number(accessor(index), "count", 0);
+                    // Only vertices the indices reach are processed.
+                    primitiveVertices = Math.min(primitiveVertices, maxIndex(index) + 1);
+                } else {
+                    indexCount += primitiveVertices;
+                }
+                vertexCount += primitiveVertices;
+            }
+
+            String name = mesh.get("name") instanceof String ? (String) mesh.get("name") : "mesh" + m;
+            meshes.add(
+                    new ModelBudget.MeshBudget(
+                            name,
+                            vertexCount,
+                            indexCount,
+                            accessorBytes(attributeAccessors),
+                            accessorBytes(indexAccessors)));
+        }
+        return meshes;
+    }
+
+    private List<ModelBudget.MaterialBudget> inspectMaterials() throws IOException {
+        List<ModelBudget.MaterialBudget> materials = new ArrayList<>();
+        List<Object> materialList = list(root, "materials");
+        for (int m = 0; m < materialList.size(); m++) {
+            Map<String, Object> material = asMap(materialList.get(m));
+            Set<Integer> images = new HashSet<>();
+            collectImages(material, MATERIAL_TEXTURES, images);
+            Object pbr = material.get("pbrMetallicRoughness");
+            if (pbr != null) {
+                collectImages(asMap(pbr), PBR_TEXTURES, images);
+            }
+
+            long bytes = 0;
+            for (int image : images) {
+                bytes += imageBytes(image);
+            }
+            String name =
+                    material.get("name") instanceof String ? (String) material.get("name") : "material" + m;
+            materials.add(new ModelBudget.MaterialBudget(name, images.size(), bytes));
+        }
+        return materials;
+    }
+
+    private void collectImages(Map<String, Object> owner, String[] keys, Set<Integer> images) {
+        List<Object> textures = list(root, "textures");
+        for (String key : keys) {
+            Object textureInfo = owner.get(key);
+            if (textureInfo == null) {
+                continue;
+            }
+            int texture = (int) number(asMap(textureInfo), "index", -1);
+            if (texture >= 0 && texture < textures.size()) {
+                long source = number(asMap(textures.get(texture)), "source", -1);
+                if (source >= 0) {
+                    images.add((int) source);
+                }
+            }
+        }
+    }
+
+    /** RGBA8 with a full mip chain, which adds a third. Missing images count as 0 bytes. */
+    private long imageBytes(int image) throws IOException {
+        Long cached = imageBytes.get(image);
+        if (cached != null) {
+            return cached;
+        }
+        String uri = (String) asMap(list(root, "images").get(image)).get("uri");
+        File file = new File(directory, uri);
+        long bytes = 0;
+        if (file.exists()) {
+            int[] size = readPngSize(file);
+            bytes = (long) size[0] * size[1] * 4 * 4 / 3;
+        } else {
+            missingImages.add(uri);
+        }
+        imageBytes.put(image, bytes);
+        return bytes;
+    }
+
+    private static int[] readPngSize(File png) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(png))) {
+            byte[] signature = new byte[PNG_SIGNATURE.length];
+            in.readFully(signature);
+            for (int i = 0; i < signature.length; i++) {
+                if (signature[i] != PNG_SIGNATURE[i]) {
+                    throw new IOException(png + " is not a PNG");
+                }
+            }
+            // IHDR is always the first chunk: length, type, then width and height.
+            in.readInt();
+            in.readInt();
+            return new int[] {in.readInt(), in.readInt()};
+        }
+    }
+
+    private long accessorBytes(Set<Integer> accessors) {
+        long bytes = 0;
+        for (int index : accessors) {
+            Map<String, Object> accessor = accessor(index);
+            bytes += number(accessor, "count", 0)
+                    * componentCount((String) accessor.get("type"))
+                    * componentSize((int) number(accessor, "componentType", COMPONENT_FLOAT));
+        }
+        return bytes;
+    }
+
+    private int maxIndex(int accessorIndex) {
+        Map<String, Object> accessor = accessor(accessorIndex);
+        Object viewIndex = accessor.get("bufferView");
+        if (viewIndex == null) {
+            return Integer.MAX_VALUE - 1;
+        }
+        Map<String, Object> view = asMap(list(root, "bufferViews").get(((Number) viewIndex).intValue()));
+        MappedByteBuffer buffer = buffers.get((int) number(view, "buffer", 0));
+        int componentType = (int) number(accessor, "componentType", COMPONENT_UNSIGNED_INT);
+        int size = componentSize(componentType);
+        long stride = number(view, "byteStride", size);
+        long offset = number(view, "byteOffset", 0) + number(accessor, "byteOffset", 0);
+        long count = number(accessor, "count", 0);
+
+        int max = 0;
+        for (long i = 0; i < count; i++) {
+            int position = (int) (offset + i * stride);
+            int value;
+            switch (componentType) {
+                case COMPONENT_UNSIGNED_BYTE:
+                    value = buffer.get(position) & 0xff;
+                    break;
+                case COMPONENT_UNSIGNED_SHORT:
+                    value = buffer.getShort(position) & 0xffff;
+                    break;
+                default:
+                    value = buffer.getInt(position);
+            }
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    private Map<String, Object> accessor(int index) {
+        return asMap(list(root, "accessors").get(index));
+    }
+
+    private static int componentCount(String type) {
+        switch (type) {
+            case "SCALAR":
+                return 1;
+            case "VEC2":
+                return 2;
+            case "VEC3":
+                return 3;
+            case "VEC4":
+            case "MAT2":
+                return 4;
+            case "MAT3":
+                return 9;
+            case "MAT4":
+                return 16;
+            default:
+                throw new IllegalArgumentException("Unknown accessor type " + type);
+        }
+    }
+
+    private static int componentSize(int componentType) {
+        switch (componentType) {
+            case COMPONENT_BYTE:
+            case COMPONENT_UNSIGNED_BYTE:
+                return 1;
+            case COMPONENT_SHORT:
+            case COMPONENT_UNSIGNED_SHORT:
+                return 2;
+            case COMPONENT_UNSIGNED_INT:
+            case COMPONENT_FLOAT:
+                return 4;
+            default:
+                throw new IllegalArgumentException("Unknown component type " + componentType);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> list(Map<String, Object> object, String key) {
+        Object value = object.get(key);
+        return value == null ? Collections.emptyList() : (List<Object>) value;
+    }
+
+    private static long number(Map<String, Object> object, String key, long defaultValue) {
+        Object value = object.get(key);
+        return value == null ? defaultValue : ((Number) value).longValue();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GPU memory a model will cost once loaded, as computed by {@link GltfInspector}.
+ *
+ * <p>Texture sizes assume RGBA8 with a full mip chain. Scaling textures down by a divisor on each
+ * side divides their cost by its square, which is what the texture tiers do.
+ */
+public class ModelBudget {
+
+    /** Geometry cost of one mesh. */
+    public static class MeshBudget {
+        public final String name;
+        public final int vertexCount;
+        public final int indexCount;
+        public final long vertexBytes;
+        public final long indexBytes;
+
+        MeshBudget(String name, int vertexCount, int indexCount, long vertexBytes, long indexBytes) {
+            this.name = name;
+            this.vertexCount = vertexCount;
+            this.indexCount = indexCount;
+            this.vertexBytes = vertexBytes;
+            this.indexBytes = indexBytes;
+        }
+
+        public long getTotalBytes() {
+            return vertexBytes + indexBytes;
+        }
+    }
+
+    /** Texture cost of one material. Textures shared between materials are counted in each. */
+    public static class MaterialBudget {
+        public final String name;
+        public final int textureCount;
+        public final long textureBytes;
+
+        MaterialBudget(String name, int textureCount, long textureBytes) {
+            this.name = name;
+            this.textureCount = textureCount;
+            this.textureBytes = textureBytes;
+        }
+    }
+
+    private final String name;
+    private final List<MeshBudget> meshes;
+    private final List<MaterialBudget> materials;
+    private final long geometryBytes;
+    private final long textureBytes;
+    private final List<String> missingImages;
+
+    public ModelBudget(
+            String name,
+            List<MeshBudget> meshes,
+            List<MaterialBudget> materials,
+            long geometryBytes,
+            long textureBytes,
+            List<String> missingImages) {
+        this.name = name;
+        this.meshes = Collections.unmodifiableList(meshes);
+        this.materials = Collections.unmodifiableList(materials);
+        this.geometryBytes = geometryBytes;
+        this.textureBytes = textureBytes;
+        this.missingImages = Collections.unmodifiableList(missingImages);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<MeshBudget> getMeshes() {
+        return meshes;
+    }
+
+    public List<MaterialBudget> getMaterials() {
+        return materials;
+    }
+
+    /** Image URIs that weren't found and so aren't included in {@link #getTextureBytes()}. */
+    public List<String> getMissingImages() {
+        return missingImages;
+    }
+
+    /** Vertex and index buffer bytes over all meshes. */
+    public long getGeometryBytes() {
+        return geometryBytes;
+    }
+
+    /** Bytes of all distinct textures at full resolution. */
+    public long getTextureBytes() {
+        return textureBytes;
+    }
+
+    public long getTotalBytes() {
+        return getTotalBytes(1);
+    }
+
+    /** Total bytes with textures scaled down by {@code textureDivisor} on each side. */
+    public long getTotalBytes(int textureDivisor) {
+        return geometryBytes + textureBytes / ((long) textureDivisor * textureDivisor);
+    }
+
+    /**
+     * Returns the smallest divisor in {@code textureDivisors} (ascending) whose total fits in
+     * {@code budgetBytes}, or -1 if none does. A loader downgrades to the returned divisor or
+     * refuses the model on -1.
+     */
+    public int fitTextureDivisor(long budgetBytes, int... textureDivisors) {
+        for (int divisor : textureDivisors) {
+            if (getTotalBytes(divisor) <= budgetBytes) {
+                return divisor;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GltfInspectorTest {
+
+    private static final File SAMPLEDATA =
+            new File(System.getProperty("sampledata.dir", "../app/sampledata/models"));
+
+    private static final List<String> MODELS =
+            Arrays.asList(
+                    "Earth", "Jupiter", "Luna", "Mars", "Mercury", "Neptune", "Saturn", "Sol",
+                    "Uranus", "Venus");
+
+    @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+    private static ModelBudget inspectSample(String model) throws IOException {
+        return GltfInspector.inspect(new File(SAMPLEDATA, model + "/" + model + ".gltf"));
+    }
+
+    @Test
+    public void earthCloudMeshesMatchTheirAccessors() throws IOException {
+        ModelBudget earth = inspectSample("Earth");
+
+        assertEquals("Earth", earth.getName());
+        assertEquals(11, earth.getMeshes().size());
+        ModelBudget.MeshBudget clouds = earth.getMeshes().get(0);
+        assertEquals("Earth_Clouds_01", clouds.name);
+        assertEquals(2793, clouds.vertexCount);
+        assertEquals(15744, clouds.indexCount);
+        assertEquals(15744 * 4, clouds.indexBytes);
+    }
+
+    @Test
+    public void earthReportsItsMissingNormalMap() throws IOException {
+        ModelBudget earth = inspectSample("Earth");
+
+        assertEquals(Collections.singletonList("Earth_Mat_normal.png"), earth.getMissingImages());
+    }
+
+    @Test
+    public void everySampleModelAddsUpItsMeshes() throws IOException {
+        for (String model : MODELS) {
+            ModelBudget budget = inspectSample(model);
+            long meshBytes = 0;
+            for (ModelBudget.MeshBudget mesh : budget.getMeshes()) {
+                assertTrue(model + " " + mesh.name, mesh.vertexCount > 0);
+                assertTrue(model + " " + mesh.name, mesh.indexCount % 3 == 0);
+                meshBytes += mesh.getTotalBytes();
+            }
+            assertEquals(model, meshBytes, budget.getGeometryBytes());
+            assertTrue(model, budget.getTextureBytes() > 0);
+            assertTrue(model, !budget.getMaterials().isEmpty());
+        }
+    }
+
+    @Test
+    public void countsOnlyReferencedVerticesAndSharedImagesOnce() throws IOException {
+        File gltf = writeQuadModel();
+
+        ModelBudget budget = GltfInspector.inspect(gltf);
+
+        // Four positions, but the indices only reach three of them.
+        ModelBudget.MeshBudget mesh = budget.getMeshes().get(0);
+        assertEquals(3, mesh.vertexCount);
+        assertEquals(3, mesh.indexCount);
+        assertEquals(4 * 3 * 4, mesh.vertexBytes);
+        assertEquals(3 * 2, mesh.indexBytes);
+
+        // An 8x4 RGBA8 texture with mips, used by both materials.
+        long textureBytes = 8 * 4 * 4 * 4 / 3;
+        assertEquals(textureBytes, budget.getMaterials().get(0).textureBytes);
+        assertEquals(2, budget.getMaterials().get(1).textureCount);
+        assertEquals(textureBytes, budget.getMaterials().get(1).textureBytes);
+        assertEquals(textureBytes, budget.getTextureBytes());
+        assertEquals(Collections.singletonList("missing.png"), budget.getMissingImages());
+    }
+
+    @Test
+    public void rejectsEmbeddedBuffers() throws IOException {
+        File gltf = folder.newFile("embedded.gltf");
+        write(gltf, "{\"buffers\": [{\"uri\": \"data:application/octet-stream;base64,AA==\"}]}");
+
+        try {
+            GltfInspector.inspect(gltf);
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("external buffers"));
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedBuffers() throws IOException {
+        File gltf = folder.newFile("short.gltf");
+        write(gltf, "{\"buffers\": [{\"uri\": \"short.bin\", \"byteLength\": 100}]}");
+        Files.write(new File(folder.getRoot(), "short.bin").toPath(), new byte[10]);
+
+        try {
+            GltfInspector.inspect(gltf);
+            fail();
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("expected 100"));
+        }
+    }
+
+    private File writeQuadModel() throws IOException {
+        ByteBuffer bin = ByteBuffer.allocate(48 + 6).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 12; i++) {
+            bin.putFloat(i);
+        }
+        bin.putShort((short) 0).putShort((short) 2).putShort((short) 1);
+        Files.write(new File(folder.getRoot(), "quad.bin").toPath(), bin.array());
+        ImageIO.write(
+                new BufferedImage(8, 4, BufferedImage.TYPE_INT_ARGB),
+                "png",
+                new File(folder.getRoot(), "quad.png"));
+
+        File gltf = folder.newFile("quad.gltf");
+        write(
+                gltf,
+                "{"
+                        + "\"buffers\": [{\"uri\": \"quad.bin\", \"byteLength\": 54}],"
+                        + "\"bufferViews\": ["
+                        + "  {\"buffer\": 0, \"byteOffset\": 0, \"byteLength\": 48},"
+                        + "  {\"buffer\": 0, \"byteOffset\": 48, \"byteLength\": 6}],"
+                        + "\"accessors\": ["
+                        + "  {\"bufferView\": 0, \"componentType\": 5126, \"count\": 4,"
+                        + "   \"type\": \"VEC3\"},"
+                        + "  {\"bufferView\": 1, \"componentType\": 5123, \"count\": 3,"
+                        + "   \"type\": \"SCALAR\"}],"
+                        + "\"meshes\": [{\"name\": \"quad\", \"primitives\": ["
+                        + "  {\"attributes\": {\"POSITION\": 0}, \"indices\": 1}]}],"
+                        + "\"images\": [{\"uri\": \"quad.png\"}, {\"uri\": \"missing.png\"}],"
+                        + "\"textures\": [{\"source\": 0}, {\"source\": 1}],"
+                        + "\"materials\": ["
+                        + "  {\"pbrMetallicRoughness\": {\"baseColorTexture\": {\"index\": 0}}},"
+                        + "  {\"pbrMetallicRoughness\": {\"baseColorTexture\": {\"index\": 0}},"
+                        + "   \"normalTexture\": {\"index\": 1}}]"
+                        + "}");
+        return gltf;
+    }
+
+    private static void write(File file, String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+public class ModelBudgetTest {
+
+    private static ModelBudget budget(long geometryBytes, long textureBytes) {
+        return new ModelBudget(
+                "test",
+                Collections.emptyList(),
+                Collections.emptyList(),
+                geometryBytes,
+                textureBytes,
+                Collections.emptyList());
+    }
+
+    @Test
+    public void texturesShrinkWithTheSquareOfTheDivisor() {
+        ModelBudget budget = budget(1000, 16000);
+
+        assertEquals(17000, budget.getTotalBytes());
+        assertEquals(5000, budget.getTotalBytes(2));
+        assertEquals(2000, budget.getTotalBytes(4));
+    }
+
+    @Test
+    public void fitTextureDivisorPicksTheSmallestDivisorThatFits() {
+        ModelBudget budget = budget(1000, 16000);
+
+        assertEquals(1, budget.fitTextureDivisor(17000, 1, 2, 4));
+        assertEquals(2, budget.fitTextureDivisor(16999, 1, 2, 4));
+        assertEquals(4, budget.fitTextureDivisor(4999, 1, 2, 4));
+        assertEquals(4, budget.fitTextureDivisor(4999, 2, 4));
+    }
+
+    @Test
+    public void fitTextureDivisorRefusesWhatNeverFits() {
+        ModelBudget budget = budget(1000, 16000);
+
+        assertEquals(-1, budget.fitTextureDivisor(1999, 1, 2, 4));
+        assertEquals(-1, budget.fitTextureDivisor(999, 1, 2, 4, 1024));
+        assertEquals(-1, budget.fitTextureDivisor(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.ar.sceneform.samples.solarsystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SimpleJsonTest {
+
+    @Test
+    public void parsesLiteralsAndNumbers() {
+        assertEquals(Boolean.TRUE, SimpleJson.parse("true"));
+        assertEquals(Boolean.FALSE, SimpleJson.parse(" false "));
+        assertNull(SimpleJson.parse("null"));
+        assertEquals(42.0, SimpleJson.parse("42"));
+        assertEquals(-1.5e3, SimpleJson.parse("-1.5E3"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void parsesNestedObjectsInOrder() {
+        Map<String, Object> root =
+                (Map<String, Object>)
+                        SimpleJson.parse(
+                                "{\"b\": [1, {\"c\": []}], \"a\": {}, \"s\": \"x\"}");
+
+        assertEquals(Arrays.asList("b", "a", "s"), Arrays.asList(root.keySet().toArray()));
+        List<Object> b = (List<Object>) root.get("b");
+        assertEquals(1.0, b.get(0));
+        assertEquals(Collections.emptyList(), ((Map<String, Object>) b.get(1)).get("c"));
+        assertEquals(Collections.emptyMap(), root.get("a"));
+        assertEquals("x", root.get("s"));
+    }
+
+    @Test
+    public void decodesEscapes() {
+        assertEquals(
+                "q\"s\\/\b\f\n\r\t\u00e9",
+                SimpleJson.parse("\"q\\\"s\\\\\\/\\b\\f\\n\\r\\t\\u00e9\""));
+    }
+
+    @Test
+    public void rejectsTrailingCharacters() {
+        assertError("{} x", "Trailing characters");
+    }
+
+    @Test
+    public void rejectsUnterminatedInput() {
+        assertError("\"abc", "Unterminated string");
+        assertError("[1, 2", "Expected ']'");
+        assertError("", "Unexpected end of input");
+    }
+
+    @Test
+    public void rejectsUnknownTokens() {
+        assertError("[tru]", "Expected true");
+        assertError("{\"a\": ?}", "Unexpected character '?'");
+    }
+
+    private static void assertError(String json, String message) {
+        try {
+            SimpleJson.parse(json);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith(message));
+            return;
+        }
+        throw new AssertionError("Parsed " + json);
+    }
+}